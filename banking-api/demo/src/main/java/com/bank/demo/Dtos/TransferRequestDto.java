@@ -2,6 +2,7 @@ package com.bank.demo.Dtos;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -100,12 +101,103 @@ public class TransferRequestDto {
         public void setMerchantInfo(Map<String, Object> merchantInfo) {
             this.merchantInfo = merchantInfo;
         }
+        public String getRecipientEmail() {
+            return recipientEmail;
+        }
+        public void setRecipientEmail(String recipientEmail) {
+            this.recipientEmail = recipientEmail;
+        }
+        public String getRecipientphoneNumber() {
+            return recipientphoneNumber;
+        }
+        public void setRecipientphoneNumber(String recipientphoneNumber) {
+            this.recipientphoneNumber = recipientphoneNumber;
+        }
+        public String getSecurityQuestion() {
+            return securityQuestion;
+        }
+        public void setSecurityQuestion(String securityQuestion) {
+            this.securityQuestion = securityQuestion;
+        }
+        public String getSecurityAnswer() {
+            return securityAnswer;
+        }
+        public void setSecurityAnswer(String securityAnswer) {
+            this.securityAnswer = securityAnswer;
+        }
     }
 
-    // Claim transfer
+    // Claim transfer: the Interac transfer sent to the connected user's email or phone, and the account to deposit it to
     public static class ClaimRequest {
-        private String recipientEmail;
+        private String recipientEmail; // informative: the transfer is matched on the connected user's contacts
         private String securityAnswer;
+        private String interacReferenceId;
+        private String toAccountNumber;
+
+        public String getRecipientEmail() {
+            return recipientEmail;
+        }
+        public void setRecipientEmail(String recipientEmail) {
+            this.recipientEmail = recipientEmail;
+        }
+        public String getSecurityAnswer() {
+            return securityAnswer;
+        }
+        public void setSecurityAnswer(String securityAnswer) {
+            this.securityAnswer = securityAnswer;
+        }
+        public String getInteracReferenceId() {
+            return interacReferenceId;
+        }
+        public void setInteracReferenceId(String interacReferenceId) {
+            this.interacReferenceId = interacReferenceId;
+        }
+        public String getToAccountNumber() {
+            return toAccountNumber;
+        }
+        public void setToAccountNumber(String toAccountNumber) {
+            this.toAccountNumber = toAccountNumber;
+        }
+    }
+
+    // An Interac transfer waiting for the connected user to claim it
+    public static class ClaimableTransfer {
+        private String interacReferenceId;
+        private double amount;
+        private String currency;
+        private String securityQuestion;
+        private OffsetDateTime sentAt;
+
+        public String getInteracReferenceId() {
+            return interacReferenceId;
+        }
+        public void setInteracReferenceId(String interacReferenceId) {
+            this.interacReferenceId = interacReferenceId;
+        }
+        public double getAmount() {
+            return amount;
+        }
+        public void setAmount(double amount) {
+            this.amount = amount;
+        }
+        public String getCurrency() {
+            return currency;
+        }
+        public void setCurrency(String currency) {
+            this.currency = currency;
+        }
+        public String getSecurityQuestion() {
+            return securityQuestion;
+        }
+        public void setSecurityQuestion(String securityQuestion) {
+            this.securityQuestion = securityQuestion;
+        }
+        public OffsetDateTime getSentAt() {
+            return sentAt;
+        }
+        public void setSentAt(OffsetDateTime sentAt) {
+            this.sentAt = sentAt;
+        }
     }
 
 
@@ -144,8 +236,255 @@ public class TransferRequestDto {
     }
 
 
+    // Result of one item of a batch transfer, in the order the items were sent
+    public static class BatchTransferResult {
+        private int index;
+        private UUID transactionId;
+        private String interacReferenceId;
+        private String status; // PENDING, COMPLETED (disbursements) or FAILED
+        private String message;
+
+        // Getters and Setters
+        public int getIndex() {
+            return index;
+        }
+        public void setIndex(int index) {
+            this.index = index;
+        }
+        public UUID getTransactionId() {
+            return transactionId;
+        }
+        public void setTransactionId(UUID transactionId) {
+            this.transactionId = transactionId;
+        }
+        public String getInteracReferenceId() {
+            return interacReferenceId;
+        }
+        public void setInteracReferenceId(String interacReferenceId) {
+            this.interacReferenceId = interacReferenceId;
+        }
+        public String getStatus() {
+            return status;
+        }
+        public void setStatus(String status) {
+            this.status = status;
+        }
+        public String getMessage() {
+            return message;
+        }
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+
+    // One-to-many payment (payroll): every item is paid from the same account in one DB transaction
+    public static class DisbursementRequest {
+        private String fromAccountNumber;
+        private String transactionType = "TRANSFER";
+        private String currency;
+        private String description; // used for the items without their own
+        private List<DisbursementItem> payments;
+
+        public String getFromAccountNumber() {
+            return fromAccountNumber;
+        }
+        public void setFromAccountNumber(String fromAccountNumber) {
+            this.fromAccountNumber = fromAccountNumber;
+        }
+        public String getTransactionType() {
+            return transactionType;
+        }
+        public void setTransactionType(String transactionType) {
+            this.transactionType = transactionType;
+        }
+        public String getCurrency() {
+            return currency;
+        }
+        public void setCurrency(String currency) {
+            this.currency = currency;
+        }
+        public String getDescription() {
+            return description;
+        }
+        public void setDescription(String description) {
+            this.description = description;
+        }
+        public List<DisbursementItem> getPayments() {
+            return payments;
+        }
+        public void setPayments(List<DisbursementItem> payments) {
+            this.payments = payments;
+        }
+    }
+
+    public static class DisbursementItem {
+        private String toAccountNumber;
+        private double amount;
+        private String description;
+
+        public String getToAccountNumber() {
+            return toAccountNumber;
+        }
+        public void setToAccountNumber(String toAccountNumber) {
+            this.toAccountNumber = toAccountNumber;
+        }
+        public double getAmount() {
+            return amount;
+        }
+        public void setAmount(double amount) {
+            this.amount = amount;
+        }
+        public String getDescription() {
+            return description;
+        }
+        public void setDescription(String description) {
+            this.description = description;
+        }
+    }
+
+    // Totals plus one result per item, in the order of the request; streamed to the client as NDJSON
+    public static class DisbursementResponse {
+        private int total;
+        private int succeeded;
+        private int failed;
+        private BigDecimal totalAmount;
+        private List<BatchTransferResult> results;
+
+        public int getTotal() {
+            return total;
+        }
+        public void setTotal(int total) {
+            this.total = total;
+        }
+        public int getSucceeded() {
+            return succeeded;
+        }
+        public void setSucceeded(int succeeded) {
+            this.succeeded = succeeded;
+        }
+        public int getFailed() {
+            return failed;
+        }
+        public void setFailed(int failed) {
+            this.failed = failed;
+        }
+        public BigDecimal getTotalAmount() {
+            return totalAmount;
+        }
+        public void setTotalAmount(BigDecimal totalAmount) {
+            this.totalAmount = totalAmount;
+        }
+        public List<BatchTransferResult> getResults() {
+            return results;
+        }
+        public void setResults(List<BatchTransferResult> results) {
+            this.results = results;
+        }
+    }
+
+    public static class BatchTransferResponse {
+        private int total;
+        private int succeeded;
+        private int failed;
+        private List<BatchTransferResult> results;
+
+        // Getters and Setters
+        public int getTotal() {
+            return total;
+        }
+        public void setTotal(int total) {
+            this.total = total;
+        }
+        public int getSucceeded() {
+            return succeeded;
+        }
+        public void setSucceeded(int succeeded) {
+            this.succeeded = succeeded;
+        }
+        public int getFailed() {
+            return failed;
+        }
+        public void setFailed(int failed) {
+            this.failed = failed;
+        }
+        public List<BatchTransferResult> getResults() {
+            return results;
+        }
+        public void setResults(List<BatchTransferResult> results) {
+            this.results = results;
+        }
+    }
+
+    // Accept or decline every pending transfer of the recipient, or only transactionIds when given
+    public static class BulkSettleRequest {
+        private String recipientAccountId;
+        private boolean accept;
+        private List<UUID> transactionIds;
+
+        // Getters and Setters
+        public String getRecipientAccountId() {
+            return recipientAccountId;
+        }
+        public void setRecipientAccountId(String recipientAccountId) {
+            this.recipientAccountId = recipientAccountId;
+        }
+        public boolean isAccept() {
+            return accept;
+        }
+        public void setAccept(boolean accept) {
+            this.accept = accept;
+        }
+        public List<UUID> getTransactionIds() {
+            return transactionIds;
+        }
+        public void setTransactionIds(List<UUID> transactionIds) {
+            this.transactionIds = transactionIds;
+        }
+    }
+
+    public static class BulkSettleResponse {
+        private String status; // COMPLETED or CANCELLED
+        private int requested;
+        private int settled;
+        private BigDecimal totalAmount;
+        private List<UUID> transactionIds; // the transfers this request settled
+
+        // Getters and Setters
+        public String getStatus() {
+            return status;
+        }
+        public void setStatus(String status) {
+            this.status = status;
+        }
+        public int getRequested() {
+            return requested;
+        }
+        public void setRequested(int requested) {
+            this.requested = requested;
+        }
+        public int getSettled() {
+            return settled;
+        }
+        public void setSettled(int settled) {
+            this.settled = settled;
+        }
+        public BigDecimal getTotalAmount() {
+            return totalAmount;
+        }
+        public void setTotalAmount(BigDecimal totalAmount) {
+            this.totalAmount = totalAmount;
+        }
+        public List<UUID> getTransactionIds() {
+            return transactionIds;
+        }
+        public void setTransactionIds(List<UUID> transactionIds) {
+            this.transactionIds = transactionIds;
+        }
+    }
+
     public static class TransferStatusResponse {
     private UUID transactionId;
+    private String interacReferenceId;
     private String status;
     private Double amount;
     private String currency;
@@ -158,6 +497,12 @@ public class TransferRequestDto {
     public void setTransactionId(UUID transactionId) {
         this.transactionId = transactionId;
     }
+    public String getInteracReferenceId() {
+        return interacReferenceId;
+    }
+    public void setInteracReferenceId(String interacReferenceId) {
+        this.interacReferenceId = interacReferenceId;
+    }
     public String getStatus() {
         return status;
     }
@@ -271,4 +616,125 @@ public class TransferRequestDto {
         }
     } 
 
+    // Standing order: the transfer is sent every interval DAILY, WEEKLY or MONTHLY periods from startAt
+    public static class StandingOrderRequest {
+        private TransferRequest transfer;
+        private String frequency;
+        private int interval = 1;
+        private OffsetDateTime startAt; // defaults to now
+        private OffsetDateTime endAt; // optional
+        private Integer maxRuns; // optional
+
+        public TransferRequest getTransfer() {
+            return transfer;
+        }
+        public void setTransfer(TransferRequest transfer) {
+            this.transfer = transfer;
+        }
+        public String getFrequency() {
+            return frequency;
+        }
+        public void setFrequency(String frequency) {
+            this.frequency = frequency;
+        }
+        public int getInterval() {
+            return interval;
+        }
+        public void setInterval(int interval) {
+            this.interval = interval;
+        }
+        public OffsetDateTime getStartAt() {
+            return startAt;
+        }
+        public void setStartAt(OffsetDateTime startAt) {
+            this.startAt = startAt;
+        }
+        public OffsetDateTime getEndAt() {
+            return endAt;
+        }
+        public void setEndAt(OffsetDateTime endAt) {
+            this.endAt = endAt;
+        }
+        public Integer getMaxRuns() {
+            return maxRuns;
+        }
+        public void setMaxRuns(Integer maxRuns) {
+            this.maxRuns = maxRuns;
+        }
+    }
+
+    public static class StandingOrderResponse {
+        private UUID standingOrderId;
+        private TransferRequest transfer;
+        private String frequency;
+        private int interval;
+        private String status; // ACTIVE, COMPLETED, CANCELLED
+        private int runsDone;
+        private OffsetDateTime nextRunAt;
+        private OffsetDateTime lastRunAt;
+        private String lastInteracReferenceId;
+        private String lastError;
+
+        public UUID getStandingOrderId() {
+            return standingOrderId;
+        }
+        public void setStandingOrderId(UUID standingOrderId) {
+            this.standingOrderId = standingOrderId;
+        }
+        public TransferRequest getTransfer() {
+            return transfer;
+        }
+        public void setTransfer(TransferRequest transfer) {
+            this.transfer = transfer;
+        }
+        public String getFrequency() {
+            return frequency;
+        }
+        public void setFrequency(String frequency) {
+            this.frequency = frequency;
+        }
+        public int getInterval() {
+            return interval;
+        }
+        public void setInterval(int interval) {
+            this.interval = interval;
+        }
+        public String getStatus() {
+            return status;
+        }
+        public void setStatus(String status) {
+            this.status = status;
+        }
+        public int getRunsDone() {
+            return runsDone;
+        }
+        public void setRunsDone(int runsDone) {
+            this.runsDone = runsDone;
+        }
+        public OffsetDateTime getNextRunAt() {
+            return nextRunAt;
+        }
+        public void setNextRunAt(OffsetDateTime nextRunAt) {
+            this.nextRunAt = nextRunAt;
+        }
+        public OffsetDateTime getLastRunAt() {
+            return lastRunAt;
+        }
+        public void setLastRunAt(OffsetDateTime lastRunAt) {
+            this.lastRunAt = lastRunAt;
+        }
+        public String getLastInteracReferenceId() {
+            return lastInteracReferenceId;
+        }
+        public void setLastInteracReferenceId(String lastInteracReferenceId) {
+            this.lastInteracReferenceId = lastInteracReferenceId;
+        }
+        public String getLastError() {
+            return lastError;
+        }
+        public void setLastError(String lastError) {
+            this.lastError = lastError;
+        }
+    }
+
 }
@@ -20,7 +20,10 @@ import com.bank.demo.dto.AccountDto;
 import com.bank.demo.mapper.AccountMapper;
 import com.bank.demo.model.Account;
 import com.bank.demo.model.User;
+import com.bank.demo.repository.LedgerRepository.LedgerBalance;
+import com.bank.demo.service.AccountHoldIndex;
 import com.bank.demo.service.AccountService;
+import com.bank.demo.service.LedgerService;
 import com.bank.demo.service.Userservice;
 
 @RestController
@@ -39,6 +42,12 @@ public class AccountController {
     @Autowired
     private AccountMapper accountMapper;
 
+    @Autowired
+    private AccountHoldIndex accountHoldIndex;
+
+    @Autowired
+    private LedgerService ledgerService;
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<AccountDto>> getUserAccounts(@PathVariable UUID userId, @RequestHeader("Authorization") String authHeader) {
         try {
@@ -127,7 +136,30 @@ public class AccountController {
                 return ResponseEntity.notFound().build();
             }
             
-            return ResponseEntity.ok(new BalanceResponse(account.getBalance(), account.getAvailableBalance()));
+            // Held amount comes from the in-memory hold index, not from the pending transactions
+            return ResponseEntity.ok(new BalanceResponse(account.getBalance(), account.getAvailableBalance(),
+                accountHoldIndex.heldAmount(accountId), accountHoldIndex.openHolds(accountId)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Reconciliation: the balance column against the ledger (latest snapshot plus the entries posted since)
+    @GetMapping("/{accountId}/ledger-balance")
+    public ResponseEntity<LedgerBalance> getLedgerBalance(@PathVariable UUID accountId, @RequestHeader("Authorization") String authHeader) {
+        try {
+            String token = authHeader.startsWith("Bearer ") ? authHeader.substring(7) : authHeader;
+            String emailFromToken = jwtUtils.getEmailFromToken(token);
+
+            String accountOwnerEmail = accountService.getEmailByAccountId(accountId);
+            if (!emailFromToken.equals(accountOwnerEmail)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+
+            // No snapshot yet: the account has not been through a snapshot run since it was opened
+            return ledgerService.ledgerBalance(accountId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -137,12 +169,21 @@ public class AccountController {
     public static class BalanceResponse {
         private java.math.BigDecimal balance;
         private java.math.BigDecimal availableBalance;
+        private java.math.BigDecimal heldAmount;
+        private int openHolds;
 
         public BalanceResponse(java.math.BigDecimal balance, java.math.BigDecimal availableBalance) {
             this.balance = balance;
             this.availableBalance = availableBalance;
         }
 
+        public BalanceResponse(java.math.BigDecimal balance, java.math.BigDecimal availableBalance,
+                               java.math.BigDecimal heldAmount, int openHolds) {
+            this(balance, availableBalance);
+            this.heldAmount = heldAmount;
+            this.openHolds = openHolds;
+        }
+
         public java.math.BigDecimal getBalance() {
             return balance;
         }
@@ -158,5 +199,21 @@ public class AccountController {
         public void setAvailableBalance(java.math.BigDecimal availableBalance) {
             this.availableBalance = availableBalance;
         }
+
+        public java.math.BigDecimal getHeldAmount() {
+            return heldAmount;
+        }
+
+        public void setHeldAmount(java.math.BigDecimal heldAmount) {
+            this.heldAmount = heldAmount;
+        }
+
+        public int getOpenHolds() {
+            return openHolds;
+        }
+
+        public void setOpenHolds(int openHolds) {
+            this.openHolds = openHolds;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.bank.demo.controller;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bank.demo.Dtos.TransferRequestDto.StandingOrderRequest;
+import com.bank.demo.Dtos.TransferRequestDto.StandingOrderResponse;
+import com.bank.demo.service.StandingOrderService;
+
+// Recurring transfers of the connected user (weekly rent, monthly bills...)
+@RestController
+@RequestMapping("/api/standing-orders")
+public class StandingOrderController {
+
+    @Autowired
+    private StandingOrderService standingOrderService;
+
+    @PostMapping
+    public ResponseEntity<StandingOrderResponse> createStandingOrder(@RequestBody StandingOrderRequest request , @RequestHeader ("Authorization") String authHeader) {
+        System.out.println("----> /api/standing-orders endpoint accessed.");
+        return ResponseEntity.status(HttpStatus.CREATED).body(standingOrderService.create(request));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<StandingOrderResponse>> listStandingOrders(@RequestHeader ("Authorization") String authHeader) {
+        return ResponseEntity.ok(standingOrderService.list());
+    }
+
+    @DeleteMapping("/{standingOrderId}")
+    public ResponseEntity<Void> cancelStandingOrder(@PathVariable UUID standingOrderId , @RequestHeader ("Authorization") String authHeader) {
+        return standingOrderService.cancel(standingOrderId)
+            ? ResponseEntity.noContent().build()
+            : ResponseEntity.notFound().build();
+    }
+}
@@ -1,10 +1,15 @@
 package com.bank.demo.controller;
 
+import java.io.IOException;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -15,13 +20,20 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import com.bank.demo.config.JwtUtils;
-import com.bank.demo.model.Transaction;
+import com.bank.demo.dto.TransactionDto;
+import com.bank.demo.exceptions.ExportBusyException;
 import com.bank.demo.model.User;
+import com.bank.demo.service.TransactionExportService;
+import com.bank.demo.service.TransactionExportService.ExportFormat;
 import com.bank.demo.service.TransactionService;
+import com.bank.demo.service.TransactionService.TransactionPage;
 import com.bank.demo.service.Userservice;
 
+import jakarta.servlet.http.HttpServletResponse;
+
 @RestController
 @RequestMapping("/api/transactions")
 public class TransactionController {
@@ -35,10 +47,21 @@ public class TransactionController {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private TransactionExportService transactionExportService;
+
+    // How long an export may take before the response is closed
+    @Value("${banking.export.timeout-ms:1800000}")
+    private long exportTimeoutMs;
+
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Transaction>> getUserTransactions(
+    public ResponseEntity<List<TransactionDto>> getUserTransactions(
             @PathVariable UUID userId,
             @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(defaultValue = "false") boolean details,
             @RequestHeader("Authorization") String authHeader) {
         try {
             // Extract email from JWT token
@@ -56,16 +79,22 @@ public class TransactionController {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
             
-            List<Transaction> transactions = transactionService.getTransactionsByUserId(userId, limit);
-            return ResponseEntity.ok(transactions);
+            TransactionPage page = transactionService.getTransactionsByUserId(userId, from, to, limit, cursor, details);
+            return pageResponse(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     @GetMapping("/current-user")
-    public ResponseEntity<List<Transaction>> getCurrentUserTransactions(
+    public ResponseEntity<List<TransactionDto>> getCurrentUserTransactions(
             @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(defaultValue = "false") boolean details,
             @RequestHeader("Authorization") String authHeader) {
         try {
             // Get current authenticated user
@@ -82,17 +111,20 @@ public class TransactionController {
             }
             User user = userOpt.get();
             
-            List<Transaction> transactions = transactionService.getTransactionsByUserId(user.getId(), limit);
+            TransactionPage page = transactionService.getTransactionsByUserId(user.getId(), from, to, limit, cursor, details);
+            List<TransactionDto> transactions = page.transactions();
             System.out.println("DEBUG: Found " + transactions.size() + " transactions for user " + user.getId());
             
             if (!transactions.isEmpty()) {
-                Transaction firstTransaction = transactions.get(0);
+                TransactionDto firstTransaction = transactions.get(0);
                 System.out.println("DEBUG: First transaction - ID: " + firstTransaction.getTransactionId() + 
                                  ", Amount: " + firstTransaction.getAmount() + 
                                  ", Type: " + firstTransaction.getTransactionType());
             }
             
-            return ResponseEntity.ok(transactions);
+            return pageResponse(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             System.err.println("ERROR in getCurrentUserTransactions: " + e.getMessage());
             e.printStackTrace();
@@ -101,9 +133,13 @@ public class TransactionController {
     }
 
     @GetMapping("/account/{accountId}")
-    public ResponseEntity<List<Transaction>> getAccountTransactions(
+    public ResponseEntity<List<TransactionDto>> getAccountTransactions(
             @PathVariable UUID accountId,
             @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(defaultValue = "false") boolean details,
             @RequestHeader("Authorization") String authHeader) {
         try {
             // Extract email from JWT token
@@ -114,10 +150,58 @@ public class TransactionController {
             // This would require updating AccountService.getEmailByAccountId
             // For now, we'll implement basic security
             
-            List<Transaction> transactions = transactionService.getTransactionsByAccountId(accountId, limit);
-            return ResponseEntity.ok(transactions);
+            TransactionPage page = transactionService.getTransactionsByAccountId(accountId, from, to, limit, cursor, details);
+            return pageResponse(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-}
\ No newline at end of file
+
+    // The current user's history as a CSV or NDJSON download, oldest first; without from/to it covers everything kept.
+    // The rows are written by the export pool while this request waits asynchronously, without a request thread and,
+    // with no lookup made here, without holding the DB connection open-in-view would keep for it
+    @GetMapping("/export")
+    public DeferredResult<ResponseEntity<Void>> exportTransactions(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(defaultValue = "false") boolean details,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) {
+        DeferredResult<ResponseEntity<Void>> result = new DeferredResult<>(exportTimeoutMs);
+        try {
+            String email = SecurityContextHolder.getContext().getAuthentication().getName();
+            ExportFormat exportFormat = ExportFormat.parse(format);
+
+            response.setContentType(exportFormat.getContentType() + ";charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions." + exportFormat.getExtension() + "\"");
+            if (gzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            // Once rows are written the status is sent: a failure past that point can only cut the download short
+            transactionExportService.export(email, from, to, exportFormat, details, gzip, response.getOutputStream())
+                .whenComplete((rows, error) -> result.setResult(error == null || response.isCommitted()
+                    ? null : ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()));
+        } catch (IllegalArgumentException e) {
+            response.reset();
+            result.setResult(ResponseEntity.badRequest().build());
+        } catch (ExportBusyException e) {
+            response.reset();
+            result.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        } catch (IOException e) {
+            result.setResult(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+        }
+        return result;
+    }
+
+    // The body stays a plain list; the next page is asked with the same from/to and ?cursor=<X-Next-Cursor>, absent on the last page
+    private static ResponseEntity<List<TransactionDto>> pageResponse(TransactionPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header("X-Next-Cursor", page.nextCursor());
+        }
+        return response.body(page.transactions());
+    }
+}
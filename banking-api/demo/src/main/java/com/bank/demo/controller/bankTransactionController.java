@@ -1,23 +1,49 @@
 package com.bank.demo.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.UUID;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.bank.demo.Dtos.TransferRequestDto;
+import com.bank.demo.Dtos.TransferRequestDto.BatchTransferResponse;
+import com.bank.demo.Dtos.TransferRequestDto.BatchTransferResult;
+import com.bank.demo.Dtos.TransferRequestDto.BulkSettleRequest;
+import com.bank.demo.Dtos.TransferRequestDto.BulkSettleResponse;
+import com.bank.demo.Dtos.TransferRequestDto.ClaimRequest;
+import com.bank.demo.Dtos.TransferRequestDto.ClaimableTransfer;
+import com.bank.demo.Dtos.TransferRequestDto.DisbursementRequest;
+import com.bank.demo.Dtos.TransferRequestDto.DisbursementResponse;
 import com.bank.demo.Dtos.TransferRequestDto.ReceiveMoneyResponse;
 import com.bank.demo.Dtos.TransferRequestDto.TransferRequest;
 import com.bank.demo.Dtos.TransferRequestDto.TransferResponse;
+import com.bank.demo.Dtos.TransferRequestDto.TransferStatusResponse;
 import com.bank.demo.exceptions.InsufficientFundsException;
+import com.bank.demo.service.ActorTransferService;
+import com.bank.demo.service.AsyncSettlementService;
+import com.bank.demo.service.BatchTransferService;
+import com.bank.demo.service.BulkSettlementService;
+import com.bank.demo.service.DisbursementService;
+import com.bank.demo.service.IdempotencyService;
+import com.bank.demo.service.InteracClaimService;
 import com.bank.demo.service.bankTransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 
 @RestController
@@ -28,18 +54,129 @@ public class bankTransactionController {
     @Autowired 
     private bankTransactionService transactionService;
 
+    @Autowired
+    private BatchTransferService batchTransferService;
+
+    @Autowired
+    private BulkSettlementService bulkSettlementService;
+
+    @Autowired
+    private AsyncSettlementService asyncSettlementService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private InteracClaimService interacClaimService;
+
+    @Autowired
+    private DisbursementService disbursementService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int NDJSON_FLUSH_EVERY = 500;
+
     @PostMapping("/send")
-    public ResponseEntity<TransferResponse> sendMoney(@RequestBody TransferRequest request , @RequestHeader ("Authorization") String authHeader) throws  InsufficientFundsException {
+    public ResponseEntity<TransferResponse> sendMoney(@RequestBody TransferRequest request , @RequestHeader ("Authorization") String authHeader,
+                                                      @RequestHeader (value = "Idempotency-Key", required = false) String idempotencyKey) throws  InsufficientFundsException {
         System.out.println("----> /api/bank-transactions/send endpoint accessed.");
-        TransferResponse response = transactionService.sendMoney(request);
-        return ResponseEntity.status(HttpStatus.OK).body(response); 
+        TransferResponse response = idempotencyKey == null
+            ? transactionService.sendMoney(request)
+            : idempotencyService.execute(idempotencyScope("send"), idempotencyKey, request, TransferResponse.class,
+                () -> transactionService.sendMoney(request));
+        // Actor mode answers 202 when the transfer is still queued after its timeout
+        HttpStatus status = ActorTransferService.PROCESSING.equals(response.getStatus()) ? HttpStatus.ACCEPTED : HttpStatus.OK;
+        return ResponseEntity.status(status).body(response); 
+    }
+
+    @PostMapping("/send-batch")
+    public ResponseEntity<BatchTransferResponse> sendMoneyBatch(@RequestBody List<TransferRequest> requests , @RequestHeader ("Authorization") String authHeader) {
+        System.out.println("----> /api/bank-transactions/send-batch endpoint accessed.");
+        BatchTransferResponse response = batchTransferService.sendMoneyBatch(requests);
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
+    // Payroll: one debit for the total, then one NDJSON line per payment in request order; counts are in the headers
+    @PostMapping("/disburse")
+    public ResponseEntity<StreamingResponseBody> disburse(@RequestBody DisbursementRequest request , @RequestHeader ("Authorization") String authHeader,
+                                                          @RequestHeader (value = "Idempotency-Key", required = false) String idempotencyKey) throws InsufficientFundsException {
+        System.out.println("----> /api/bank-transactions/disburse endpoint accessed.");
+        DisbursementResponse response = idempotencyKey == null
+            ? disbursementService.disburse(request)
+            : idempotencyService.execute(idempotencyScope("disburse"), idempotencyKey, request, DisbursementResponse.class,
+                () -> disbursementService.disburse(request));
+        ObjectWriter writer = objectMapper.writerFor(BatchTransferResult.class);
+        StreamingResponseBody body = out -> writeNdjson(out, writer, response.getResults());
+        return ResponseEntity.status(HttpStatus.OK)
+            .contentType(NDJSON)
+            .header("X-Disbursement-Total", String.valueOf(response.getTotal()))
+            .header("X-Disbursement-Succeeded", String.valueOf(response.getSucceeded()))
+            .header("X-Disbursement-Failed", String.valueOf(response.getFailed()))
+            .body(body);
     }
 
     @GetMapping("/receive")
-    public ResponseEntity<ReceiveMoneyResponse> receiveMoney(@RequestBody TransferRequestDto.receivePendingRequest request , @RequestHeader ("Authorization") String authHeader) {
+    public ResponseEntity<ReceiveMoneyResponse> receiveMoney(@RequestBody TransferRequestDto.receivePendingRequest request , @RequestHeader ("Authorization") String authHeader,
+                                                             @RequestHeader (value = "Idempotency-Key", required = false) String idempotencyKey) {
         // Extract the token from "Bearer <token>"
         System.out.println("----> /api/bank-transactions/receive endpoint accessed.");
-        ReceiveMoneyResponse response = transactionService.handlePendingTransfer(request.getRecipientAccountId(), request.isAccept() );
+        ReceiveMoneyResponse response = idempotencyKey == null
+            ? transactionService.handlePendingTransfer(request.getRecipientAccountId(), request.isAccept() )
+            : idempotencyService.execute(idempotencyScope("receive"), idempotencyKey, request, ReceiveMoneyResponse.class,
+                () -> transactionService.handlePendingTransfer(request.getRecipientAccountId(), request.isAccept()));
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
+    @PostMapping("/receive-bulk")
+    public ResponseEntity<BulkSettleResponse> receiveMoneyBulk(@RequestBody BulkSettleRequest request , @RequestHeader ("Authorization") String authHeader,
+                                                               @RequestHeader (value = "Idempotency-Key", required = false) String idempotencyKey) {
+        System.out.println("----> /api/bank-transactions/receive-bulk endpoint accessed.");
+        BulkSettleResponse response = idempotencyKey == null
+            ? bulkSettlementService.settleAll(request.getRecipientAccountId(), request.isAccept(), request.getTransactionIds())
+            : idempotencyService.execute(idempotencyScope("receive-bulk"), idempotencyKey, request, BulkSettleResponse.class,
+                () -> bulkSettlementService.settleAll(request.getRecipientAccountId(), request.isAccept(), request.getTransactionIds()));
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
+    // Queues the decision and answers 202 right away; poll /status/{transactionId} for the outcome
+    @PostMapping("/receive-async")
+    public ResponseEntity<List<TransferStatusResponse>> receiveMoneyAsync(@RequestBody BulkSettleRequest request , @RequestHeader ("Authorization") String authHeader) {
+        System.out.println("----> /api/bank-transactions/receive-async endpoint accessed.");
+        List<TransferStatusResponse> response = asyncSettlementService.enqueue(request.getRecipientAccountId(), request.isAccept(), request.getTransactionIds());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @GetMapping("/status/{transactionId}")
+    public ResponseEntity<TransferStatusResponse> transferStatus(@PathVariable UUID transactionId , @RequestHeader ("Authorization") String authHeader) {
+        return asyncSettlementService.status(transactionId)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/reference/{interacReferenceId}")
+    public ResponseEntity<TransferStatusResponse> transferByReference(@PathVariable String interacReferenceId , @RequestHeader ("Authorization") String authHeader) {
+        return transactionService.findByReference(interacReferenceId)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Interac transfers sent to the connected user's email or phone number and not claimed yet
+    @GetMapping("/claims")
+    public ResponseEntity<List<ClaimableTransfer>> claimableTransfers(@RequestHeader ("Authorization") String authHeader) {
+        System.out.println("----> /api/bank-transactions/claims endpoint accessed.");
+        return ResponseEntity.ok(interacClaimService.claimable());
+    }
+
+    @PostMapping("/claim")
+    public ResponseEntity<ReceiveMoneyResponse> claimTransfer(@RequestBody ClaimRequest request , @RequestHeader ("Authorization") String authHeader,
+                                                              @RequestHeader (value = "Idempotency-Key", required = false) String idempotencyKey) {
+        System.out.println("----> /api/bank-transactions/claim endpoint accessed.");
+        ReceiveMoneyResponse response = idempotencyKey == null
+            ? interacClaimService.claim(request)
+            : idempotencyService.execute(idempotencyScope("claim"), idempotencyKey, request, ReceiveMoneyResponse.class,
+                () -> interacClaimService.claim(request));
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
@@ -51,4 +188,22 @@ public class bankTransactionController {
         System.out.println("Connected user email from SecurityContext: " + email);
         return ResponseEntity.status(HttpStatus.OK).body("Connected user endpoint is working!");
     }
+
+    private static void writeNdjson(OutputStream out, ObjectWriter writer, List<BatchTransferResult> results) throws IOException {
+        int written = 0;
+        for (BatchTransferResult result : results) {
+            out.write(writer.writeValueAsBytes(result));
+            out.write('\n');
+            if (++written % NDJSON_FLUSH_EVERY == 0) {
+                out.flush();
+            }
+        }
+        out.flush();
+    }
+
+    // Idempotency keys are only unique per endpoint and per authenticated user
+    private String idempotencyScope(String endpoint) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return endpoint + ":" + (authentication != null ? authentication.getName() : "anonymous");
+    }
 }
@@ -0,0 +1,44 @@
+package com.bank.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import com.bank.demo.model.enums.TransactionStatus;
+import com.bank.demo.model.enums.TransactionType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// One line of a transaction history, as seen from the account (or user) it was asked for: built straight from the
+// history query, without loading the transaction entity and its accounts. direction is DEBIT when the money left
+// that account, CREDIT when it came in; the counterparty is the account on the other side, when there is one
+@Getter
+@AllArgsConstructor
+public class TransactionDto {
+    private UUID transactionId;
+    private OffsetDateTime createdAt;
+    private TransactionType transactionType;
+    private TransactionStatus transactionStatus;
+    private String direction;
+    private BigDecimal amount;
+    private String currency;
+    private BigDecimal feeAmount;
+    private BigDecimal exchangeRate;
+    private String description;
+    private String referenceNumber;
+    private OffsetDateTime processedAt;
+    private OffsetDateTime scheduledAt;
+    private String accountNumber;
+    private String counterpartyAccountNumber;
+    private String counterpartyName;
+    // JSON as stored, only read when the details are asked for
+    @JsonRawValue
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String merchantInfo;
+    @JsonRawValue
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String locationInfo;
+}
@@ -0,0 +1,12 @@
+package com.bank.demo.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Every security answer verifier is busy and their queue is full: the client should retry later
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ClaimVerificationBusyException extends RuntimeException {
+    public ClaimVerificationBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.bank.demo.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// The asynchronous settlement queue is at capacity: the client should retry later
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SettlementQueueFullException extends RuntimeException {
+    public SettlementQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.bank.demo.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// The transfer would take the sender over its daily or monthly spending limit
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class SpendLimitExceededException extends RuntimeException {
+    public SpendLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.bank.demo.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Transfer currency the bank cannot price or move. Still an IllegalArgumentException, so batch and disbursement
+// items in that currency fail on their own like any other invalid item
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnsupportedCurrencyException extends IllegalArgumentException {
+    public UnsupportedCurrencyException(String message) {
+        super(message);
+    }
+}
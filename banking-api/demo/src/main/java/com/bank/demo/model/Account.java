@@ -6,6 +6,7 @@ import java.time.OffsetDateTime;
 import java.util.Map;
 import java.util.UUID;
 
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
@@ -18,23 +19,26 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
 
 
 @Entity
 @Table(name = "accounts" , schema = "public")
+// Balance updates must only write the columns that changed: rewriting account_number, even with the same value,
+// makes PostgreSQL take a key-update lock that blocks the foreign key checks of concurrent transfer inserts
+@DynamicUpdate
 @Getter @Setter
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Account {
 
     @Id
-    @GeneratedValue(generator = "uuid2")
+    @TimeOrderedId
     @Column(name = "account_id", columnDefinition = "uuid")
     private UUID id;
 
@@ -93,4 +97,10 @@ public class Account {
 
     @Column(name = "updated_at")
     private OffsetDateTime updatedAt = OffsetDateTime.now();
+
+    // Optimistic lock: every balance update checks and bumps it (JDBC writers must do the same)
+    @JsonIgnore
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version = 0L;
 }
@@ -8,7 +8,6 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -21,7 +20,7 @@ import lombok.Setter;
 @Getter @Setter
 public class Cards {
     @Id
-    @GeneratedValue(generator = "uuid2")
+    @TimeOrderedId
     @Column(name = "card_id", columnDefinition = "uuid2")
     private UUID id;
 
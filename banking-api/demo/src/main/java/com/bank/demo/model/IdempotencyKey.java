@@ -0,0 +1,39 @@
+package com.bank.demo.model;
+
+import java.time.OffsetDateTime;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+// Response stored for a client supplied Idempotency-Key, replayed when the same request is retried
+@Entity
+@Table(name = "idempotency_keys")
+@Getter @Setter
+public class IdempotencyKey {
+
+    // "<endpoint>:<user>:<client key>"
+    @Id
+    @Column(name = "idempotency_key")
+    private String id;
+
+    @Column(name = "request_hash", nullable = false)
+    private String requestHash;
+
+    // Null while the request is in progress, or when its node died before storing the outcome
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "response_body")
+    private String responseBody;
+
+    @Column(name = "created_at")
+    private OffsetDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+}
@@ -14,7 +14,6 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id ;
 import jakarta.persistence.IdClass ;
 import jakarta.persistence.JoinColumn ;
@@ -30,7 +29,7 @@ import lombok.Setter;
 public class Transaction {
 
     @Id
-    @GeneratedValue(generator = "uuid2")
+    @TimeOrderedId
     @Column(name = "transaction_id", columnDefinition = "uuid")
     private UUID transactionId;
 
@@ -0,0 +1,18 @@
+package com.bank.demo.model.enums;
+
+import java.time.OffsetDateTime;
+
+public enum RecurrenceFrequency {
+    DAILY, WEEKLY, MONTHLY;
+
+    // The n-th occurrence (0 = start) of a schedule repeating every interval periods. Always computed from the start,
+    // so a monthly schedule started on the 31st is clamped to shorter months without drifting to the 28th
+    public OffsetDateTime occurrence(OffsetDateTime start, int interval, long n) {
+        long periods = n * interval;
+        return switch (this) {
+            case DAILY -> start.plusDays(periods);
+            case WEEKLY -> start.plusWeeks(periods);
+            case MONTHLY -> start.plusMonths(periods);
+        };
+    }
+}
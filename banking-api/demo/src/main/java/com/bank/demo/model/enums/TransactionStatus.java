@@ -1,5 +1,5 @@
 package com.bank.demo.model.enums;
 public enum TransactionStatus {
-    PENDING, COMPLETED, FAILED, CANCELLED
+    PENDING, COMPLETED, FAILED, CANCELLED, SCHEDULED
     
 }
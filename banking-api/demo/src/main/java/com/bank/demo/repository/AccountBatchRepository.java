@@ -0,0 +1,46 @@
+package com.bank.demo.repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.SortedMap;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// Plain JDBC balance updates for the bulk paths: one relative update per account, executed as a JDBC batch
+@Repository
+public class AccountBatchRepository {
+
+    // Relative update, and a version bump so JPA writers holding a stale copy of the account retry
+    private static final String APPLY_DELTA_SQL =
+        "UPDATE accounts SET balance = balance + ?, available_balance = available_balance + ?, " +
+        "version = version + 1, updated_at = now() WHERE account_id = ?";
+
+    private static final int BATCH_SIZE = 500;
+
+    public record BalanceDelta(BigDecimal balance, BigDecimal availableBalance) {
+        public BalanceDelta plus(BalanceDelta other) {
+            return new BalanceDelta(balance.add(other.balance), availableBalance.add(other.availableBalance));
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AccountBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Sorted by account id so concurrent bulk updates always take the row locks in the same order
+    public void applyDeltas(SortedMap<UUID, BalanceDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, new ArrayList<>(deltas.entrySet()), BATCH_SIZE,
+            (ps, delta) -> {
+                ps.setBigDecimal(1, delta.getValue().balance());
+                ps.setBigDecimal(2, delta.getValue().availableBalance());
+                ps.setObject(3, delta.getKey());
+            });
+    }
+}
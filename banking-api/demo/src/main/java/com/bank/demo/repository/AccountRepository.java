@@ -1,5 +1,7 @@
 package com.bank.demo.repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,10 +17,23 @@ import com.bank.demo.model.Account;
 public interface AccountRepository extends JpaRepository<Account, java.util.UUID> {
     // Custom query to find accounts by their account number
     Optional<Account> findByAccountNumber(@Param("account_number") String accountNumber);
+    // Resolve only the id, so the account entity is not loaded before the transfer locks are taken
+    @Query("SELECT a.id FROM Account a WHERE a.accountNumber = :account_number")
+    Optional<UUID> findIdByAccountNumber(@Param("account_number") String accountNumber);
+    // Same, but only when the account belongs to that user
+    @Query("SELECT a.id FROM Account a WHERE a.accountNumber = :account_number AND a.user.id = :user_id")
+    Optional<UUID> findIdByAccountNumberAndUserId(@Param("account_number") String accountNumber, @Param("user_id") UUID userId);
+    // Resolve many account numbers to ids in a single query (batch transfers)
+    @Query("SELECT a.id AS id, a.accountNumber AS accountNumber FROM Account a WHERE a.accountNumber IN :account_numbers")
+    List<AccountNumberId> findIdsByAccountNumberIn(@Param("account_numbers") Collection<String> accountNumbers);
     //find userId with accountId
     @Query("SELECT a.user.id FROM Account a WHERE a.id = :account_id")
     Optional<UUID> findUserIdById(@Param("account_id") UUID id);
 
+    // Whether the user with that email owns any of the accounts
+    @Query("SELECT COUNT(a) > 0 FROM Account a WHERE a.id IN :account_ids AND a.user.email = :email")
+    boolean isAnyOwnedBy(@Param("account_ids") Collection<UUID> accountIds, @Param("email") String email);
+
     //find first accountId with userId 
     @Query("SELECT a.id FROM Account a WHERE a.user.id = :user_id")
     Optional<UUID> findFirstAccountIdByUserId(@Param("user_id") UUID userId);
@@ -30,4 +45,28 @@ public interface AccountRepository extends JpaRepository<Account, java.util.UUID
     // Native query as backup to test if JPA mapping is the issue
     @Query(value = "SELECT account_id, account_number, balance, available_balance, account_type, account_status FROM accounts WHERE user_id = :user_id", nativeQuery = true)
     List<Object[]> findAccountDataByUserIdNative(@Param("user_id") UUID userId);
+
+    // Conditional hold in one statement: no row comes back when the account is unknown or the available balance is too low.
+    // Bumps the version so JPA writers holding a stale copy of the account fail their optimistic check
+    @Query(value = "UPDATE accounts SET available_balance = available_balance - :amount, version = version + 1, updated_at = now() " +
+                   "WHERE account_number = :account_number AND available_balance >= :amount " +
+                   "RETURNING account_id AS \"accountId\", available_balance AS \"availableBalance\", account_type::text AS \"accountType\"", nativeQuery = true)
+    Optional<ReservedAccount> reserveIfAvailable(@Param("account_number") String accountNumber, @Param("amount") BigDecimal amount);
+
+    // Same for a debit that leaves the account right away (disbursements): balance and available balance move together
+    @Query(value = "UPDATE accounts SET balance = balance - :amount, available_balance = available_balance - :amount, " +
+                   "version = version + 1, updated_at = now() WHERE account_id = :account_id AND available_balance >= :amount " +
+                   "RETURNING account_id AS \"accountId\", available_balance AS \"availableBalance\", account_type::text AS \"accountType\"", nativeQuery = true)
+    Optional<ReservedAccount> debitIfAvailable(@Param("account_id") UUID accountId, @Param("amount") BigDecimal amount);
+
+    interface ReservedAccount {
+        UUID getAccountId();
+        BigDecimal getAvailableBalance();
+        String getAccountType();
+    }
+
+    interface AccountNumberId {
+        UUID getId();
+        String getAccountNumber();
+    }
 }
@@ -4,11 +4,14 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.bank.demo.model.BlacklistedToken;
 
 public interface BlacklistedTokenRepository extends JpaRepository<BlacklistedToken, UUID> {
     Optional<BlacklistedToken> findByToken(String token);
     boolean existsByToken(String token);
+    // Derived deletes need a transaction of their own when called from the scheduler
+    @Transactional
     void deleteByExpiryBefore(java.time.Instant now);
 }
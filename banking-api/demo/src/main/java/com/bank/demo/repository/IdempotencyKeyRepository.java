@@ -0,0 +1,48 @@
+package com.bank.demo.repository;
+
+import java.time.OffsetDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bank.demo.model.IdempotencyKey;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    // Claims the key before the request runs: a row without a response means in progress. Returns 0 when the key is
+    // already claimed or answered (by this or another node); an expired row is taken over
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, request_hash, response_body, created_at, expires_at) " +
+                   "VALUES (:id, :requestHash, NULL, :createdAt, :expiresAt) " +
+                   "ON CONFLICT (idempotency_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, response_body = NULL, " +
+                   "created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at " +
+                   "WHERE idempotency_keys.expires_at < EXCLUDED.created_at", nativeQuery = true)
+    int claim(@Param("id") String id,
+              @Param("requestHash") String requestHash,
+              @Param("createdAt") OffsetDateTime createdAt,
+              @Param("expiresAt") OffsetDateTime expiresAt);
+
+    // Stores the response of a claimed key
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE idempotency_keys SET response_body = CAST(:responseBody AS jsonb) " +
+                   "WHERE idempotency_key = :id AND response_body IS NULL", nativeQuery = true)
+    int complete(@Param("id") String id, @Param("responseBody") String responseBody);
+
+    // Gives up a claim whose request failed, so that it can be retried
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE idempotency_key = :id AND response_body IS NULL", nativeQuery = true)
+    int release(@Param("id") String id);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt < :now")
+    int deleteExpired(@Param("now") OffsetDateTime now);
+}
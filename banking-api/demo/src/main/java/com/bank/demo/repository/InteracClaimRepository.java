@@ -0,0 +1,69 @@
+package com.bank.demo.repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// interac_claims: the recipient contacts and the hashed security answer of transfers sent to an email or phone
+@Repository
+public class InteracClaimRepository {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO interac_claims (transaction_id, created_at, recipient_email, recipient_phone, security_question, " +
+        "security_answer_hash) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Unclaimed and still PENDING: expired or cancelled transfers keep their claim row but are no longer claimable
+    private static final String OPEN_CLAIMS_SQL =
+        "SELECT c.transaction_id, c.created_at, t.reference_number, t.from_account_id, t.amount, t.currency, " +
+        "c.recipient_email, c.recipient_phone, c.security_question, c.security_answer_hash, c.failed_attempts " +
+        "FROM interac_claims c JOIN transactions t ON t.transaction_id = c.transaction_id AND t.created_at = c.created_at " +
+        "WHERE c.claimed_at IS NULL AND t.transaction_status = 'PENDING'";
+
+    private static final String FAILED_ATTEMPTS_SQL =
+        "UPDATE interac_claims SET failed_attempts = GREATEST(failed_attempts, ?) WHERE transaction_id = ?";
+
+    // Only one claim can ever win, whatever the number of instances racing for it
+    private static final String MARK_CLAIMED_SQL =
+        "UPDATE interac_claims SET claimed_at = ? WHERE transaction_id = ? AND claimed_at IS NULL";
+
+    public record OpenClaimRow(UUID transactionId, OffsetDateTime createdAt, String referenceNumber, UUID fromAccountId,
+                               BigDecimal amount, String currency, String recipientEmail, String recipientPhone,
+                               String securityQuestion, String securityAnswerHash, int failedAttempts) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InteracClaimRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insert(UUID transactionId, OffsetDateTime createdAt, String recipientEmail, String recipientPhone,
+                       String securityQuestion, String securityAnswerHash) {
+        jdbcTemplate.update(INSERT_SQL, transactionId, Timestamp.from(createdAt.toInstant()), recipientEmail,
+            recipientPhone, securityQuestion, securityAnswerHash);
+    }
+
+    // Streamed: the caller folds the rows into its index as they come
+    public void forEachOpenClaim(Consumer<OpenClaimRow> consumer) {
+        jdbcTemplate.query(OPEN_CLAIMS_SQL, rs -> {
+            consumer.accept(new OpenClaimRow(rs.getObject(1, UUID.class),
+                rs.getTimestamp(2).toInstant().atOffset(ZoneOffset.UTC), rs.getString(3), rs.getObject(4, UUID.class),
+                rs.getBigDecimal(5), rs.getString(6), rs.getString(7), rs.getString(8), rs.getString(9),
+                rs.getString(10), rs.getInt(11)));
+        });
+    }
+
+    public void recordFailedAttempts(UUID transactionId, int failedAttempts) {
+        jdbcTemplate.update(FAILED_ATTEMPTS_SQL, failedAttempts, transactionId);
+    }
+
+    // false when the transfer was already claimed
+    public boolean markClaimed(UUID transactionId, OffsetDateTime claimedAt) {
+        return jdbcTemplate.update(MARK_CLAIMED_SQL, Timestamp.from(claimedAt.toInstant()), transactionId) == 1;
+    }
+}
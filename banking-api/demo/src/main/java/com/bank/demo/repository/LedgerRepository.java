@@ -0,0 +1,104 @@
+package com.bank.demo.repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// Plain JDBC access to the append-only ledger: postings go out as one JDBC batch, balances are rebuilt in SQL
+@Repository
+public class LedgerRepository {
+
+    private static final String INSERT_ENTRY_SQL =
+        "INSERT INTO ledger_entries (transaction_id, account_id, direction, amount, created_at) " +
+        "VALUES (?, ?, ?::ledger_direction, ?, ?)";
+
+    private static final String SIGNED_AMOUNT = "CASE WHEN e.direction = 'CREDIT' THEN e.amount ELSE -e.amount END";
+
+    // Accounts without a snapshot yet (existing balances, new accounts) open with their current balance,
+    // minus whatever was already posted at or after the cutoff. One statement, so both are read from the same snapshot
+    private static final String OPENING_SNAPSHOTS_SQL =
+        "INSERT INTO ledger_snapshots (account_id, as_of, balance) " +
+        "SELECT a.account_id, ?, a.balance - COALESCE((SELECT SUM(" + SIGNED_AMOUNT + ") FROM ledger_entries e " +
+        "WHERE e.account_id = a.account_id AND e.created_at >= ?), 0) " +
+        "FROM accounts a WHERE NOT EXISTS (SELECT 1 FROM ledger_snapshots s WHERE s.account_id = a.account_id) " +
+        "ON CONFLICT DO NOTHING";
+
+    // Rolls the latest snapshot of every account with entries since then forward to the cutoff
+    private static final String ROLL_SNAPSHOTS_SQL =
+        "INSERT INTO ledger_snapshots (account_id, as_of, balance) " +
+        "SELECT s.account_id, ?, s.balance + SUM(" + SIGNED_AMOUNT + ") " +
+        "FROM (SELECT DISTINCT ON (account_id) account_id, as_of, balance FROM ledger_snapshots " +
+        "      ORDER BY account_id, as_of DESC) s " +
+        "JOIN ledger_entries e ON e.account_id = s.account_id AND e.created_at >= s.as_of AND e.created_at < ? " +
+        "WHERE s.as_of < ? GROUP BY s.account_id, s.balance ON CONFLICT DO NOTHING";
+
+    // Latest snapshot plus the entries posted since: only the newest partitions are read, never the whole history
+    private static final String LEDGER_BALANCE_SQL =
+        "SELECT a.balance AS account_balance, s.as_of, s.balance + COALESCE((SELECT SUM(" + SIGNED_AMOUNT + ") " +
+        "FROM ledger_entries e WHERE e.account_id = a.account_id AND e.created_at >= s.as_of), 0) AS ledger_balance " +
+        "FROM accounts a JOIN LATERAL (SELECT as_of, balance FROM ledger_snapshots " +
+        "WHERE account_id = a.account_id ORDER BY as_of DESC LIMIT 1) s ON true WHERE a.account_id = ?";
+
+    private static final int BATCH_SIZE = 500;
+
+    // One money movement: amount leaves the debited account and reaches the credited one
+    public record Posting(UUID transactionId, UUID debitAccountId, UUID creditAccountId, BigDecimal amount) {}
+
+    public record LedgerBalance(UUID accountId, BigDecimal accountBalance, BigDecimal ledgerBalance, OffsetDateTime snapshotAsOf) {
+        public boolean isBalanced() {
+            return accountBalance.compareTo(ledgerBalance) == 0;
+        }
+    }
+
+    private record Entry(Posting posting, UUID accountId, String direction) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LedgerRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Writes the DEBIT and the CREDIT of every posting; must run in the transaction that moves the balances
+    public void insertPostings(List<Posting> postings, OffsetDateTime createdAt) {
+        if (postings.isEmpty()) {
+            return;
+        }
+        List<Entry> entries = new ArrayList<>(postings.size() * 2);
+        for (Posting posting : postings) {
+            entries.add(new Entry(posting, posting.debitAccountId(), "DEBIT"));
+            entries.add(new Entry(posting, posting.creditAccountId(), "CREDIT"));
+        }
+        Timestamp timestamp = Timestamp.from(createdAt.toInstant());
+        jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, entries, BATCH_SIZE, (ps, e) -> {
+            ps.setObject(1, e.posting().transactionId());
+            ps.setObject(2, e.accountId());
+            ps.setString(3, e.direction());
+            ps.setBigDecimal(4, e.posting().amount());
+            ps.setTimestamp(5, timestamp);
+        });
+    }
+
+    // Returns the number of snapshots written as of the cutoff
+    public int takeSnapshots(OffsetDateTime cutoff) {
+        Timestamp asOf = Timestamp.from(cutoff.toInstant());
+        int opened = jdbcTemplate.update(OPENING_SNAPSHOTS_SQL, asOf, asOf);
+        int rolled = jdbcTemplate.update(ROLL_SNAPSHOTS_SQL, asOf, asOf, asOf);
+        return opened + rolled;
+    }
+
+    // Empty when the account does not exist or has no snapshot yet
+    public Optional<LedgerBalance> ledgerBalance(UUID accountId) {
+        return jdbcTemplate.query(LEDGER_BALANCE_SQL, (rs, rowNum) -> new LedgerBalance(accountId,
+                rs.getBigDecimal("account_balance"), rs.getBigDecimal("ledger_balance"),
+                rs.getTimestamp("as_of").toInstant().atOffset(ZoneOffset.UTC)), accountId)
+            .stream().findFirst();
+    }
+}
@@ -0,0 +1,95 @@
+package com.bank.demo.repository;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// Range partitions of the time partitioned tables (transactions, ledger_entries): read from the catalog, created and detached.
+// Table and partition names are never user input: they come from the code and are built from dates
+@Repository
+public class PartitionRepository {
+
+    private static final String PARTITIONS_SQL =
+        "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i " +
+        "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = ?::regclass";
+
+    // FOR VALUES FROM ('2025-07-01 00:00:00+00') TO ('2025-08-01 00:00:00+00'); DEFAULT partitions do not match
+    private static final Pattern RANGE_BOUND = Pattern.compile("FROM \\('([^']+)'\\) TO \\('([^']+)'\\)");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss[.SSSSSS][xxx][x]");
+
+    // reltuples is the planner's estimate kept by VACUUM/ANALYZE (-1 before the first one): no count(*) over the partition
+    private static final String PARTITION_STATS_SQL =
+        "SELECT c.relname, GREATEST(c.reltuples, 0)::bigint, pg_total_relation_size(c.oid) FROM pg_inherits i " +
+        "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = ?::regclass";
+
+    // Partitions whose DETACH CONCURRENTLY was interrupted: they must be finalized before anything else is detached
+    private static final String DETACH_PENDING_SQL =
+        "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+        "WHERE i.inhparent = ?::regclass AND i.inhdetachpending";
+
+    // Held until the end of the DB transaction, so two instances never build the same partition at once
+    private static final String MAINTENANCE_LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext(?))";
+
+    private static final DateTimeFormatter LITERAL_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssxxx");
+
+    // Rows with from <= created_at < to live in this partition
+    public record Partition(String name, OffsetDateTime from, OffsetDateTime to) {}
+
+    public record PartitionStats(String name, long estimatedRows, long totalBytes) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Range partitions of the table, oldest first
+    public List<Partition> rangePartitions(String table) {
+        List<Partition> partitions = new ArrayList<>();
+        jdbcTemplate.query(PARTITIONS_SQL, rs -> {
+            Matcher bound = RANGE_BOUND.matcher(rs.getString(2));
+            if (bound.find()) {
+                partitions.add(new Partition(rs.getString(1),
+                    OffsetDateTime.parse(bound.group(1), BOUND_FORMAT), OffsetDateTime.parse(bound.group(2), BOUND_FORMAT)));
+            }
+        }, table);
+        partitions.sort(Comparator.comparing(Partition::from));
+        return partitions;
+    }
+
+    public List<PartitionStats> partitionStats(String table) {
+        return jdbcTemplate.query(PARTITION_STATS_SQL,
+            (rs, rowNum) -> new PartitionStats(rs.getString(1), rs.getLong(2), rs.getLong(3)), table);
+    }
+
+    public void lockForMaintenance(String table) {
+        jdbcTemplate.query(MAINTENANCE_LOCK_SQL, rs -> {}, "partitions:" + table);
+    }
+
+    // Built detached first, with every index, default and check of the parent, then attached: the partition is empty,
+    // so the attach has nothing to validate and the parent's indexes adopt the ones already there
+    public void createPartition(String table, String name, OffsetDateTime from, OffsetDateTime to) {
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + table + " INCLUDING ALL)");
+        jdbcTemplate.execute("ALTER TABLE " + table + " ATTACH PARTITION " + name +
+            " FOR VALUES FROM ('" + LITERAL_FORMAT.format(from) + "') TO ('" + LITERAL_FORMAT.format(to) + "')");
+    }
+
+    // The data stays in a plain table named like the partition, for archiving; queries on the parent no longer see it.
+    // CONCURRENTLY only takes a SHARE UPDATE EXCLUSIVE lock on the parent, and cannot run inside a DB transaction
+    public void detachPartition(String table, String name) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + name + " CONCURRENTLY");
+    }
+
+    public void finalizePendingDetaches(String table) {
+        for (String name : jdbcTemplate.queryForList(DETACH_PENDING_SQL, String.class, table)) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + name + " FINALIZE");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.bank.demo.repository;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.bank.demo.model.enums.AccountType;
+import com.bank.demo.model.enums.TransactionType;
+
+// Reference data behind transfer pricing; only read when the in-memory pricing tables are refreshed
+@Repository
+public class PricingRepository {
+
+    private static final String RATES_SQL = "SELECT currency, rate_to_book FROM fx_rates";
+
+    private static final String FEE_RULES_SQL =
+        "SELECT transaction_type::text, account_type::text, flat_fee, percent_bps, min_fee, max_fee FROM fee_rules";
+
+    public record FeeRuleRow(TransactionType transactionType, AccountType accountType, BigDecimal flatFee,
+                             int percentBps, BigDecimal minFee, BigDecimal maxFee) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PricingRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // currency code -> units of the book currency per unit
+    public Map<String, BigDecimal> loadRates() {
+        Map<String, BigDecimal> rates = new HashMap<>();
+        jdbcTemplate.query(RATES_SQL, rs -> {
+            rates.put(rs.getString(1).trim().toUpperCase(), rs.getBigDecimal(2));
+        });
+        return rates;
+    }
+
+    public List<FeeRuleRow> loadFeeRules() {
+        return jdbcTemplate.query(FEE_RULES_SQL, (rs, rowNum) -> new FeeRuleRow(
+            TransactionType.valueOf(rs.getString(1)), AccountType.valueOf(rs.getString(2)),
+            rs.getBigDecimal(3), rs.getInt(4), rs.getBigDecimal(5), rs.getBigDecimal(6)));
+    }
+}
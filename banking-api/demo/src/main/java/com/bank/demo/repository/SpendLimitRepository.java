@@ -0,0 +1,55 @@
+package com.bank.demo.repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// Reads behind the in-memory spending limits: only used at startup and on refresh, never per transfer
+@Repository
+public class SpendLimitRepository {
+
+    // An account with several active cards is held to the strictest of them
+    private static final String ACCOUNT_LIMITS_SQL =
+        "SELECT account_id, MIN(daily_limit), MIN(monthly_limit) FROM cards " +
+        "WHERE card_status = 'ACTIVE' AND expiry_date >= CURRENT_DATE GROUP BY account_id";
+
+    // Money sent since the given instant, per sender and hour; declined and expired transfers gave their amount back
+    private static final String HOURLY_SPEND_SQL =
+        "SELECT from_account_id, date_trunc('hour', created_at), SUM(amount) FROM transactions " +
+        "WHERE created_at >= ? AND from_account_id IS NOT NULL AND transaction_status IN ('PENDING', 'COMPLETED') " +
+        "GROUP BY 1, 2";
+
+    // null: no limit of that kind
+    public record AccountLimits(BigDecimal dailyLimit, BigDecimal monthlyLimit) {}
+
+    public record HourlySpend(UUID accountId, OffsetDateTime hour, BigDecimal amount) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SpendLimitRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Map<UUID, AccountLimits> loadAccountLimits() {
+        Map<UUID, AccountLimits> limits = new HashMap<>();
+        jdbcTemplate.query(ACCOUNT_LIMITS_SQL, rs -> {
+            limits.put(rs.getObject(1, UUID.class), new AccountLimits(rs.getBigDecimal(2), rs.getBigDecimal(3)));
+        });
+        return limits;
+    }
+
+    // Streamed: the caller folds the rows into its counters as they come
+    public void forEachHourlySpend(OffsetDateTime since, Consumer<HourlySpend> consumer) {
+        jdbcTemplate.query(HOURLY_SPEND_SQL, rs -> {
+            consumer.accept(new HourlySpend(rs.getObject(1, UUID.class),
+                rs.getTimestamp(2).toInstant().atOffset(since.getOffset()), rs.getBigDecimal(3)));
+        }, Timestamp.from(since.toInstant()));
+    }
+}
@@ -0,0 +1,97 @@
+package com.bank.demo.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// standing_orders; the engine pages through the due ones on (next_run_at, standing_order_id) and moves the cursor itself
+@Repository
+public class StandingOrderRepository {
+
+    private static final String COLUMNS =
+        "o.standing_order_id, o.user_id, u.email, o.from_account_id, o.template::text, o.frequency, o.interval_count, " +
+        "o.starts_at, o.ends_at, o.max_runs, o.runs_done, o.next_run_at, o.status, o.last_run_at, o.last_reference, o.last_error " +
+        "FROM standing_orders o JOIN users u ON u.user_id = o.user_id ";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO standing_orders (user_id, from_account_id, template, frequency, interval_count, starts_at, ends_at, " +
+        "max_runs, next_run_at) VALUES (?, ?, ?::jsonb, ?, ?, ?, ?, ?, ?) RETURNING standing_order_id";
+
+    // Keyset page of the due orders, oldest occurrence first: served by the partial next_run index
+    private static final String DUE_SQL =
+        "SELECT " + COLUMNS + "WHERE o.status = 'ACTIVE' AND o.next_run_at <= ? " +
+        "AND (o.next_run_at, o.standing_order_id) > (?, ?) ORDER BY o.next_run_at, o.standing_order_id LIMIT ?";
+
+    private static final String BY_USER_SQL =
+        "SELECT " + COLUMNS + "WHERE o.user_id = ? ORDER BY o.created_at";
+
+    // Compare-and-set on the cursor: an occurrence is only ever recorded once, whatever the number of instances
+    private static final String ADVANCE_SQL =
+        "UPDATE standing_orders SET runs_done = ?, next_run_at = ?, status = ?, last_run_at = ?, last_reference = ?, " +
+        "last_error = ? WHERE standing_order_id = ? AND status = 'ACTIVE' AND next_run_at = ?";
+
+    private static final String CANCEL_SQL =
+        "UPDATE standing_orders SET status = 'CANCELLED', next_run_at = NULL " +
+        "WHERE standing_order_id = ? AND user_id = ? AND status = 'ACTIVE'";
+
+    public record StandingOrderRow(UUID standingOrderId, UUID userId, String userEmail, UUID fromAccountId,
+                                   String template, String frequency, int intervalCount, OffsetDateTime startsAt,
+                                   OffsetDateTime endsAt, Integer maxRuns, int runsDone, OffsetDateTime nextRunAt,
+                                   String status, OffsetDateTime lastRunAt, String lastReference, String lastError) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StandingOrderRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public UUID insert(UUID userId, UUID fromAccountId, String template, String frequency, int intervalCount,
+                       OffsetDateTime startsAt, OffsetDateTime endsAt, Integer maxRuns) {
+        return jdbcTemplate.queryForObject(INSERT_SQL, UUID.class, userId, fromAccountId, template, frequency,
+            intervalCount, timestamp(startsAt), timestamp(endsAt), maxRuns, timestamp(startsAt));
+    }
+
+    // Due at now, after the (nextRunAt, id) position of the previous page
+    public List<StandingOrderRow> findDue(OffsetDateTime now, OffsetDateTime afterNextRunAt, UUID afterId, int limit) {
+        return jdbcTemplate.query(DUE_SQL, StandingOrderRepository::mapRow,
+            timestamp(now), timestamp(afterNextRunAt), afterId, limit);
+    }
+
+    public List<StandingOrderRow> findByUser(UUID userId) {
+        return jdbcTemplate.query(BY_USER_SQL, StandingOrderRepository::mapRow, userId);
+    }
+
+    // false when the occurrence at expectedNextRunAt was already recorded, or the order was cancelled meanwhile
+    public boolean advance(UUID standingOrderId, OffsetDateTime expectedNextRunAt, int runsDone, OffsetDateTime nextRunAt,
+                           String status, OffsetDateTime lastRunAt, String lastReference, String lastError) {
+        return jdbcTemplate.update(ADVANCE_SQL, runsDone, timestamp(nextRunAt), status, timestamp(lastRunAt),
+            lastReference, lastError, standingOrderId, timestamp(expectedNextRunAt)) == 1;
+    }
+
+    public boolean cancel(UUID standingOrderId, UUID userId) {
+        return jdbcTemplate.update(CANCEL_SQL, standingOrderId, userId) == 1;
+    }
+
+    private static StandingOrderRow mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new StandingOrderRow(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class), rs.getString(3),
+            rs.getObject(4, UUID.class), rs.getString(5), rs.getString(6), rs.getInt(7), offsetDateTime(rs, 8),
+            offsetDateTime(rs, 9), rs.getObject(10, Integer.class), rs.getInt(11), offsetDateTime(rs, 12),
+            rs.getString(13), offsetDateTime(rs, 14), rs.getString(15), rs.getString(16));
+    }
+
+    private static OffsetDateTime offsetDateTime(ResultSet rs, int column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value == null ? null : value.toInstant().atOffset(ZoneOffset.UTC);
+    }
+
+    private static Timestamp timestamp(OffsetDateTime value) {
+        return value == null ? null : Timestamp.from(value.toInstant());
+    }
+}
@@ -0,0 +1,133 @@
+package com.bank.demo.repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.bank.demo.model.Transaction;
+import com.bank.demo.model.enums.TransactionStatus;
+import com.bank.demo.repository.transactionRepository.PendingSettlement;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Plain JDBC writes for the high volume paths: one prepared statement, executed as a JDBC batch
+@Repository
+public class TransactionBatchRepository {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO transactions (transaction_id, created_at, from_account_id, to_account_id, transaction_type, " +
+        "amount, currency, description, reference_number, transaction_status, processed_at, scheduled_at, " +
+        "fee_amount, exchange_rate, merchant_info, location_info, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?::transaction_type, ?, ?, ?, ?, ?::transaction_status, ?, ?, ?, ?, ?::jsonb, ?::jsonb, ?)";
+
+    // Only rows still in the expected status move, so the update count tells which transfers this call changed
+    private static final String UPDATE_STATUS_SQL =
+        "UPDATE transactions SET transaction_status = ?::transaction_status, processed_at = ?, updated_at = ? " +
+        "WHERE transaction_id = ? AND created_at = ? AND transaction_status = ?::transaction_status";
+
+    // Oldest first within [from, to): the bounds keep the scan on one partition, the partial pending index serves the order
+    private static final String EXPIRED_PENDING_SQL =
+        "SELECT transaction_id, created_at, from_account_id, to_account_id, amount FROM transactions " +
+        "WHERE transaction_status = 'PENDING' AND created_at >= ? AND created_at < ? AND from_account_id IS NOT NULL " +
+        "ORDER BY created_at LIMIT ?";
+
+    private static final int BATCH_SIZE = 500;
+
+    private record SettlementRow(UUID transactionId, OffsetDateTime createdAt, UUID fromAccountId, UUID toAccountId,
+                                 BigDecimal amount) implements PendingSettlement {
+        public UUID getTransactionId() { return transactionId; }
+        public OffsetDateTime getCreatedAt() { return createdAt; }
+        public UUID getFromAccountId() { return fromAccountId; }
+        public UUID getToAccountId() { return toAccountId; }
+        public BigDecimal getAmount() { return amount; }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public TransactionBatchRepository(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    // Inserts every transaction with batched executions of a single statement (ids must already be assigned)
+    public void insertAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, transactions, BATCH_SIZE, (ps, t) -> {
+            ps.setObject(1, t.getTransactionId());
+            ps.setTimestamp(2, toTimestamp(t.getCreatedAt()));
+            ps.setObject(3, t.getFromAccount() != null ? t.getFromAccount().getId() : null, Types.OTHER);
+            ps.setObject(4, t.getToAccount() != null ? t.getToAccount().getId() : null, Types.OTHER);
+            ps.setString(5, t.getTransactionType().name());
+            ps.setBigDecimal(6, t.getAmount());
+            ps.setString(7, t.getCurrency());
+            ps.setString(8, t.getDescription());
+            ps.setString(9, t.getReferenceNumber());
+            ps.setString(10, t.getTransactionStatus().name());
+            ps.setTimestamp(11, toTimestamp(t.getProcessedAt()));
+            ps.setTimestamp(12, toTimestamp(t.getScheduledAt()));
+            ps.setBigDecimal(13, t.getFeeAmount());
+            ps.setBigDecimal(14, t.getExchangeRate());
+            setJson(ps, 15, t.getMerchantInfo());
+            setJson(ps, 16, t.getLocationInfo());
+            ps.setTimestamp(17, toTimestamp(t.getUpdatedAt()));
+        });
+    }
+
+    // Moves pending transfers to a final status with batched executions; returns one update count per row, in order
+    public int[] settleAll(List<PendingSettlement> transfers, TransactionStatus status, OffsetDateTime processedAt) {
+        return updateStatus(transfers, TransactionStatus.PENDING, status, processedAt);
+    }
+
+    public int[] updateStatus(List<PendingSettlement> transfers, TransactionStatus from, TransactionStatus to, OffsetDateTime processedAt) {
+        if (transfers.isEmpty()) {
+            return new int[0];
+        }
+        Timestamp updatedAt = toTimestamp(OffsetDateTime.now());
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_STATUS_SQL, transfers, BATCH_SIZE, (ps, t) -> {
+            ps.setString(1, to.name());
+            ps.setTimestamp(2, toTimestamp(processedAt));
+            ps.setTimestamp(3, updatedAt);
+            ps.setObject(4, t.getTransactionId());
+            ps.setTimestamp(5, toTimestamp(t.getCreatedAt()));
+            ps.setString(6, from.name());
+        });
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).toArray();
+    }
+
+    public List<PendingSettlement> findPendingCreatedBetween(OffsetDateTime from, OffsetDateTime to, int limit) {
+        return jdbcTemplate.query(EXPIRED_PENDING_SQL, (rs, rowNum) -> new SettlementRow(
+            rs.getObject(1, UUID.class), rs.getTimestamp(2).toInstant().atOffset(ZoneOffset.UTC),
+            rs.getObject(3, UUID.class), rs.getObject(4, UUID.class), rs.getBigDecimal(5)),
+            toTimestamp(from), toTimestamp(to), limit);
+    }
+
+    private void setJson(PreparedStatement ps, int index, Map<String, Object> value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.VARCHAR);
+            return;
+        }
+        try {
+            ps.setString(index, objectMapper.writeValueAsString(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Error converting map to JSON", e);
+        }
+    }
+
+    private static Timestamp toTimestamp(OffsetDateTime value) {
+        return value == null ? null : Timestamp.from(value.toInstant());
+    }
+}
@@ -0,0 +1,160 @@
+package com.bank.demo.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import com.bank.demo.dto.TransactionDto;
+import com.bank.demo.model.enums.TransactionStatus;
+import com.bank.demo.model.enums.TransactionType;
+
+// Transaction history pages, read as TransactionDto rows in one statement. Called once per partition with that
+// partition's [from, to) bounds and the keyset position (created_at, transaction_id) of the last row seen; a first
+// page passes created_at = to, which leaves the keyset condition a plain upper bound.
+// An OR on from/to cannot be served by one index in order, so each side of a transfer is its own top-N range scan
+// of the (account, created_at DESC, transaction_id DESC) index and Postgres merges the ordered streams. Only the
+// rows of the page are then joined to their accounts and the counterparty's owner
+@Repository
+public class TransactionHistoryRepository {
+
+    private static final String ARM_COLUMNS =
+        "t.transaction_id, t.created_at, t.transaction_type, t.transaction_status, t.amount, t.currency, t.fee_amount, " +
+        "t.exchange_rate, t.description, t.reference_number, t.processed_at, t.scheduled_at, t.merchant_info, t.location_info, ";
+
+    private static final String DEBIT_SIDE =
+        "'DEBIT' AS direction, t.from_account_id AS own_account_id, t.to_account_id AS counterparty_account_id ";
+
+    private static final String CREDIT_SIDE =
+        "'CREDIT' AS direction, t.to_account_id AS own_account_id, t.from_account_id AS counterparty_account_id ";
+
+    private static final String RANGE =
+        " AND t.created_at >= ? AND t.created_at < ? AND (t.created_at, t.transaction_id) < (?, ?) " +
+        "ORDER BY t.created_at DESC, t.transaction_id DESC LIMIT ?";
+
+    // The JSON columns are only read when the details are asked for
+    private static final String ROW_COLUMNS =
+        "SELECT h.transaction_id, h.created_at, h.transaction_type::text, h.transaction_status::text, h.direction, h.amount, " +
+        "h.currency, h.fee_amount, h.exchange_rate, h.description, h.reference_number, h.processed_at, h.scheduled_at, " +
+        "oa.account_number, ca.account_number, cu.first_name || ' ' || cu.last_name, " +
+        "CASE WHEN ? THEN h.merchant_info::text END, CASE WHEN ? THEN h.location_info::text END ";
+
+    private static final String ROW_JOINS =
+        "LEFT JOIN accounts oa ON oa.account_id = h.own_account_id " +
+        "LEFT JOIN accounts ca ON ca.account_id = h.counterparty_account_id " +
+        "LEFT JOIN users cu ON cu.user_id = ca.user_id ";
+
+    private static final String PAGE_COLUMNS = ROW_COLUMNS + "FROM (SELECT * FROM (";
+
+    private static final String PAGE_JOINS =
+        ") u ORDER BY u.created_at DESC, u.transaction_id DESC LIMIT ?) h " + ROW_JOINS +
+        "ORDER BY h.created_at DESC, h.transaction_id DESC";
+
+    // Transfers to itself are only taken from the sending side
+    private static final String ACCOUNT_HISTORY_SQL =
+        PAGE_COLUMNS +
+        "(SELECT " + ARM_COLUMNS + DEBIT_SIDE + "FROM transactions t WHERE t.from_account_id = ?" + RANGE + ") " +
+        "UNION ALL " +
+        "(SELECT " + ARM_COLUMNS + CREDIT_SIDE + "FROM transactions t WHERE t.to_account_id = ? " +
+        "AND t.from_account_id IS DISTINCT FROM ?" + RANGE + ")" +
+        PAGE_JOINS;
+
+    // The user's accounts are read once, then one top-N scan per account and side. A transfer between two of the
+    // user's accounts is only taken from the sending side
+    private static final String USER_HISTORY_SQL =
+        "WITH owned AS (SELECT account_id FROM accounts WHERE user_id = ?) " +
+        PAGE_COLUMNS +
+        "(SELECT d.* FROM owned o CROSS JOIN LATERAL (SELECT " + ARM_COLUMNS + DEBIT_SIDE + "FROM transactions t " +
+        "WHERE t.from_account_id = o.account_id" + RANGE + ") d) " +
+        "UNION ALL " +
+        "(SELECT d.* FROM owned o CROSS JOIN LATERAL (SELECT " + ARM_COLUMNS + CREDIT_SIDE + "FROM transactions t " +
+        "WHERE t.to_account_id = o.account_id AND NOT EXISTS (SELECT 1 FROM owned s WHERE s.account_id = t.from_account_id)" +
+        RANGE + ") d)" +
+        PAGE_JOINS;
+
+    // A whole export in one statement, oldest first: no page limit, so the rows are read through a cursor
+    private static final String USER_EXPORT_SQL =
+        "WITH owned AS (SELECT account_id FROM accounts WHERE user_id = ?) " +
+        ROW_COLUMNS + "FROM (" +
+        "SELECT " + ARM_COLUMNS + DEBIT_SIDE + "FROM transactions t JOIN owned o ON o.account_id = t.from_account_id " +
+        "WHERE t.created_at >= ? AND t.created_at < ? " +
+        "UNION ALL " +
+        "SELECT " + ARM_COLUMNS + CREDIT_SIDE + "FROM transactions t JOIN owned o ON o.account_id = t.to_account_id " +
+        "WHERE NOT EXISTS (SELECT 1 FROM owned s WHERE s.account_id = t.from_account_id) " +
+        "AND t.created_at >= ? AND t.created_at < ?" +
+        ") h " + ROW_JOINS +
+        "ORDER BY h.created_at, h.transaction_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionHistoryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<TransactionDto> findByAccountIdInRange(UUID accountId, OffsetDateTime from, OffsetDateTime to,
+                                                       OffsetDateTime createdAt, UUID transactionId, int limit, boolean details) {
+        Timestamp lo = timestamp(from), hi = timestamp(to), after = timestamp(createdAt);
+        return jdbcTemplate.query(ACCOUNT_HISTORY_SQL, TransactionHistoryRepository::mapRow,
+            details, details,
+            accountId, lo, hi, after, transactionId, limit,
+            accountId, accountId, lo, hi, after, transactionId, limit,
+            limit);
+    }
+
+    public List<TransactionDto> findByUserIdInRange(UUID userId, OffsetDateTime from, OffsetDateTime to,
+                                                    OffsetDateTime createdAt, UUID transactionId, int limit, boolean details) {
+        Timestamp lo = timestamp(from), hi = timestamp(to), after = timestamp(createdAt);
+        return jdbcTemplate.query(USER_HISTORY_SQL, TransactionHistoryRepository::mapRow,
+            userId,
+            details, details,
+            lo, hi, after, transactionId, limit,
+            lo, hi, after, transactionId, limit,
+            limit);
+    }
+
+    // Hands every row of the user's history in [from, to) to the consumer as it is read. Postgres only streams a result
+    // through a cursor inside a transaction and with a fetch size, so the caller must hold one open: at most fetchSize
+    // rows are in memory at a time, whatever the range
+    public void streamByUserIdInRange(UUID userId, OffsetDateTime from, OffsetDateTime to, boolean details, int fetchSize,
+                                      Consumer<TransactionDto> consumer) {
+        Timestamp lo = timestamp(from), hi = timestamp(to);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(USER_EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            int i = 0;
+            statement.setObject(++i, userId);
+            statement.setBoolean(++i, details);
+            statement.setBoolean(++i, details);
+            for (int side = 0; side < 2; side++) {
+                statement.setTimestamp(++i, lo);
+                statement.setTimestamp(++i, hi);
+            }
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapRow(rs, rs.getRow())));
+    }
+
+    private static TransactionDto mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new TransactionDto(rs.getObject(1, UUID.class), offsetDateTime(rs, 2), TransactionType.valueOf(rs.getString(3)),
+            TransactionStatus.valueOf(rs.getString(4)), rs.getString(5), rs.getBigDecimal(6), rs.getString(7),
+            rs.getBigDecimal(8), rs.getBigDecimal(9), rs.getString(10), rs.getString(11), offsetDateTime(rs, 12),
+            offsetDateTime(rs, 13), rs.getString(14), rs.getString(15), rs.getString(16), rs.getString(17), rs.getString(18));
+    }
+
+    private static OffsetDateTime offsetDateTime(ResultSet rs, int column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value == null ? null : value.toInstant().atOffset(ZoneOffset.UTC);
+    }
+
+    private static Timestamp timestamp(OffsetDateTime value) {
+        return value == null ? null : Timestamp.from(value.toInstant());
+    }
+}
@@ -1,12 +1,14 @@
 package com.bank.demo.repository;
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -23,6 +25,14 @@ public interface  transactionRepository extends JpaRepository  <Transaction,Tran
     // Find by the complete composite key
     Optional<Transaction> findByTransactionIdAndCreatedAt(UUID transactionId, OffsetDateTime createdAt);
 
+    // Lookup by id: created_at is never much earlier than the time encoded in a UUIDv7, so that lower bound prunes the
+    // older partitions and each remaining one is searched through its primary key
+    Optional<Transaction> findFirstByTransactionIdAndCreatedAtGreaterThanEqual(UUID transactionId, OffsetDateTime createdAt);
+
+    // Interac reference lookup: the lower created_at bound (from the issue time encoded in the reference) prunes the
+    // older partitions, and each remaining one is searched through the UNIQUE (reference_number, created_at) index
+    Optional<Transaction> findFirstByReferenceNumberAndCreatedAtGreaterThanEqual(String referenceNumber, OffsetDateTime createdAt);
+
     // Custom query with JPQL
     @Query("SELECT t FROM Transaction t " +
            "WHERE t.toAccount.id = :recipientAccountId " +
@@ -30,17 +40,92 @@ public interface  transactionRepository extends JpaRepository  <Transaction,Tran
            "ORDER BY t.createdAt DESC")
     public List <Transaction> findPendingTransactionsByRecipient(@Param("recipientAccountId") UUID recipientAccountId , @Param("status") TransactionStatus status );
 
-    // Find transactions by user ID (from either sender or recipient accounts)
-    @Query("SELECT t FROM Transaction t " +
-           "WHERE t.fromAccount.user.id = :userId " +
-           "OR t.toAccount.user.id = :userId " +
+    // Keys of the pending transactions of a recipient, without loading the entities (and their accounts)
+    @Query("SELECT t.transactionId AS transactionId, t.createdAt AS createdAt, t.fromAccount.id AS fromAccountId " +
+           "FROM Transaction t " +
+           "WHERE t.toAccount.id = :recipientAccountId " +
+           "AND t.transactionStatus = :status " +
            "ORDER BY t.createdAt DESC")
-    List<Transaction> findByUserIdOrderByCreatedAtDesc(@Param("userId") UUID userId, Pageable pageable);
+    List<PendingTransferKey> findPendingTransferKeysByRecipient(@Param("recipientAccountId") UUID recipientAccountId, @Param("status") TransactionStatus status);
 
-    // Find transactions by account ID (from either sender or recipient)
-    @Query("SELECT t FROM Transaction t " +
-           "WHERE t.fromAccount.id = :accountId " +
-           "OR t.toAccount.id = :accountId " +
-           "ORDER BY t.createdAt DESC")
-    List<Transaction> findByAccountIdOrderByCreatedAtDesc(@Param("accountId") UUID accountId, Pageable pageable);
+    // Inserts a PENDING transfer whose recipient is resolved by account number in the same statement.
+    // Returns 0 when the recipient does not exist or is the sender itself
+    @Modifying
+    @Query(value = "INSERT INTO transactions (transaction_id, created_at, from_account_id, to_account_id, transaction_type, " +
+                   "amount, currency, description, reference_number, transaction_status, scheduled_at, fee_amount, exchange_rate, " +
+                   "merchant_info, updated_at) " +
+                   "SELECT :transaction_id, :created_at, :from_account_id, a.account_id, CAST(:transaction_type AS transaction_type), " +
+                   ":amount, CAST(:currency AS varchar), CAST(:description AS text), CAST(:reference_number AS varchar), 'PENDING', " +
+                   "CAST(:scheduled_at AS timestamptz), CAST(:fee_amount AS numeric), CAST(:exchange_rate AS numeric), " +
+                   "CAST(:merchant_info AS jsonb), :created_at " +
+                   "FROM accounts a WHERE a.account_number = :to_account_number AND a.account_id <> :from_account_id",
+           nativeQuery = true)
+    int insertPendingTransfer(@Param("transaction_id") UUID transactionId,
+                              @Param("created_at") OffsetDateTime createdAt,
+                              @Param("from_account_id") UUID fromAccountId,
+                              @Param("to_account_number") String toAccountNumber,
+                              @Param("transaction_type") String transactionType,
+                              @Param("amount") BigDecimal amount,
+                              @Param("currency") String currency,
+                              @Param("description") String description,
+                              @Param("reference_number") String referenceNumber,
+                              @Param("scheduled_at") OffsetDateTime scheduledAt,
+                              @Param("fee_amount") BigDecimal feeAmount,
+                              @Param("exchange_rate") BigDecimal exchangeRate,
+                              @Param("merchant_info") String merchantInfo);
+
+    // Everything needed to settle the pending transfers of a recipient, without loading the entities
+    @Query("SELECT t.transactionId AS transactionId, t.createdAt AS createdAt, t.fromAccount.id AS fromAccountId, " +
+           "t.toAccount.id AS toAccountId, t.amount AS amount " +
+           "FROM Transaction t " +
+           "WHERE t.toAccount.id = :recipientAccountId " +
+           "AND t.transactionStatus = :status " +
+           "ORDER BY t.createdAt")
+    List<PendingSettlement> findPendingSettlementsByRecipient(@Param("recipientAccountId") UUID recipientAccountId, @Param("status") TransactionStatus status);
+
+    @Query("SELECT t.transactionId AS transactionId, t.createdAt AS createdAt, t.fromAccount.id AS fromAccountId, " +
+           "t.toAccount.id AS toAccountId, t.amount AS amount " +
+           "FROM Transaction t " +
+           "WHERE t.toAccount.id = :recipientAccountId " +
+           "AND t.transactionStatus = :status " +
+           "AND t.transactionId IN :transactionIds " +
+           "ORDER BY t.createdAt")
+    List<PendingSettlement> findPendingSettlementsByRecipientAndIds(@Param("recipientAccountId") UUID recipientAccountId,
+                                                                    @Param("status") TransactionStatus status,
+                                                                    @Param("transactionIds") Collection<UUID> transactionIds);
+
+    // Transfers in a status within a created_at range; bounded by partition limits so only those partitions are read
+    @Query("SELECT t.transactionId AS transactionId, t.createdAt AS createdAt, t.fromAccount.id AS fromAccountId, " +
+           "t.toAccount.id AS toAccountId, t.amount AS amount " +
+           "FROM Transaction t " +
+           "WHERE t.transactionStatus = :status " +
+           "AND t.createdAt >= :from AND t.createdAt < :to")
+    List<PendingSettlement> findTransfersByStatusCreatedBetween(@Param("status") TransactionStatus status,
+                                                               @Param("from") OffsetDateTime from,
+                                                               @Param("to") OffsetDateTime to);
+
+    // Amount still held on each sender account by a pending transfer (hold index rebuild)
+    @Query("SELECT t.fromAccount.id AS fromAccountId, t.transactionId AS transactionId, t.amount AS amount " +
+           "FROM Transaction t WHERE t.transactionStatus = :status AND t.fromAccount.id IS NOT NULL")
+    List<OpenHold> findOpenHolds(@Param("status") TransactionStatus status);
+
+    interface OpenHold {
+        UUID getFromAccountId();
+        UUID getTransactionId();
+        BigDecimal getAmount();
+    }
+
+    interface PendingSettlement {
+        UUID getTransactionId();
+        OffsetDateTime getCreatedAt();
+        UUID getFromAccountId();
+        UUID getToAccountId();
+        BigDecimal getAmount();
+    }
+
+    interface PendingTransferKey {
+        UUID getTransactionId();
+        OffsetDateTime getCreatedAt();
+        UUID getFromAccountId();
+    }
 }
@@ -0,0 +1,89 @@
+package com.bank.demo.service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.bank.demo.model.enums.TransactionStatus;
+import com.bank.demo.repository.transactionRepository;
+import com.bank.demo.repository.transactionRepository.OpenHold;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Open holds per sender account: the amount of every PENDING transfer that was taken from
+ * available_balance but not yet from balance. Balance reads use it instead of scanning the
+ * pending transactions. The index is rebuilt from the PENDING rows at startup and only
+ * changes once the DB transaction that placed or released a hold has committed.
+ */
+@Service
+public class AccountHoldIndex {
+
+    private final transactionRepository transactionRepository;
+    // account id -> (transaction id -> held amount)
+    private final ConcurrentHashMap<UUID, Map<UUID, BigDecimal>> holds = new ConcurrentHashMap<>();
+
+    public AccountHoldIndex(transactionRepository transactionRepository) {
+        this.transactionRepository = transactionRepository;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        holds.clear();
+        for (OpenHold hold : transactionRepository.findOpenHolds(TransactionStatus.PENDING)) {
+            add(hold.getFromAccountId(), hold.getTransactionId(), hold.getAmount());
+        }
+        System.out.println("--> Hold index rebuilt: " + holds.size() + " accounts with open holds");
+    }
+
+    public void place(UUID accountId, UUID transactionId, BigDecimal amount) {
+        afterCommit(() -> add(accountId, transactionId, amount));
+    }
+
+    public void release(UUID accountId, UUID transactionId) {
+        afterCommit(() -> holds.computeIfPresent(accountId, (id, accountHolds) -> {
+            accountHolds.remove(transactionId);
+            return accountHolds.isEmpty() ? null : accountHolds;
+        }));
+    }
+
+    public BigDecimal heldAmount(UUID accountId) {
+        Map<UUID, BigDecimal> accountHolds = holds.get(accountId);
+        if (accountHolds == null) {
+            return BigDecimal.ZERO;
+        }
+        return accountHolds.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    public int openHolds(UUID accountId) {
+        Map<UUID, BigDecimal> accountHolds = holds.get(accountId);
+        return accountHolds == null ? 0 : accountHolds.size();
+    }
+
+    private void add(UUID accountId, UUID transactionId, BigDecimal amount) {
+        holds.compute(accountId, (id, accountHolds) -> {
+            Map<UUID, BigDecimal> updated = accountHolds != null ? accountHolds : new ConcurrentHashMap<>();
+            updated.put(transactionId, amount);
+            return updated;
+        });
+    }
+
+    // A rolled back transfer must leave the index untouched
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,174 @@
+package com.bank.demo.service;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.bank.demo.Dtos.TransferRequestDto.TransferRequest;
+import com.bank.demo.exceptions.InsufficientFundsException;
+import com.bank.demo.exceptions.SpendLimitExceededException;
+import com.bank.demo.exceptions.TransferQueueFullException;
+import com.bank.demo.mapper.TransactionMapper;
+import com.bank.demo.model.Account;
+import com.bank.demo.model.Transaction;
+import com.bank.demo.model.enums.TransactionType;
+import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.TransactionBatchRepository;
+import com.bank.demo.utils.AccountMailboxes;
+import com.bank.demo.utils.TimeOrderedUuid;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Actor execution mode for /send (banking.transfer.execution-mode=actor). Transfers are routed
+ * to the sender's mailbox, so each sender account has a single writer. Whatever queued up for
+ * the sender while the previous group ran is executed as one group: one DB transaction, one
+ * read and one update of the sender row, and the transfer rows as a JDBC batch. A hot account
+ * then costs one row update per group instead of one per transfer, and requests wait in its
+ * mailbox instead of on the row lock. A transfer still in the mailbox when the wait times out
+ * is not cancelled: the caller answers PROCESSING with its reference instead of an error.
+ */
+@Service
+public class ActorTransferService {
+
+    public static final String PROCESSING = "PROCESSING";
+
+    private record SendMessage(UUID toAccountId, TransferRequest request, TransactionType type, String reference,
+                               CompletableFuture<UUID> result) {}
+
+    private final AccountRepository accountRepository;
+    private final TransactionBatchRepository transactionBatchRepository;
+    private final TransferExecutionEngine transferExecutionEngine;
+    private final AccountHoldIndex accountHoldIndex;
+    private final TransferPricingService transferPricingService;
+    private final SpendLimitService spendLimitService;
+    private final long timeoutMs;
+    private final AccountMailboxes<SendMessage> mailboxes;
+
+    public ActorTransferService(AccountRepository accountRepository,
+                                TransactionBatchRepository transactionBatchRepository,
+                                TransferExecutionEngine transferExecutionEngine,
+                                AccountHoldIndex accountHoldIndex,
+                                TransferPricingService transferPricingService,
+                                SpendLimitService spendLimitService,
+                                @Value("${banking.transfer.actor.dispatcher-threads:16}") int dispatcherThreads,
+                                @Value("${banking.transfer.actor.mailbox-capacity:1000}") int mailboxCapacity,
+                                @Value("${banking.transfer.actor.max-batch:64}") int maxBatch,
+                                @Value("${banking.transfer.actor.timeout-ms:10000}") long timeoutMs) {
+        this.accountRepository = accountRepository;
+        this.transactionBatchRepository = transactionBatchRepository;
+        this.transferExecutionEngine = transferExecutionEngine;
+        this.accountHoldIndex = accountHoldIndex;
+        this.transferPricingService = transferPricingService;
+        this.spendLimitService = spendLimitService;
+        this.timeoutMs = timeoutMs;
+        this.mailboxes = new AccountMailboxes<>("account-mailbox", dispatcherThreads, mailboxCapacity, maxBatch, this::process);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        mailboxes.shutdown();
+    }
+
+    // Queues the transfer in the sender's mailbox and waits for its group to commit; returns the transaction id,
+    // or empty when it is still queued or running after timeout-ms (it may commit later under its reference)
+    public Optional<UUID> send(UUID fromAccountId, UUID toAccountId, TransferRequest request, TransactionType type, String reference)
+            throws InsufficientFundsException {
+        CompletableFuture<UUID> result = new CompletableFuture<>();
+        if (!mailboxes.offer(fromAccountId, new SendMessage(toAccountId, request, type, reference, result))) {
+            throw new TransferQueueFullException("Too many transfers waiting for this account, retry later");
+        }
+        try {
+            return Optional.of(result.get(timeoutMs, TimeUnit.MILLISECONDS));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InsufficientFundsException insufficientFunds) {
+                throw insufficientFunds;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // Failing here would let the client send it again while this one may still go through
+            System.err.println("--> Transfer " + reference + " still queued after " + timeoutMs + " ms, answering PROCESSING");
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    private void process(UUID senderId, List<SendMessage> group) {
+        try {
+            complete(group, executeGroup(senderId, group));
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                group.get(0).result().completeExceptionally(e);
+                return;
+            }
+            // One bad transfer (e.g. a recipient closed in between) must not fail the others: run them one by one
+            System.err.println("--> Transfer group of " + group.size() + " failed for " + senderId + ", running one by one: " + e.getMessage());
+            for (SendMessage message : group) {
+                process(senderId, List.of(message));
+            }
+        }
+    }
+
+    // Returns, for each message, the new transaction id or the exception to report
+    private Object[] executeGroup(UUID senderId, List<SendMessage> group) {
+        return transferExecutionEngine.execute("send-actor", List.of(senderId), () -> {
+            Object[] outcomes = new Object[group.size()];
+            Account sender = accountRepository.findById(senderId)
+                .orElseThrow(() -> new IllegalArgumentException("FromAccount not found"));
+            OffsetDateTime now = OffsetDateTime.now();
+            List<Transaction> rows = new ArrayList<>();
+            for (int i = 0; i < group.size(); i++) {
+                SendMessage message = group.get(i);
+                BigDecimal amount = BigDecimal.valueOf(message.request().getAmount());
+                if (sender.getAvailableBalance().compareTo(amount) < 0) {
+                    outcomes[i] = new InsufficientFundsException("Not enough balance to complete transfer");
+                    continue;
+                }
+                Transaction transaction = TransactionMapper.toEntity(message.request(), sender,
+                    accountRepository.getReferenceById(message.toAccountId()), message.type());
+                try {
+                    transferPricingService.price(transaction, sender.getAccountType());
+                    spendLimitService.reserve(senderId, amount);
+                } catch (IllegalArgumentException | SpendLimitExceededException e) {
+                    outcomes[i] = e;
+                    continue;
+                }
+                sender.setAvailableBalance(sender.getAvailableBalance().subtract(amount));
+                transaction.setTransactionId(TimeOrderedUuid.next());
+                transaction.setReferenceNumber(message.reference());
+                transaction.setCreatedAt(now);
+                transaction.setUpdatedAt(now);
+                rows.add(transaction);
+                accountHoldIndex.place(senderId, transaction.getTransactionId(), amount);
+                outcomes[i] = transaction.getTransactionId();
+            }
+            transactionBatchRepository.insertAll(rows);
+            return outcomes;
+        });
+    }
+
+    private static void complete(List<SendMessage> group, Object[] outcomes) {
+        for (int i = 0; i < group.size(); i++) {
+            if (outcomes[i] instanceof UUID transactionId) {
+                group.get(i).result().complete(transactionId);
+            } else {
+                group.get(i).result().completeExceptionally((Throwable) outcomes[i]);
+            }
+        }
+    }
+}
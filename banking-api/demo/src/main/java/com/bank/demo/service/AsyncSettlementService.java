@@ -0,0 +1,250 @@
+package com.bank.demo.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import com.bank.demo.Dtos.TransferRequestDto.TransferStatusResponse;
+import com.bank.demo.exceptions.AccountNotFoundException;
+import com.bank.demo.exceptions.SettlementQueueFullException;
+import com.bank.demo.model.Account;
+import com.bank.demo.model.Transaction;
+import com.bank.demo.model.enums.TransactionStatus;
+import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.transactionRepository;
+import com.bank.demo.repository.transactionRepository.PendingSettlement;
+import com.bank.demo.service.BulkSettlementService.SettlementDecision;
+import com.bank.demo.utils.TimeOrderedUuid;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Queues accept/decline decisions and settles them off the request thread. A single worker
+ * drains the queue in micro-batches (up to batch-size decisions, or whatever arrived within
+ * linger-ms) and hands each batch to BulkSettlementService, which updates every account
+ * touched by the batch once. Status is answered from the queue first, then from the database,
+ * and only to the sender or the recipient.
+ */
+@Service
+public class AsyncSettlementService {
+
+    public static final String QUEUED = "SETTLEMENT_QUEUED";
+    public static final String FAILED = "FAILED";
+    // How much earlier than the time in its id a transfer's created_at can be
+    private static final Duration ID_CLOCK_SLACK = Duration.ofMinutes(1);
+
+    private final AccountRepository accountRepository;
+    private final transactionRepository transactionRepository;
+    private final BulkSettlementService bulkSettlementService;
+    private final int batchSize;
+    private final long lingerMs;
+    private final BlockingQueue<SettlementDecision> queue;
+    // Decisions accepted but not settled yet, by transaction id
+    private final ConcurrentHashMap<UUID, PendingSettlement> queued = new ConcurrentHashMap<>();
+    // Recent decisions that could not be settled, so a status poll can report them
+    private final Set<UUID> failures;
+    private final Counter settledCounter;
+    private final Counter failedCounter;
+    private volatile boolean running;
+    private Thread worker;
+
+    public AsyncSettlementService(AccountRepository accountRepository,
+                                  transactionRepository transactionRepository,
+                                  BulkSettlementService bulkSettlementService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${banking.settlement.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${banking.settlement.batch-size:200}") int batchSize,
+                                  @Value("${banking.settlement.linger-ms:20}") long lingerMs) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.bulkSettlementService = bulkSettlementService;
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerMs = Math.max(0, lingerMs);
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.failures = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<UUID, Boolean>(256, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+                return size() > queueCapacity;
+            }
+        }));
+        Gauge.builder("banking.settlement.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+        this.settledCounter = Counter.builder("banking.settlement.async.settled").register(meterRegistry);
+        this.failedCounter = Counter.builder("banking.settlement.async.failed").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::drainLoop, "settlement-worker");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+        // Settle what was accepted before shutdown rather than drop it
+        List<SettlementDecision> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            settleBatch(remaining.subList(from, Math.min(remaining.size(), from + batchSize)));
+        }
+    }
+
+    // Queues a decision for every pending transfer of the recipient (or only transactionIds) and returns at once.
+    // Only the owner of the recipient account can decide, as for /receive-bulk
+    public List<TransferStatusResponse> enqueue(String recipientAccountId, boolean accept, Collection<UUID> transactionIds) {
+        UUID recipientId = UUID.fromString(recipientAccountId);
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        if (!accountRepository.isAnyOwnedBy(List.of(recipientId), email)) {
+            throw new AccountNotFoundException("Recipient Account not found");
+        }
+        List<PendingSettlement> pending = transactionIds != null && !transactionIds.isEmpty()
+            ? transactionRepository.findPendingSettlementsByRecipientAndIds(recipientId, TransactionStatus.PENDING, transactionIds)
+            : transactionRepository.findPendingSettlementsByRecipient(recipientId, TransactionStatus.PENDING);
+        if (queue.remainingCapacity() < pending.size()) {
+            throw new SettlementQueueFullException("Settlement queue is full, retry later");
+        }
+
+        List<TransferStatusResponse> responses = new ArrayList<>();
+        for (PendingSettlement transfer : pending) {
+            // A transfer already waiting in the queue keeps its first decision
+            if (queued.putIfAbsent(transfer.getTransactionId(), transfer) == null) {
+                failures.remove(transfer.getTransactionId());
+                if (!queue.offer(new SettlementDecision(transfer, accept))) {
+                    queued.remove(transfer.getTransactionId());
+                    throw new SettlementQueueFullException("Settlement queue is full, retry later");
+                }
+            }
+            responses.add(statusResponse(transfer, QUEUED));
+        }
+        System.out.println("--> " + responses.size() + " settlement decisions queued for recipient " + recipientAccountId);
+        return responses;
+    }
+
+    // Only the sender or the recipient sees a transfer; to anyone else it does not exist
+    public Optional<TransferStatusResponse> status(UUID transactionId) {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        PendingSettlement waiting = queued.get(transactionId);
+        if (waiting != null) {
+            return isParty(email, waiting.getFromAccountId(), waiting.getToAccountId())
+                ? Optional.of(statusResponse(waiting, QUEUED)) : Optional.empty();
+        }
+        // A UUIDv7 id bounds the partitions to read. Transfers created before ids were time ordered have random (v4)
+        // ids: those are looked up in every partition
+        Optional<Transaction> transfer;
+        if (transactionId.version() == 7) {
+            OffsetDateTime notBefore = Instant.ofEpochMilli(TimeOrderedUuid.timestampMillis(transactionId))
+                .minus(ID_CLOCK_SLACK).atOffset(ZoneOffset.UTC);
+            transfer = transactionRepository.findFirstByTransactionIdAndCreatedAtGreaterThanEqual(transactionId, notBefore);
+        } else {
+            transfer = transactionRepository.findByTransactionId(transactionId).stream().findFirst();
+        }
+        return transfer
+            .filter(t -> isParty(email, accountId(t.getFromAccount()), accountId(t.getToAccount())))
+            .map(t -> {
+                TransferStatusResponse response = new TransferStatusResponse();
+                response.setTransactionId(t.getTransactionId());
+                boolean failed = failures.contains(transactionId) && t.getTransactionStatus() == TransactionStatus.PENDING;
+                response.setStatus(failed ? FAILED : t.getTransactionStatus().name());
+                response.setAmount(t.getAmount().doubleValue());
+                response.setCurrency(t.getCurrency());
+                return response;
+            });
+    }
+
+    private boolean isParty(String email, UUID fromAccountId, UUID toAccountId) {
+        List<UUID> accountIds = new ArrayList<>(2);
+        if (fromAccountId != null) {
+            accountIds.add(fromAccountId);
+        }
+        if (toAccountId != null) {
+            accountIds.add(toAccountId);
+        }
+        return !accountIds.isEmpty() && accountRepository.isAnyOwnedBy(accountIds, email);
+    }
+
+    private static UUID accountId(Account account) {
+        return account == null ? null : account.getId();
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                SettlementDecision first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<SettlementDecision> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                // Linger a little so decisions arriving together share one batch
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    SettlementDecision next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                settleBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void settleBatch(List<SettlementDecision> batch) {
+        try {
+            bulkSettlementService.settle("settle-async", batch);
+            settledCounter.increment(batch.size());
+        } catch (RuntimeException e) {
+            // One bad transfer must not hold back the rest of the batch: settle them one by one
+            System.err.println("--> Settlement batch of " + batch.size() + " failed, settling one by one: " + e.getMessage());
+            for (SettlementDecision decision : batch) {
+                try {
+                    bulkSettlementService.settle("settle-async", List.of(decision));
+                    settledCounter.increment();
+                } catch (RuntimeException single) {
+                    System.err.println("--> Could not settle " + decision.transfer().getTransactionId() + ": " + single.getMessage());
+                    failures.add(decision.transfer().getTransactionId());
+                    failedCounter.increment();
+                }
+            }
+        } finally {
+            batch.forEach(d -> queued.remove(d.transfer().getTransactionId()));
+        }
+    }
+
+    private static TransferStatusResponse statusResponse(PendingSettlement transfer, String status) {
+        TransferStatusResponse response = new TransferStatusResponse();
+        response.setTransactionId(transfer.getTransactionId());
+        response.setStatus(status);
+        response.setAmount(transfer.getAmount().doubleValue());
+        return response;
+    }
+}
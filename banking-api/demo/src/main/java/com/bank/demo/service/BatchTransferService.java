@@ -0,0 +1,182 @@
+package com.bank.demo.service;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.bank.demo.Dtos.TransferRequestDto.BatchTransferResponse;
+import com.bank.demo.Dtos.TransferRequestDto.BatchTransferResult;
+import com.bank.demo.Dtos.TransferRequestDto.TransferRequest;
+import com.bank.demo.exceptions.SpendLimitExceededException;
+import com.bank.demo.mapper.TransactionMapper;
+import com.bank.demo.model.Account;
+import com.bank.demo.model.Transaction;
+import com.bank.demo.model.enums.TransactionType;
+import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.TransactionBatchRepository;
+import com.bank.demo.utils.InteracReferenceGenerator;
+import com.bank.demo.utils.TimeOrderedUuid;
+
+@Service
+public class BatchTransferService {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionBatchRepository transactionBatchRepository;
+
+    @Autowired
+    private TransferExecutionEngine transferExecutionEngine;
+
+    @Autowired
+    private AccountHoldIndex accountHoldIndex;
+
+    @Autowired
+    private InteracReferenceGenerator interacReferenceGenerator;
+
+    @Autowired
+    private TransferPricingService transferPricingService;
+
+    @Autowired
+    private SpendLimitService spendLimitService;
+
+    @Value("${banking.transfer.batch.max-items:5000}")
+    private int maxItems;
+
+    public BatchTransferResponse sendMoneyBatch(List<TransferRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one transfer");
+        }
+        if (requests.size() > maxItems) {
+            throw new IllegalArgumentException("Batch cannot contain more than " + maxItems + " transfers");
+        }
+        System.out.println("--> sendMoneyBatch() called with " + requests.size() + " transfers");
+
+        // Resolve every account number of the batch in one query
+        Set<String> accountNumbers = new HashSet<>();
+        for (TransferRequest request : requests) {
+            if (request.getFromAccountNumber() != null) {
+                accountNumbers.add(request.getFromAccountNumber());
+            }
+            if (request.getToAccountNumber() != null) {
+                accountNumbers.add(request.getToAccountNumber());
+            }
+        }
+        Map<String, UUID> accountIds = new HashMap<>();
+        accountRepository.findIdsByAccountNumberIn(accountNumbers)
+            .forEach(a -> accountIds.put(a.getAccountNumber(), a.getId()));
+
+        // Everything that can be rejected without reading a balance is rejected here
+        BatchTransferResult[] validated = new BatchTransferResult[requests.size()];
+        TransactionType[] types = new TransactionType[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            String error = validate(requests.get(i), accountIds);
+            if (error != null) {
+                validated[i] = result(i, null, "FAILED", error);
+            } else {
+                types[i] = TransactionType.valueOf(requests.get(i).getTransactionType());
+            }
+        }
+
+        // Hold in memory and write every row in one DB transaction, holding all the account locks of the batch.
+        // Each attempt starts again from the validation results, since a version conflict re-runs the whole batch
+        BatchTransferResult[] results = transferExecutionEngine.execute("send-batch", accountIds.values(), () -> {
+            BatchTransferResult[] attempt = validated.clone();
+            Map<UUID, Account> accounts = new HashMap<>();
+            accountRepository.findAllById(accountIds.values()).forEach(a -> accounts.put(a.getId(), a));
+
+            OffsetDateTime now = OffsetDateTime.now();
+            List<Transaction> rows = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) {
+                if (attempt[i] != null) {
+                    continue;
+                }
+                TransferRequest request = requests.get(i);
+                Account fromAccount = accounts.get(accountIds.get(request.getFromAccountNumber()));
+                Account toAccount = accounts.get(accountIds.get(request.getToAccountNumber()));
+                BigDecimal amount = BigDecimal.valueOf(request.getAmount());
+                if (fromAccount.getAvailableBalance().compareTo(amount) < 0) {
+                    attempt[i] = result(i, null, "FAILED", "Not enough balance to complete transfer");
+                    continue;
+                }
+                Transaction transaction = TransactionMapper.toEntity(request, fromAccount, toAccount, types[i]);
+                try {
+                    transferPricingService.price(transaction, fromAccount.getAccountType());
+                    spendLimitService.reserve(fromAccount.getId(), amount);
+                } catch (IllegalArgumentException | SpendLimitExceededException e) {
+                    attempt[i] = result(i, null, "FAILED", e.getMessage());
+                    continue;
+                }
+                // Pending transfers only hold the amount; balance moves when the recipient accepts
+                fromAccount.setAvailableBalance(fromAccount.getAvailableBalance().subtract(amount));
+
+                transaction.setTransactionId(TimeOrderedUuid.next());
+                transaction.setReferenceNumber(interacReferenceGenerator.next());
+                transaction.setCreatedAt(now);
+                transaction.setUpdatedAt(now);
+                rows.add(transaction);
+                accountHoldIndex.place(fromAccount.getId(), transaction.getTransactionId(), amount);
+                attempt[i] = result(i, transaction.getTransactionId(), "PENDING", "Transfer initiated. Recipient will be notified.");
+                attempt[i].setInteracReferenceId(transaction.getReferenceNumber());
+            }
+            // Rows go out as JDBC batches; the modified accounts are flushed by Hibernate as batched updates on commit
+            transactionBatchRepository.insertAll(rows);
+            return attempt;
+        });
+
+        BatchTransferResponse response = new BatchTransferResponse();
+        response.setResults(Arrays.asList(results));
+        response.setTotal(results.length);
+        response.setSucceeded((int) Arrays.stream(results).filter(r -> !"FAILED".equals(r.getStatus())).count());
+        response.setFailed(results.length - response.getSucceeded());
+        System.out.println("--> sendMoneyBatch() done: " + response.getSucceeded() + " succeeded, " + response.getFailed() + " failed");
+        return response;
+    }
+
+    private String validate(TransferRequest request, Map<String, UUID> accountIds) {
+        if (request == null) {
+            return "Transfer is empty";
+        }
+        UUID fromId = accountIds.get(request.getFromAccountNumber());
+        if (fromId == null) {
+            return "FromAccount not found";
+        }
+        UUID toId = accountIds.get(request.getToAccountNumber());
+        if (toId == null) {
+            return "Recipient Account not found";
+        }
+        if (fromId.equals(toId)) {
+            return "Cannot transfer to the same account";
+        }
+        if (!(request.getAmount() > 0)) {
+            return "Amount must be positive";
+        }
+        try {
+            TransactionType.valueOf(String.valueOf(request.getTransactionType()));
+        } catch (IllegalArgumentException e) {
+            return "Unknown transaction type: " + request.getTransactionType();
+        }
+        return null;
+    }
+
+    private static BatchTransferResult result(int index, UUID transactionId, String status, String message) {
+        BatchTransferResult result = new BatchTransferResult();
+        result.setIndex(index);
+        result.setTransactionId(transactionId);
+        result.setStatus(status);
+        result.setMessage(message);
+        return result;
+    }
+}
@@ -0,0 +1,158 @@
+package com.bank.demo.service;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import com.bank.demo.Dtos.TransferRequestDto.BulkSettleResponse;
+import com.bank.demo.exceptions.AccountNotFoundException;
+import com.bank.demo.model.enums.TransactionStatus;
+import com.bank.demo.repository.AccountBatchRepository;
+import com.bank.demo.repository.AccountBatchRepository.BalanceDelta;
+import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.LedgerRepository.Posting;
+import com.bank.demo.repository.TransactionBatchRepository;
+import com.bank.demo.repository.transactionRepository;
+import com.bank.demo.repository.transactionRepository.PendingSettlement;
+
+/**
+ * Accepts or declines many pending transfers in one DB transaction: the status changes go
+ * out as one JDBC batch and every affected account gets a single aggregated balance update.
+ */
+@Service
+public class BulkSettlementService {
+
+    public record SettlementDecision(PendingSettlement transfer, boolean accept) {}
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private transactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionBatchRepository transactionBatchRepository;
+
+    @Autowired
+    private AccountBatchRepository accountBatchRepository;
+
+    @Autowired
+    private TransferExecutionEngine transferExecutionEngine;
+
+    @Autowired
+    private AccountHoldIndex accountHoldIndex;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private SpendLimitService spendLimitService;
+
+    @Autowired
+    private InteracClaimIndex interacClaimIndex;
+
+    // Settles every pending transfer of the recipient, or only the given ones when transactionIds is not empty.
+    // Only the owner of the recipient account can settle its transfers
+    public BulkSettleResponse settleAll(String recipientAccountId, boolean accept, Collection<UUID> transactionIds) {
+        UUID recipientId = UUID.fromString(recipientAccountId);
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        if (!accountRepository.isAnyOwnedBy(List.of(recipientId), email)) {
+            throw new AccountNotFoundException("Recipient Account not found");
+        }
+        boolean selected = transactionIds != null && !transactionIds.isEmpty();
+        System.out.println("--> settleAll() called for recipient: " + recipientAccountId + " accept: " + accept
+            + (selected ? " transactions: " + transactionIds.size() : " (all pending)"));
+
+        List<PendingSettlement> pending = selected
+            ? transactionRepository.findPendingSettlementsByRecipientAndIds(recipientId, TransactionStatus.PENDING, transactionIds)
+            : transactionRepository.findPendingSettlementsByRecipient(recipientId, TransactionStatus.PENDING);
+        List<SettlementDecision> decisions = new ArrayList<>();
+        pending.forEach(p -> decisions.add(new SettlementDecision(p, accept)));
+
+        List<SettlementDecision> settled = settle("settle-bulk", decisions);
+
+        BulkSettleResponse response = new BulkSettleResponse();
+        response.setStatus((accept ? TransactionStatus.COMPLETED : TransactionStatus.CANCELLED).name());
+        response.setRequested(selected ? transactionIds.size() : pending.size());
+        response.setSettled(settled.size());
+        response.setTotalAmount(settled.stream().map(d -> d.transfer().getAmount()).reduce(BigDecimal.ZERO, BigDecimal::add));
+        response.setTransactionIds(settled.stream().map(d -> d.transfer().getTransactionId()).toList());
+        System.out.println("--> settleAll() done: " + response.getSettled() + " of " + response.getRequested() + " settled");
+        return response;
+    }
+
+    // Applies the decisions under the locks of every account involved; returns the ones that were still pending
+    public List<SettlementDecision> settle(String operation, List<SettlementDecision> decisions) {
+        if (decisions.isEmpty()) {
+            return List.of();
+        }
+        Set<UUID> accountIds = new TreeSet<>();
+        for (SettlementDecision decision : decisions) {
+            accountIds.add(decision.transfer().getFromAccountId());
+            // No recipient account yet: an unclaimed Interac transfer (only ever declined, by expiry)
+            if (decision.transfer().getToAccountId() != null) {
+                accountIds.add(decision.transfer().getToAccountId());
+            }
+        }
+        return transferExecutionEngine.execute(operation, accountIds, () -> apply(decisions));
+    }
+
+    private List<SettlementDecision> apply(List<SettlementDecision> decisions) {
+        List<SettlementDecision> accepted = new ArrayList<>();
+        List<SettlementDecision> declined = new ArrayList<>();
+        decisions.forEach(d -> (d.accept() ? accepted : declined).add(d));
+
+        OffsetDateTime now = OffsetDateTime.now();
+        List<SettlementDecision> settled = new ArrayList<>();
+        SortedMap<UUID, BalanceDelta> deltas = new TreeMap<>();
+        List<Posting> postings = new ArrayList<>();
+        settleBatch(accepted, TransactionStatus.COMPLETED, now, settled, deltas, postings);
+        settleBatch(declined, TransactionStatus.CANCELLED, now, settled, deltas, postings);
+
+        // One relative update per account, whatever the number of transfers it takes part in,
+        // and the ledger entries of the same movements in the same DB transaction
+        accountBatchRepository.applyDeltas(deltas);
+        ledgerService.post(postings);
+        return settled;
+    }
+
+    private void settleBatch(List<SettlementDecision> batch, TransactionStatus status, OffsetDateTime now,
+                             List<SettlementDecision> settled, SortedMap<UUID, BalanceDelta> deltas, List<Posting> postings) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int[] counts = transactionBatchRepository.settleAll(batch.stream().map(SettlementDecision::transfer).toList(), status, now);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                // Settled by someone else in the meantime
+                continue;
+            }
+            SettlementDecision decision = batch.get(i);
+            PendingSettlement transfer = decision.transfer();
+            BigDecimal amount = transfer.getAmount();
+            if (decision.accept()) {
+                // Same movements as handlePendingTransfer: the hold leaves the sender's balance, the recipient gets both columns
+                deltas.merge(transfer.getFromAccountId(), new BalanceDelta(amount.negate(), BigDecimal.ZERO), BalanceDelta::plus);
+                deltas.merge(transfer.getToAccountId(), new BalanceDelta(amount, amount), BalanceDelta::plus);
+                postings.add(new Posting(transfer.getTransactionId(), transfer.getFromAccountId(), transfer.getToAccountId(), amount));
+            } else {
+                deltas.merge(transfer.getFromAccountId(), new BalanceDelta(BigDecimal.ZERO, amount), BalanceDelta::plus);
+                spendLimitService.release(transfer.getFromAccountId(), amount, transfer.getCreatedAt());
+            }
+            accountHoldIndex.release(transfer.getFromAccountId(), transfer.getTransactionId());
+            interacClaimIndex.remove(transfer.getTransactionId());
+            settled.add(decision);
+        }
+    }
+}
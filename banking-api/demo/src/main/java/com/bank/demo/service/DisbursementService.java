@@ -0,0 +1,234 @@
+package com.bank.demo.service;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.bank.demo.Dtos.TransferRequestDto.BatchTransferResult;
+import com.bank.demo.Dtos.TransferRequestDto.DisbursementItem;
+import com.bank.demo.Dtos.TransferRequestDto.DisbursementRequest;
+import com.bank.demo.Dtos.TransferRequestDto.DisbursementResponse;
+import com.bank.demo.exceptions.InsufficientFundsException;
+import com.bank.demo.exceptions.SpendLimitExceededException;
+import com.bank.demo.model.Account;
+import com.bank.demo.model.Transaction;
+import com.bank.demo.model.enums.AccountType;
+import com.bank.demo.model.enums.TransactionStatus;
+import com.bank.demo.model.enums.TransactionType;
+import com.bank.demo.repository.AccountBatchRepository;
+import com.bank.demo.repository.AccountBatchRepository.BalanceDelta;
+import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.LedgerRepository.Posting;
+import com.bank.demo.repository.TransactionBatchRepository;
+import com.bank.demo.utils.InteracReferenceGenerator;
+import com.bank.demo.utils.TimeOrderedUuid;
+
+/**
+ * One-to-many payments (payroll): up to max-items recipients paid from one account in a single
+ * DB transaction. The sender is locked and debited once for the total with a conditional update;
+ * every recipient gets one relative balance update (JDBC batch) and the COMPLETED transfer rows
+ * and their ledger entries go out as JDBC batches. All account rows, the sender's included, are
+ * updated in account id order, so concurrent disbursements never deadlock on each other.
+ * Recipients are not locked in memory: their relative updates cannot lose a concurrent change.
+ * Each payment counts against the sender's card spending limits on its own, as in a batch: the
+ * ones past the limit fail and the rest are still paid, instead of the total failing the call.
+ */
+@Service
+public class DisbursementService {
+
+    private final AccountRepository accountRepository;
+    private final AccountBatchRepository accountBatchRepository;
+    private final TransactionBatchRepository transactionBatchRepository;
+    private final TransferExecutionEngine transferExecutionEngine;
+    private final LedgerService ledgerService;
+    private final TransferPricingService transferPricingService;
+    private final SpendLimitService spendLimitService;
+    private final InteracReferenceGenerator interacReferenceGenerator;
+    private final int maxItems;
+
+    public DisbursementService(AccountRepository accountRepository,
+                               AccountBatchRepository accountBatchRepository,
+                               TransactionBatchRepository transactionBatchRepository,
+                               TransferExecutionEngine transferExecutionEngine,
+                               LedgerService ledgerService,
+                               TransferPricingService transferPricingService,
+                               SpendLimitService spendLimitService,
+                               InteracReferenceGenerator interacReferenceGenerator,
+                               @Value("${banking.disbursement.max-items:10000}") int maxItems) {
+        this.accountRepository = accountRepository;
+        this.accountBatchRepository = accountBatchRepository;
+        this.transactionBatchRepository = transactionBatchRepository;
+        this.transferExecutionEngine = transferExecutionEngine;
+        this.ledgerService = ledgerService;
+        this.transferPricingService = transferPricingService;
+        this.spendLimitService = spendLimitService;
+        this.interacReferenceGenerator = interacReferenceGenerator;
+        this.maxItems = maxItems;
+    }
+
+    // Items that cannot be paid (unknown recipient, bad amount, over the spending limit) fail on their own;
+    // not enough funds for the total fails the call
+    public DisbursementResponse disburse(DisbursementRequest request) throws InsufficientFundsException {
+        List<DisbursementItem> payments = request.getPayments();
+        if (payments == null || payments.isEmpty()) {
+            throw new IllegalArgumentException("Disbursement must contain at least one payment");
+        }
+        if (payments.size() > maxItems) {
+            throw new IllegalArgumentException("Disbursement cannot contain more than " + maxItems + " payments");
+        }
+        TransactionType type;
+        try {
+            type = TransactionType.valueOf(String.valueOf(request.getTransactionType()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown transaction type: " + request.getTransactionType());
+        }
+        UUID fromAccountId = accountRepository.findIdByAccountNumber(request.getFromAccountNumber())
+            .orElseThrow(() -> new IllegalArgumentException("FromAccount not found"));
+        System.out.println("--> disburse() called from " + request.getFromAccountNumber() + " with " + payments.size() + " payments");
+
+        // Resolve every recipient in one query
+        Set<String> accountNumbers = new HashSet<>();
+        payments.forEach(p -> {
+            if (p != null && p.getToAccountNumber() != null) {
+                accountNumbers.add(p.getToAccountNumber());
+            }
+        });
+        Map<String, UUID> recipientIds = new HashMap<>();
+        accountRepository.findIdsByAccountNumberIn(accountNumbers).forEach(a -> recipientIds.put(a.getAccountNumber(), a.getId()));
+
+        BatchTransferResult[] validated = new BatchTransferResult[payments.size()];
+        UUID[] toAccountIds = new UUID[payments.size()];
+        for (int i = 0; i < payments.size(); i++) {
+            DisbursementItem payment = payments.get(i);
+            String error = validate(payment, recipientIds, fromAccountId);
+            if (error != null) {
+                validated[i] = result(i, null, "FAILED", error);
+            } else {
+                toAccountIds[i] = recipientIds.get(payment.getToAccountNumber());
+            }
+        }
+
+        // The engine may run the work again after a lock failure: each attempt starts from the validated results
+        BatchTransferResult[] results = transferExecutionEngine.execute("disburse", List.of(fromAccountId),
+            () -> pay(request, type, fromAccountId, toAccountIds, validated.clone()));
+
+        DisbursementResponse response = new DisbursementResponse();
+        response.setResults(Arrays.asList(results));
+        response.setTotal(results.length);
+        BigDecimal total = BigDecimal.ZERO;
+        int succeeded = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (!"FAILED".equals(results[i].getStatus())) {
+                total = total.add(BigDecimal.valueOf(payments.get(i).getAmount()));
+                succeeded++;
+            }
+        }
+        response.setSucceeded(succeeded);
+        response.setFailed(results.length - succeeded);
+        response.setTotalAmount(total);
+        System.out.println("--> disburse() done: " + succeeded + " paid, " + response.getFailed() + " failed, total " + total);
+        return response;
+    }
+
+    private BatchTransferResult[] pay(DisbursementRequest request, TransactionType type, UUID fromAccountId,
+                                      UUID[] toAccountIds, BatchTransferResult[] results) throws InsufficientFundsException {
+        List<DisbursementItem> payments = request.getPayments();
+        Account fromAccount = accountRepository.getReferenceById(fromAccountId);
+        AccountType senderType = fromAccount.getAccountType();
+        OffsetDateTime now = OffsetDateTime.now();
+
+        // Rows are built, priced and counted against the limits before any balance moves, so an item rejected
+        // there only fails itself. A reserved amount is given back if the transaction rolls back
+        SortedMap<UUID, BalanceDelta> credits = new TreeMap<>();
+        BigDecimal total = BigDecimal.ZERO;
+        List<Transaction> rows = new ArrayList<>();
+        List<Posting> postings = new ArrayList<>();
+        for (int i = 0; i < payments.size(); i++) {
+            if (toAccountIds[i] == null) {
+                continue;
+            }
+            DisbursementItem payment = payments.get(i);
+            BigDecimal amount = BigDecimal.valueOf(payment.getAmount());
+            Transaction transaction = new Transaction();
+            transaction.setFromAccount(fromAccount);
+            transaction.setToAccount(accountRepository.getReferenceById(toAccountIds[i]));
+            transaction.setTransactionType(type);
+            transaction.setAmount(amount);
+            if (request.getCurrency() != null) {
+                transaction.setCurrency(request.getCurrency());
+            }
+            transaction.setDescription(payment.getDescription() != null ? payment.getDescription() : request.getDescription());
+            try {
+                transferPricingService.price(transaction, senderType);
+                spendLimitService.reserve(fromAccountId, amount);
+            } catch (IllegalArgumentException | SpendLimitExceededException e) {
+                results[i] = result(i, null, "FAILED", e.getMessage());
+                continue;
+            }
+            transaction.setTransactionId(TimeOrderedUuid.next());
+            transaction.setReferenceNumber(interacReferenceGenerator.next());
+            transaction.setTransactionStatus(TransactionStatus.COMPLETED);
+            transaction.setProcessedAt(now);
+            transaction.setCreatedAt(now);
+            transaction.setUpdatedAt(now);
+            rows.add(transaction);
+            postings.add(new Posting(transaction.getTransactionId(), fromAccountId, toAccountIds[i], amount));
+            credits.merge(toAccountIds[i], new BalanceDelta(amount, amount), BalanceDelta::plus);
+            total = total.add(amount);
+            results[i] = result(i, transaction.getTransactionId(), "COMPLETED", "Payment deposited.");
+            results[i].setInteracReferenceId(transaction.getReferenceNumber());
+        }
+        if (rows.isEmpty()) {
+            return results;
+        }
+
+        BigDecimal debit = total;
+        // Account id order across the whole statement sequence: recipients below the sender, the sender, the rest
+        accountBatchRepository.applyDeltas(credits.headMap(fromAccountId));
+        accountRepository.debitIfAvailable(fromAccountId, debit)
+            .orElseThrow(() -> new InsufficientFundsException("Not enough balance to pay " + debit));
+        accountBatchRepository.applyDeltas(credits.tailMap(fromAccountId));
+
+        transactionBatchRepository.insertAll(rows);
+        ledgerService.post(postings);
+        return results;
+    }
+
+    private static String validate(DisbursementItem payment, Map<String, UUID> recipientIds, UUID fromAccountId) {
+        if (payment == null) {
+            return "Payment is empty";
+        }
+        UUID toId = recipientIds.get(payment.getToAccountNumber());
+        if (toId == null) {
+            return "Recipient Account not found";
+        }
+        if (toId.equals(fromAccountId)) {
+            return "Cannot transfer to the same account";
+        }
+        if (!(payment.getAmount() > 0)) {
+            return "Amount must be positive";
+        }
+        return null;
+    }
+
+    private static BatchTransferResult result(int index, UUID transactionId, String status, String message) {
+        BatchTransferResult result = new BatchTransferResult();
+        result.setIndex(index);
+        result.setTransactionId(transactionId);
+        result.setStatus(status);
+        result.setMessage(message);
+        return result;
+    }
+}
@@ -0,0 +1,215 @@
+package com.bank.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.bank.demo.exceptions.IdempotencyConflictException;
+import com.bank.demo.exceptions.InvalidIdempotencyKeyException;
+import com.bank.demo.model.IdempotencyKey;
+import com.bank.demo.repository.IdempotencyKeyRepository;
+import com.bank.demo.service.TransferExecutionEngine.TransferWork;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Replays the stored response of a money movement request when a client retries it
+ * with the same Idempotency-Key. The key is claimed in idempotency_keys before the
+ * request runs, so across every node only one request per key ever moves money; a
+ * duplicate on the same node waits for the first one and replays its response, a
+ * duplicate elsewhere gets 409 while the claim is in progress. Stored responses are
+ * looked up in a bounded in-memory LRU first and the table second, so a retry never
+ * reaches the account repositories. A request that fails gives its claim back and can
+ * be retried as is; one whose node died before storing the outcome keeps its key
+ * claimed until it expires, since the money may have moved.
+ */
+@Service
+public class IdempotencyService {
+
+    // Stored as endpoint:email:key in a VARCHAR(255): the longest endpoint and a 100 character email leave room for 128
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private record StoredResponse(String requestHash, String responseBody, OffsetDateTime expiresAt) {}
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final long ttlHours;
+    private final Map<String, StoredResponse> cache;
+    // Requests currently executing, so a duplicate arriving in parallel waits for the first one
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${banking.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${banking.idempotency.cache-size:10000}") int cacheSize) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.ttlHours = ttlHours;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, StoredResponse>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public <T, E extends Exception> T execute(String scope, String idempotencyKey, Object request,
+                                              Class<T> responseType, TransferWork<T, E> action) throws E {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.run();
+        }
+        String key = idempotencyKey.trim();
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = scope + ":" + key;
+        String requestHash = hash(request);
+
+        while (true) {
+            Optional<StoredResponse> stored = lookup(id);
+            if (stored.isPresent() && stored.get().responseBody() != null) {
+                System.out.println("--> Idempotency-Key replay for " + id);
+                return replay(stored.get(), requestHash, responseType);
+            }
+
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(id, mine);
+            if (running != null) {
+                StoredResponse first = awaitFirst(running);
+                if (first != null) {
+                    return replay(first, requestHash, responseType);
+                }
+                // The first attempt failed and stored nothing: run this one
+                continue;
+            }
+
+            boolean claimed = false;
+            StoredResponse saved = null;
+            try {
+                if (stored.isPresent()) {
+                    // Claimed by another node, or by one that died before storing the outcome
+                    throw inProgress(stored.get(), requestHash);
+                }
+                OffsetDateTime now = OffsetDateTime.now();
+                if (idempotencyKeyRepository.claim(id, requestHash, now, now.plusHours(ttlHours)) == 0) {
+                    // Claimed since the lookup: look again
+                    continue;
+                }
+                claimed = true;
+                T response = action.run();
+                saved = store(id, requestHash, response);
+                return response;
+            } finally {
+                if (claimed && saved == null) {
+                    release(id);
+                }
+                mine.complete(saved);
+                inFlight.remove(id, mine);
+            }
+        }
+    }
+
+    // Expired keys are only there to answer late retries; drop them hourly
+    @Scheduled(fixedRate = 3600000)
+    public void purgeExpiredKeys() {
+        int deleted = idempotencyKeyRepository.deleteExpired(OffsetDateTime.now());
+        System.out.println("🧹 Expired idempotency keys cleaned up: " + deleted);
+    }
+
+    // A stored response, or a claim without one (responseBody null)
+    private Optional<StoredResponse> lookup(String id) {
+        OffsetDateTime now = OffsetDateTime.now();
+        StoredResponse cached = cache.get(id);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return Optional.of(cached);
+        }
+        Optional<StoredResponse> durable = idempotencyKeyRepository.findById(id)
+            .filter(k -> k.getExpiresAt().isAfter(now))
+            .map(k -> new StoredResponse(k.getRequestHash(), k.getResponseBody(), k.getExpiresAt()));
+        durable.filter(d -> d.responseBody() != null).ifPresent(d -> cache.put(id, d));
+        return durable;
+    }
+
+    private StoredResponse store(String id, String requestHash, Object response) {
+        StoredResponse stored = new StoredResponse(requestHash, toJson(response), OffsetDateTime.now().plusHours(ttlHours));
+        cache.put(id, stored);
+        try {
+            idempotencyKeyRepository.complete(id, stored.responseBody());
+        } catch (RuntimeException e) {
+            // The money already moved: report success and keep the in-memory copy. The key stays claimed, so other
+            // nodes answer 409 instead of running the request again
+            System.err.println("--> Could not persist idempotency key " + id + ": " + e.getMessage());
+        }
+        return stored;
+    }
+
+    private void release(String id) {
+        try {
+            idempotencyKeyRepository.release(id);
+        } catch (RuntimeException e) {
+            // Retries get 409 until the key expires: safer than running the request twice
+            System.err.println("--> Could not release idempotency key " + id + ": " + e.getMessage());
+        }
+    }
+
+    private static IdempotencyConflictException inProgress(StoredResponse claim, String requestHash) {
+        if (!claim.requestHash().equals(requestHash)) {
+            return new IdempotencyConflictException("Idempotency-Key was already used with a different request");
+        }
+        return new IdempotencyConflictException("A request with this Idempotency-Key is in progress or its outcome is unknown");
+    }
+
+    private <T> T replay(StoredResponse stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IdempotencyConflictException("Idempotency-Key was already used with a different request");
+        }
+        try {
+            return objectMapper.readValue(stored.responseBody(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response cannot be read", e);
+        }
+    }
+
+    private StoredResponse awaitFirst(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original request", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Original request with this Idempotency-Key is still running", e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(toJson(request).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Error converting value to JSON", e);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.bank.demo.service;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.bank.demo.repository.InteracClaimRepository;
+import com.bank.demo.repository.InteracClaimRepository.OpenClaimRow;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Interac transfers waiting to be claimed, by Interac reference and by normalized recipient email
+ * and phone: listing or claiming a transfer is a hash lookup instead of a scan of the PENDING
+ * transactions. Like AccountHoldIndex it is rebuilt from the DB at startup and only changes once
+ * the DB transaction that sent, claimed or cancelled a transfer has committed.
+ */
+@Service
+public class InteracClaimIndex {
+
+    public static final class OpenClaim {
+        private final UUID transactionId;
+        private final OffsetDateTime createdAt;
+        private final String referenceNumber;
+        private final UUID fromAccountId;
+        private final BigDecimal amount;
+        private final String currency;
+        private final String recipientEmail;
+        private final String recipientPhone;
+        private final String securityQuestion;
+        private final String securityAnswerHash;
+        // Failed answers plus the ones being verified right now
+        private final AtomicInteger attempts;
+
+        public OpenClaim(UUID transactionId, OffsetDateTime createdAt, String referenceNumber, UUID fromAccountId,
+                         BigDecimal amount, String currency, String recipientEmail, String recipientPhone,
+                         String securityQuestion, String securityAnswerHash, int failedAttempts) {
+            this.transactionId = transactionId;
+            this.createdAt = createdAt;
+            this.referenceNumber = referenceNumber;
+            this.fromAccountId = fromAccountId;
+            this.amount = amount;
+            this.currency = currency;
+            this.recipientEmail = recipientEmail;
+            this.recipientPhone = recipientPhone;
+            this.securityQuestion = securityQuestion;
+            this.securityAnswerHash = securityAnswerHash;
+            this.attempts = new AtomicInteger(failedAttempts);
+        }
+
+        public UUID getTransactionId() { return transactionId; }
+        public OffsetDateTime getCreatedAt() { return createdAt; }
+        public String getReferenceNumber() { return referenceNumber; }
+        public UUID getFromAccountId() { return fromAccountId; }
+        public BigDecimal getAmount() { return amount; }
+        public String getCurrency() { return currency; }
+        public String getSecurityQuestion() { return securityQuestion; }
+        public String getSecurityAnswerHash() { return securityAnswerHash; }
+
+        // Recipients are given by normalized contacts (InteracContacts)
+        public boolean isFor(String email, String phone) {
+            return (email != null && email.equals(recipientEmail)) || (phone != null && phone.equals(recipientPhone));
+        }
+
+        // Takes one of the maxAttempts answers this transfer allows; false once they are all used or in flight
+        public boolean tryBeginAttempt(int maxAttempts) {
+            while (true) {
+                int current = attempts.get();
+                if (current >= maxAttempts) {
+                    return false;
+                }
+                if (attempts.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        // The attempt did not count against the transfer: the answer was right, or it was never verified
+        public void cancelAttempt() {
+            attempts.decrementAndGet();
+        }
+
+        public int getAttempts() {
+            return attempts.get();
+        }
+    }
+
+    private final InteracClaimRepository interacClaimRepository;
+    private final ConcurrentHashMap<UUID, OpenClaim> claims = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, UUID> byReference = new ConcurrentHashMap<>();
+    // normalized email or phone -> transaction ids
+    private final ConcurrentHashMap<String, Set<UUID>> byContact = new ConcurrentHashMap<>();
+
+    public InteracClaimIndex(InteracClaimRepository interacClaimRepository) {
+        this.interacClaimRepository = interacClaimRepository;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        claims.clear();
+        byReference.clear();
+        byContact.clear();
+        interacClaimRepository.forEachOpenClaim(this::addRow);
+        System.out.println("--> Interac claim index rebuilt: " + claims.size() + " transfers waiting to be claimed");
+    }
+
+    public void add(OpenClaim claim) {
+        afterCommit(() -> addNow(claim));
+    }
+
+    // No-op for transfers that are not in the index, so every settled transfer can go through it
+    public void remove(UUID transactionId) {
+        afterCommit(() -> removeNow(transactionId));
+    }
+
+    public OpenClaim findByReference(String referenceNumber) {
+        UUID transactionId = byReference.get(referenceNumber);
+        return transactionId == null ? null : claims.get(transactionId);
+    }
+
+    // Transfers waiting for the owner of the email or phone (normalized, either may be null), oldest first
+    public List<OpenClaim> findByRecipient(String email, String phone) {
+        List<OpenClaim> found = new ArrayList<>();
+        for (String contact : new String[] { email, phone }) {
+            if (contact == null) {
+                continue;
+            }
+            for (UUID transactionId : byContact.getOrDefault(contact, Set.of())) {
+                OpenClaim claim = claims.get(transactionId);
+                if (claim != null && !found.contains(claim)) {
+                    found.add(claim);
+                }
+            }
+        }
+        found.sort(Comparator.comparing(OpenClaim::getCreatedAt));
+        return found;
+    }
+
+    public int size() {
+        return claims.size();
+    }
+
+    private void addRow(OpenClaimRow row) {
+        addNow(new OpenClaim(row.transactionId(), row.createdAt(), row.referenceNumber(), row.fromAccountId(),
+            row.amount(), row.currency(), row.recipientEmail(), row.recipientPhone(), row.securityQuestion(),
+            row.securityAnswerHash(), row.failedAttempts()));
+    }
+
+    private void addNow(OpenClaim claim) {
+        claims.put(claim.transactionId, claim);
+        byReference.put(claim.referenceNumber, claim.transactionId);
+        for (String contact : new String[] { claim.recipientEmail, claim.recipientPhone }) {
+            if (contact != null) {
+                byContact.compute(contact, (c, ids) -> {
+                    Set<UUID> updated = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                    updated.add(claim.transactionId);
+                    return updated;
+                });
+            }
+        }
+    }
+
+    private void removeNow(UUID transactionId) {
+        OpenClaim claim = claims.remove(transactionId);
+        if (claim == null) {
+            return;
+        }
+        byReference.remove(claim.referenceNumber, transactionId);
+        for (String contact : new String[] { claim.recipientEmail, claim.recipientPhone }) {
+            if (contact != null) {
+                byContact.computeIfPresent(contact, (c, ids) -> {
+                    ids.remove(transactionId);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    // A rolled back transfer must leave the index untouched
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,288 @@
+package com.bank.demo.service;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.bank.demo.Dtos.TransferRequestDto.ClaimRequest;
+import com.bank.demo.Dtos.TransferRequestDto.ClaimableTransfer;
+import com.bank.demo.Dtos.TransferRequestDto.ReceiveMoneyResponse;
+import com.bank.demo.Dtos.TransferRequestDto.TransferRequest;
+import com.bank.demo.exceptions.ClaimVerificationBusyException;
+import com.bank.demo.exceptions.InsufficientFundsException;
+import com.bank.demo.mapper.TransactionMapper;
+import com.bank.demo.model.Account;
+import com.bank.demo.model.Transaction;
+import com.bank.demo.model.User;
+import com.bank.demo.model.enums.TransactionStatus;
+import com.bank.demo.model.enums.TransactionType;
+import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.InteracClaimRepository;
+import com.bank.demo.repository.LedgerRepository.Posting;
+import com.bank.demo.repository.Userepository;
+import com.bank.demo.repository.transactionRepository;
+import com.bank.demo.service.InteracClaimIndex.OpenClaim;
+import com.bank.demo.utils.InteracContacts;
+import com.bank.demo.utils.TimeOrderedUuid;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Interac transfers sent to an email address or phone number. Sending holds the amount on the
+ * sender like any transfer, but the transfer has no recipient account until the owner of the
+ * email or phone claims it with the answer to the security question. Recipients are found
+ * through InteracClaimIndex, never by scanning transactions. Answers are only kept as BCrypt
+ * hashes, and hashing and verification run on a small bounded pool: a flood of claims makes
+ * the extra callers fail fast with 503 instead of tying up every request thread in BCrypt.
+ * A transfer takes max-attempts wrong answers, after which it can only expire.
+ */
+@Service
+public class InteracClaimService {
+
+    private final AccountRepository accountRepository;
+    private final transactionRepository transactionRepository;
+    private final Userepository userRepository;
+    private final InteracClaimRepository interacClaimRepository;
+    private final InteracClaimIndex interacClaimIndex;
+    private final TransferExecutionEngine transferExecutionEngine;
+    private final AccountHoldIndex accountHoldIndex;
+    private final LedgerService ledgerService;
+    private final TransferPricingService transferPricingService;
+    private final SpendLimitService spendLimitService;
+    private final PasswordEncoder passwordEncoder;
+    private final int maxAttempts;
+    private final long verifyTimeoutMs;
+    private final ThreadPoolExecutor verifier;
+    private final Counter rejectedCounter;
+    private final Counter wrongAnswerCounter;
+
+    public InteracClaimService(AccountRepository accountRepository,
+                               transactionRepository transactionRepository,
+                               Userepository userRepository,
+                               InteracClaimRepository interacClaimRepository,
+                               InteracClaimIndex interacClaimIndex,
+                               TransferExecutionEngine transferExecutionEngine,
+                               AccountHoldIndex accountHoldIndex,
+                               LedgerService ledgerService,
+                               TransferPricingService transferPricingService,
+                               SpendLimitService spendLimitService,
+                               PasswordEncoder passwordEncoder,
+                               MeterRegistry meterRegistry,
+                               @Value("${banking.interac.verify-threads:4}") int verifyThreads,
+                               @Value("${banking.interac.verify-queue:64}") int verifyQueue,
+                               @Value("${banking.interac.verify-timeout-ms:5000}") long verifyTimeoutMs,
+                               @Value("${banking.interac.max-attempts:3}") int maxAttempts) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.userRepository = userRepository;
+        this.interacClaimRepository = interacClaimRepository;
+        this.interacClaimIndex = interacClaimIndex;
+        this.transferExecutionEngine = transferExecutionEngine;
+        this.accountHoldIndex = accountHoldIndex;
+        this.ledgerService = ledgerService;
+        this.transferPricingService = transferPricingService;
+        this.spendLimitService = spendLimitService;
+        this.passwordEncoder = passwordEncoder;
+        this.maxAttempts = maxAttempts;
+        this.verifyTimeoutMs = verifyTimeoutMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.verifier = new ThreadPoolExecutor(verifyThreads, verifyThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(verifyQueue), r -> {
+                Thread thread = new Thread(r, "interac-verify-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        this.rejectedCounter = Counter.builder("banking.interac.verify-rejected").register(meterRegistry);
+        this.wrongAnswerCounter = Counter.builder("banking.interac.wrong-answers").register(meterRegistry);
+        Gauge.builder("banking.interac.open-claims", interacClaimIndex, InteracClaimIndex::size).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        verifier.shutdownNow();
+    }
+
+    // Sent to an email or phone number instead of an account
+    public static boolean isClaimTransfer(TransferRequest request) {
+        return (request.getToAccountNumber() == null || request.getToAccountNumber().isBlank())
+            && (InteracContacts.email(request.getRecipientEmail()) != null
+                || InteracContacts.phone(request.getRecipientphoneNumber()) != null);
+    }
+
+    // Holds the amount on the sender and records who can claim it; returns the transaction id
+    public UUID send(TransferRequest request, String reference) throws InsufficientFundsException {
+        String email = InteracContacts.email(request.getRecipientEmail());
+        String phone = InteracContacts.phone(request.getRecipientphoneNumber());
+        String answer = InteracContacts.answer(request.getSecurityAnswer());
+        String question = request.getSecurityQuestion();
+        if (question == null || question.isBlank() || answer == null) {
+            throw new IllegalArgumentException("Security question and answer are required");
+        }
+        if (!(request.getAmount() > 0)) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        TransactionType typeEnum = TransactionType.valueOf(request.getTransactionType());
+        UUID fromAccountId = accountRepository.findIdByAccountNumber(request.getFromAccountNumber())
+            .orElseThrow(() -> new IllegalArgumentException("FromAccount not found"));
+        BigDecimal requestAmount = BigDecimal.valueOf(request.getAmount());
+        // Hashed before any lock is taken
+        String answerHash = onVerifier(() -> passwordEncoder.encode(answer));
+
+        Transaction transaction = transferExecutionEngine.execute("send-interac", List.of(fromAccountId), () -> {
+            Account fromAccount = accountRepository.findById(fromAccountId)
+                .orElseThrow(() -> new IllegalArgumentException("FromAccount not found"));
+            if (fromAccount.getAvailableBalance().compareTo(requestAmount) < 0) {
+                throw new InsufficientFundsException("Not enough balance to complete transfer");
+            }
+            spendLimitService.reserve(fromAccountId, requestAmount);
+            fromAccount.setAvailableBalance(fromAccount.getAvailableBalance().subtract(requestAmount));
+
+            Transaction pending = TransactionMapper.toEntity(request, fromAccount, null, typeEnum);
+            transferPricingService.price(pending, fromAccount.getAccountType());
+            pending.setTransactionId(TimeOrderedUuid.next());
+            pending.setReferenceNumber(reference);
+            // Truncated to what the column keeps, the index looks the row up by it
+            pending.setCreatedAt(OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS));
+            Transaction saved = transactionRepository.save(pending);
+            interacClaimRepository.insert(saved.getTransactionId(), saved.getCreatedAt(), email, phone, question, answerHash);
+            accountHoldIndex.place(fromAccountId, saved.getTransactionId(), requestAmount);
+            interacClaimIndex.add(new OpenClaim(saved.getTransactionId(), saved.getCreatedAt(), reference, fromAccountId,
+                requestAmount, saved.getCurrency(), email, phone, question, answerHash, 0));
+            return saved;
+        });
+        System.out.println("--> Interac transfer " + reference + " sent to " + (email != null ? email : phone));
+        return transaction.getTransactionId();
+    }
+
+    // Transfers waiting for the connected user, matched on their email and phone
+    public List<ClaimableTransfer> claimable() {
+        User user = connectedUser();
+        return interacClaimIndex.findByRecipient(InteracContacts.email(user.getEmail()), InteracContacts.phone(user.getPhone()))
+            .stream().map(claim -> {
+                ClaimableTransfer transfer = new ClaimableTransfer();
+                transfer.setInteracReferenceId(claim.getReferenceNumber());
+                transfer.setAmount(claim.getAmount().doubleValue());
+                transfer.setCurrency(claim.getCurrency());
+                transfer.setSecurityQuestion(claim.getSecurityQuestion());
+                transfer.setSentAt(claim.getCreatedAt());
+                return transfer;
+            }).toList();
+    }
+
+    public ReceiveMoneyResponse claim(ClaimRequest request) {
+        User user = connectedUser();
+        OpenClaim claim = request.getInteracReferenceId() == null ? null : interacClaimIndex.findByReference(request.getInteracReferenceId());
+        // Unknown reference or someone else's transfer: same answer, and no hash is ever checked for it
+        if (claim == null || !claim.isFor(InteracContacts.email(user.getEmail()), InteracContacts.phone(user.getPhone()))) {
+            throw new IllegalArgumentException("No claimable transfer found");
+        }
+        String answer = InteracContacts.answer(request.getSecurityAnswer());
+        if (answer == null) {
+            throw new IllegalArgumentException("Security answer is required");
+        }
+        // Only the id here, as in sendMoney: the recipient account is read once the locks are held
+        UUID toAccountId = accountRepository.findIdByAccountNumberAndUserId(request.getToAccountNumber(), user.getId())
+            .orElseThrow(() -> new IllegalArgumentException("Recipient Account not found"));
+        if (toAccountId.equals(claim.getFromAccountId())) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
+        }
+
+        if (!claim.tryBeginAttempt(maxAttempts)) {
+            throw new SecurityException("Too many wrong answers, this transfer can no longer be claimed");
+        }
+        boolean correct;
+        try {
+            correct = onVerifier(() -> passwordEncoder.matches(answer, claim.getSecurityAnswerHash()));
+        } catch (RuntimeException e) {
+            claim.cancelAttempt();
+            throw e;
+        }
+        if (!correct) {
+            wrongAnswerCounter.increment();
+            interacClaimRepository.recordFailedAttempts(claim.getTransactionId(), claim.getAttempts());
+            throw new SecurityException("Wrong security answer");
+        }
+        claim.cancelAttempt();
+
+        Transaction transaction = transferExecutionEngine.execute("claim", claim.getFromAccountId(), toAccountId, () -> {
+            Transaction pending = transactionRepository.findByTransactionIdAndCreatedAt(claim.getTransactionId(), claim.getCreatedAt())
+                .orElseThrow(() -> new IllegalArgumentException("No claimable transfer found"));
+            // Expired, or claimed on another instance while we waited for the locks
+            if (pending.getTransactionStatus() != TransactionStatus.PENDING
+                    || !interacClaimRepository.markClaimed(pending.getTransactionId(), OffsetDateTime.now())) {
+                throw new IllegalStateException("This transfer is no longer pending");
+            }
+            Account recipient = accountRepository.findById(toAccountId)
+                .orElseThrow(() -> new IllegalArgumentException("Recipient Account not found"));
+            Account sender = pending.getFromAccount();
+            // Same movements as accepting a transfer: the hold leaves the sender's balance, the recipient gets both columns
+            sender.setBalance(sender.getBalance().subtract(pending.getAmount()));
+            recipient.setBalance(recipient.getBalance().add(pending.getAmount()));
+            recipient.setAvailableBalance(recipient.getAvailableBalance().add(pending.getAmount()));
+            pending.setToAccount(recipient);
+            pending.setTransactionStatus(TransactionStatus.COMPLETED);
+            pending.setProcessedAt(OffsetDateTime.now());
+            ledgerService.post(List.of(new Posting(pending.getTransactionId(), sender.getId(), recipient.getId(), pending.getAmount())));
+            accountHoldIndex.release(sender.getId(), pending.getTransactionId());
+            interacClaimIndex.remove(pending.getTransactionId());
+            return transactionRepository.save(pending);
+        });
+
+        ReceiveMoneyResponse response = new ReceiveMoneyResponse();
+        response.setTransactionId(transaction.getTransactionId());
+        response.setAmount(transaction.getAmount().doubleValue());
+        response.setStatus(transaction.getTransactionStatus().name());
+        response.setMessage("Funds received successfully.");
+        return response;
+    }
+
+    private User connectedUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        return userRepository.findByEmail(email).orElseThrow(() -> new IllegalArgumentException("User not found"));
+    }
+
+    // Runs a BCrypt operation on the verification pool; the caller waits for it, but only while the pool has room
+    private <T> T onVerifier(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = verifier.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ClaimVerificationBusyException("Too many security answers being verified, retry later");
+        }
+        try {
+            return future.get(verifyTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ClaimVerificationBusyException("Security answer verification timed out, retry later");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while verifying the security answer");
+        }
+    }
+}
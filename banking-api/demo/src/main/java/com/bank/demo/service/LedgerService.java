@@ -0,0 +1,51 @@
+package com.bank.demo.service;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.bank.demo.repository.LedgerRepository;
+import com.bank.demo.repository.LedgerRepository.LedgerBalance;
+import com.bank.demo.repository.LedgerRepository.Posting;
+
+/**
+ * Double-entry ledger. Every settled transfer posts a DEBIT on the sender and a CREDIT on the
+ * recipient in the same DB transaction that moves accounts.balance, so the balance column is the
+ * running total of the account's entries. Snapshots taken every snapshot-interval-ms let an
+ * account's balance be rebuilt from its latest snapshot plus the few entries posted since.
+ */
+@Service
+public class LedgerService {
+
+    private final LedgerRepository ledgerRepository;
+    // Entries are stamped before their transaction commits: a snapshot only covers entries older than this lag
+    private final long snapshotLagMs;
+
+    public LedgerService(LedgerRepository ledgerRepository,
+                         @Value("${banking.ledger.snapshot-lag-ms:60000}") long snapshotLagMs) {
+        this.ledgerRepository = ledgerRepository;
+        this.snapshotLagMs = snapshotLagMs;
+    }
+
+    // Caller runs this inside the transaction that applies the same movements to the balances
+    public void post(List<Posting> postings) {
+        ledgerRepository.insertPostings(postings, OffsetDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${banking.ledger.snapshot-interval-ms:3600000}",
+               initialDelayString = "${banking.ledger.snapshot-lag-ms:60000}")
+    public void takeSnapshots() {
+        OffsetDateTime cutoff = OffsetDateTime.now().minusNanos(snapshotLagMs * 1_000_000);
+        int written = ledgerRepository.takeSnapshots(cutoff);
+        System.out.println("--> Ledger snapshots written as of " + cutoff + ": " + written);
+    }
+
+    public Optional<LedgerBalance> ledgerBalance(UUID accountId) {
+        return ledgerRepository.ledgerBalance(accountId);
+    }
+}
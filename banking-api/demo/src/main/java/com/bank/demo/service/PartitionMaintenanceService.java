@@ -0,0 +1,154 @@
+package com.bank.demo.service;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bank.demo.repository.PartitionRepository;
+import com.bank.demo.repository.PartitionRepository.Partition;
+import com.bank.demo.repository.PartitionRepository.PartitionStats;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Keeps the monthly partitions of transactions and ledger_entries ahead of time: at startup and then
+ * on a schedule, the current month and the next months-ahead ones are created with their indexes, so
+ * an insert never lands on a missing partition. Partitions entirely older than retention-months are
+ * detached (kept as plain tables for archiving). Estimated rows and total size of every partition are
+ * published as gauges.
+ */
+@Service
+public class PartitionMaintenanceService {
+
+    // Monthly range partitions on created_at, named <table>_yyyy_MM
+    private static final List<String> TABLES = List.of("transactions", "ledger_entries");
+
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final PartitionRepository partitionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Counter createdCounter;
+    private final Counter detachedCounter;
+    private final Counter failuresCounter;
+    private final MultiGauge rowsGauge;
+    private final MultiGauge bytesGauge;
+
+    public PartitionMaintenanceService(PartitionRepository partitionRepository,
+                                       TransactionTemplate transactionTemplate,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${banking.partitions.months-ahead:3}") int monthsAhead,
+                                       @Value("${banking.partitions.retention-months:0}") int retentionMonths) {
+        this.partitionRepository = partitionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.createdCounter = Counter.builder("banking.partitions.created").register(meterRegistry);
+        this.detachedCounter = Counter.builder("banking.partitions.detached").register(meterRegistry);
+        this.failuresCounter = Counter.builder("banking.partitions.failures").register(meterRegistry);
+        this.rowsGauge = MultiGauge.builder("banking.partitions.rows").description("Estimated rows").register(meterRegistry);
+        this.bytesGauge = MultiGauge.builder("banking.partitions.bytes").baseUnit("bytes").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        maintain(OffsetDateTime.now(ZoneOffset.UTC));
+    }
+
+    @Scheduled(fixedDelayString = "${banking.partitions.interval-ms:3600000}",
+               initialDelayString = "${banking.partitions.interval-ms:3600000}")
+    public void run() {
+        maintain(OffsetDateTime.now(ZoneOffset.UTC));
+    }
+
+    // A table that fails is logged and retried on the next run; the other one is still maintained
+    public void maintain(OffsetDateTime now) {
+        OffsetDateTime currentMonth = now.withOffsetSameInstant(ZoneOffset.UTC)
+            .withDayOfMonth(1).toLocalDate().atStartOfDay().atOffset(ZoneOffset.UTC);
+        for (String table : TABLES) {
+            try {
+                createAhead(table, currentMonth);
+                if (retentionMonths > 0) {
+                    detachExpired(table, currentMonth.minusMonths(retentionMonths));
+                }
+            } catch (DataAccessException e) {
+                failuresCounter.increment();
+                System.err.println("--> Partition maintenance of " + table + " failed: " + e.getMessage());
+            }
+        }
+        refreshStats();
+    }
+
+    private void createAhead(String table, OffsetDateTime currentMonth) {
+        Set<OffsetDateTime> existing = new HashSet<>();
+        partitionRepository.rangePartitions(table).forEach(p -> existing.add(p.from().toInstant().atOffset(ZoneOffset.UTC)));
+        for (int i = 0; i <= monthsAhead; i++) {
+            OffsetDateTime from = currentMonth.plusMonths(i);
+            if (existing.contains(from)) {
+                continue;
+            }
+            String name = table + "_" + SUFFIX_FORMAT.format(from);
+            Boolean created = transactionTemplate.execute(status -> {
+                partitionRepository.lockForMaintenance(table);
+                // Another instance may have created it while this one waited for the lock
+                if (partitionRepository.rangePartitions(table).stream().anyMatch(p -> p.from().isEqual(from))) {
+                    return false;
+                }
+                partitionRepository.createPartition(table, name, from, from.plusMonths(1));
+                return true;
+            });
+            if (Boolean.TRUE.equals(created)) {
+                createdCounter.increment();
+                System.out.println("--> Partition " + name + " created");
+            }
+        }
+    }
+
+    // Only partitions whose whole range is older than the cutoff; the detach runs outside any DB transaction
+    private void detachExpired(String table, OffsetDateTime cutoff) {
+        partitionRepository.finalizePendingDetaches(table);
+        for (Partition partition : partitionRepository.rangePartitions(table)) {
+            if (partition.to().isAfter(cutoff)) {
+                break;
+            }
+            partitionRepository.detachPartition(table, partition.name());
+            detachedCounter.increment();
+            System.out.println("--> Partition " + partition.name() + " detached (older than " + retentionMonths + " months)");
+        }
+    }
+
+    private void refreshStats() {
+        List<MultiGauge.Row<?>> rows = new ArrayList<>();
+        List<MultiGauge.Row<?>> bytes = new ArrayList<>();
+        for (String table : TABLES) {
+            try {
+                for (PartitionStats stats : partitionRepository.partitionStats(table)) {
+                    Tags tags = Tags.of("table", table, "partition", stats.name());
+                    rows.add(MultiGauge.Row.of(tags, stats.estimatedRows()));
+                    bytes.add(MultiGauge.Row.of(tags, stats.totalBytes()));
+                }
+            } catch (DataAccessException e) {
+                System.err.println("--> Partition stats of " + table + " failed: " + e.getMessage());
+            }
+        }
+        // Detached partitions disappear from the gauges
+        rowsGauge.register(rows, true);
+        bytesGauge.register(bytes, true);
+    }
+}
@@ -0,0 +1,115 @@
+package com.bank.demo.service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.bank.demo.repository.PartitionRepository;
+import com.bank.demo.repository.PartitionRepository.Partition;
+import com.bank.demo.repository.TransactionBatchRepository;
+import com.bank.demo.repository.transactionRepository.PendingSettlement;
+import com.bank.demo.service.BulkSettlementService.SettlementDecision;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Cancels PENDING transfers nobody accepted or declined within the TTL and gives the held amount
+ * back to the senders. Partitions are swept oldest first, one at a time, in chunks: each chunk is
+ * declined through BulkSettlementService, so it is one short DB transaction with batched status
+ * updates and one aggregated available_balance update per sender. Nothing is held between chunks,
+ * and a run stops after max-per-run transfers so a large backlog is worked off over several runs.
+ */
+@Service
+public class PendingExpiryService {
+
+    private final PartitionRepository partitionRepository;
+    private final TransactionBatchRepository transactionBatchRepository;
+    private final BulkSettlementService bulkSettlementService;
+    private final Duration ttl;
+    private final int chunkSize;
+    private final int maxPerRun;
+    private final Counter expiredCounter;
+    private final Counter failedChunksCounter;
+    private final Timer chunkTimer;
+
+    public PendingExpiryService(PartitionRepository partitionRepository,
+                                TransactionBatchRepository transactionBatchRepository,
+                                BulkSettlementService bulkSettlementService,
+                                MeterRegistry meterRegistry,
+                                @Value("${banking.pending-expiry.ttl-hours:72}") long ttlHours,
+                                @Value("${banking.pending-expiry.chunk-size:200}") int chunkSize,
+                                @Value("${banking.pending-expiry.max-per-run:50000}") int maxPerRun) {
+        this.partitionRepository = partitionRepository;
+        this.transactionBatchRepository = transactionBatchRepository;
+        this.bulkSettlementService = bulkSettlementService;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.chunkSize = chunkSize;
+        this.maxPerRun = maxPerRun;
+        this.expiredCounter = Counter.builder("banking.pending-expiry.expired").register(meterRegistry);
+        this.failedChunksCounter = Counter.builder("banking.pending-expiry.failed-chunks").register(meterRegistry);
+        this.chunkTimer = Timer.builder("banking.pending-expiry.chunk").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${banking.pending-expiry.interval-ms:300000}",
+               initialDelayString = "${banking.pending-expiry.interval-ms:300000}")
+    public void sweep() {
+        expireOlderThan(OffsetDateTime.now().minus(ttl));
+    }
+
+    // Returns the number of transfers cancelled
+    public int expireOlderThan(OffsetDateTime cutoff) {
+        long start = System.nanoTime();
+        int expired = 0;
+        for (Partition partition : partitionRepository.rangePartitions("transactions")) {
+            if (!partition.from().isBefore(cutoff) || expired >= maxPerRun) {
+                break;
+            }
+            OffsetDateTime to = partition.to().isBefore(cutoff) ? partition.to() : cutoff;
+            expired += expirePartition(partition, to, maxPerRun - expired);
+        }
+        if (expired > 0) {
+            double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+            System.out.printf("--> Pending expiry: %d transfers cancelled in %.2f s (%.0f/s)%n", expired, seconds, expired / seconds);
+        }
+        return expired;
+    }
+
+    private int expirePartition(Partition partition, OffsetDateTime to, int budget) {
+        int expired = 0;
+        while (expired < budget) {
+            List<PendingSettlement> chunk = transactionBatchRepository.findPendingCreatedBetween(
+                partition.from(), to, Math.min(chunkSize, budget - expired));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            long chunkStart = System.nanoTime();
+            int settled;
+            try {
+                settled = bulkSettlementService.settle("expire-pending",
+                    chunk.stream().map(t -> new SettlementDecision(t, false)).toList()).size();
+            } catch (RuntimeException e) {
+                // Left PENDING for the next run; the next partitions still get their turn
+                failedChunksCounter.increment();
+                System.err.println("--> Pending expiry of " + partition.name() + " failed on a chunk of " + chunk.size() + ": " + e.getMessage());
+                break;
+            }
+            chunkTimer.record(System.nanoTime() - chunkStart, TimeUnit.NANOSECONDS);
+            expiredCounter.increment(settled);
+            expired += settled;
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+        }
+        if (expired > 0) {
+            System.out.println("--> Pending expiry: " + expired + " transfers cancelled in " + partition.name());
+        }
+        return expired;
+    }
+}
@@ -0,0 +1,264 @@
+package com.bank.demo.service;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bank.demo.Dtos.TransferRequestDto.TransferRequest;
+import com.bank.demo.exceptions.SpendLimitExceededException;
+import com.bank.demo.mapper.TransactionMapper;
+import com.bank.demo.model.Account;
+import com.bank.demo.model.Transaction;
+import com.bank.demo.model.enums.TransactionStatus;
+import com.bank.demo.model.enums.TransactionType;
+import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.PartitionRepository;
+import com.bank.demo.repository.PartitionRepository.Partition;
+import com.bank.demo.repository.TransactionBatchRepository;
+import com.bank.demo.repository.transactionRepository;
+import com.bank.demo.repository.transactionRepository.PendingSettlement;
+import com.bank.demo.utils.HierarchicalTimingWheel;
+import com.bank.demo.utils.TimeOrderedUuid;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs transfers whose scheduledAt is in the future. They are stored as SCHEDULED rows with
+ * created_at = scheduledAt, so the ones due soon always live in the current or next monthly
+ * partition. Everything due by the end of the next month, overdue transfers left from a
+ * downtime included, is loaded into a hierarchical timing wheel at startup and every reload
+ * interval. One ticker thread advances the wheel and executes whatever came due in batches.
+ * A single DB transaction per batch claims the rows, places the holds exactly like sendMoney,
+ * counts them against the sender's spending limits, and marks the unfunded and over-limit
+ * ones FAILED.
+ */
+@Service
+public class ScheduledTransferService {
+
+    private static final long RETRY_DELAY_MS = 30_000;
+
+    private final AccountRepository accountRepository;
+    private final transactionRepository transactionRepository;
+    private final TransactionBatchRepository transactionBatchRepository;
+    private final TransferExecutionEngine transferExecutionEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountHoldIndex accountHoldIndex;
+    private final PartitionRepository partitionRepository;
+    private final TransferPricingService transferPricingService;
+    private final SpendLimitService spendLimitService;
+    private final long tickMs;
+    private final int batchSize;
+    private final HierarchicalTimingWheel<PendingSettlement> wheel;
+    // Transfers currently in the wheel, so a reload does not schedule them twice
+    private final Set<UUID> inWheel = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService ticker;
+
+    public ScheduledTransferService(AccountRepository accountRepository,
+                                    transactionRepository transactionRepository,
+                                    TransactionBatchRepository transactionBatchRepository,
+                                    TransferExecutionEngine transferExecutionEngine,
+                                    TransactionTemplate transactionTemplate,
+                                    AccountHoldIndex accountHoldIndex,
+                                    PartitionRepository partitionRepository,
+                                    TransferPricingService transferPricingService,
+                                    SpendLimitService spendLimitService,
+                                    @Value("${banking.scheduled-transfers.tick-ms:1000}") long tickMs,
+                                    @Value("${banking.scheduled-transfers.wheel-size:64}") int wheelSize,
+                                    @Value("${banking.scheduled-transfers.batch-size:500}") int batchSize) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionBatchRepository = transactionBatchRepository;
+        this.transferExecutionEngine = transferExecutionEngine;
+        this.transactionTemplate = transactionTemplate;
+        this.accountHoldIndex = accountHoldIndex;
+        this.partitionRepository = partitionRepository;
+        this.transferPricingService = transferPricingService;
+        this.spendLimitService = spendLimitService;
+        this.tickMs = tickMs;
+        this.batchSize = Math.max(1, batchSize);
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+    }
+
+    @PostConstruct
+    public void start() {
+        reload();
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "scheduled-transfers");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(() -> runDue(System.currentTimeMillis()), tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    // A transfer is deferred only if it is due after the next tick; anything sooner runs right away
+    public boolean isDeferred(TransferRequest request) {
+        return request.getScheduledAt() != null
+            && request.getScheduledAt().isAfter(OffsetDateTime.now().plus(tickMs, ChronoUnit.MILLIS));
+    }
+
+    // Stores the transfer as SCHEDULED without touching any balance; the hold is placed when it comes due
+    public UUID schedule(TransferRequest request, String reference) {
+        UUID fromAccountId = accountRepository.findIdByAccountNumber(request.getFromAccountNumber())
+            .orElseThrow(() -> new IllegalArgumentException("FromAccount not found"));
+        UUID toAccountId = accountRepository.findIdByAccountNumber(request.getToAccountNumber())
+            .orElseThrow(() -> new IllegalArgumentException("Recipient Account not found"));
+        if (fromAccountId.equals(toAccountId)) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
+        }
+        if (!(request.getAmount() > 0)) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        TransactionType typeEnum = TransactionType.valueOf(request.getTransactionType());
+        // The row goes in the partition of its execution date, and there is no default partition to catch the ones after
+        // the last partition created ahead (banking.partitions.months-ahead)
+        List<Partition> partitions = partitionRepository.rangePartitions("transactions");
+        OffsetDateTime latest = partitions.isEmpty() ? OffsetDateTime.now() : partitions.get(partitions.size() - 1).to();
+        if (!request.getScheduledAt().isBefore(latest)) {
+            throw new IllegalArgumentException("Transfers can only be scheduled before " + latest);
+        }
+
+        Transaction saved = transactionTemplate.execute(status -> {
+            Account fromAccount = accountRepository.getReferenceById(fromAccountId);
+            Transaction scheduled = TransactionMapper.toEntity(request, fromAccount, accountRepository.getReferenceById(toAccountId), typeEnum);
+            // Priced when scheduled: the transfer keeps the rate and fee it was accepted with
+            transferPricingService.price(scheduled, fromAccount.getAccountType());
+            scheduled.setTransactionId(TimeOrderedUuid.next());
+            scheduled.setReferenceNumber(reference);
+            scheduled.setTransactionStatus(TransactionStatus.SCHEDULED);
+            // Partitioned on the execution date, which is what recovery and pruning look at
+            scheduled.setCreatedAt(request.getScheduledAt());
+            return transactionRepository.save(scheduled);
+        });
+
+        if (saved.getCreatedAt().isBefore(horizonEnd())) {
+            add(new ScheduledEntry(saved.getTransactionId(), saved.getCreatedAt(), fromAccountId, toAccountId, saved.getAmount()));
+        }
+        System.out.println("--> Transfer " + saved.getTransactionId() + " scheduled for " + saved.getCreatedAt());
+        return saved.getTransactionId();
+    }
+
+    // Startup recovery, and brings in the transfers of the next month as the calendar moves. The scan starts at the
+    // oldest partition: transfers that came due while the application was down, even months ago, are still SCHEDULED
+    // and run (or fail) on the first tick
+    @Scheduled(fixedDelayString = "${banking.scheduled-transfers.reload-ms:3600000}",
+               initialDelayString = "${banking.scheduled-transfers.reload-ms:3600000}")
+    public void reload() {
+        List<Partition> partitions = partitionRepository.rangePartitions("transactions");
+        OffsetDateTime from = partitions.isEmpty()
+            ? OffsetDateTime.now(ZoneOffset.UTC).withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS)
+            : partitions.get(0).from();
+        List<PendingSettlement> upcoming = transactionRepository.findTransfersByStatusCreatedBetween(
+            TransactionStatus.SCHEDULED, from, horizonEnd());
+        int added = 0;
+        for (PendingSettlement transfer : upcoming) {
+            if (add(transfer)) {
+                added++;
+            }
+        }
+        System.out.println("--> Scheduled transfers loaded: " + added + " new, " + wheel.size() + " waiting");
+    }
+
+    private boolean add(PendingSettlement transfer) {
+        if (!inWheel.add(transfer.getTransactionId())) {
+            return false;
+        }
+        wheel.schedule(transfer, transfer.getCreatedAt().toInstant().toEpochMilli());
+        return true;
+    }
+
+    // Executes everything that came due by nowMs; called by the ticker thread every tick
+    public void runDue(long nowMs) {
+        List<PendingSettlement> due = wheel.advance(nowMs);
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<PendingSettlement> batch = due.subList(from, Math.min(due.size(), from + batchSize));
+            try {
+                execute(batch);
+                batch.forEach(t -> inWheel.remove(t.getTransactionId()));
+            } catch (RuntimeException e) {
+                // Keep them in the wheel and try again a little later
+                System.err.println("--> Scheduled transfer batch of " + batch.size() + " failed, retrying later: " + e.getMessage());
+                long retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+                batch.forEach(t -> wheel.schedule(t, retryAt));
+            }
+        }
+    }
+
+    private void execute(List<PendingSettlement> batch) {
+        Set<UUID> senderIds = new TreeSet<>();
+        batch.forEach(t -> senderIds.add(t.getFromAccountId()));
+
+        int[] outcome = transferExecutionEngine.execute("scheduled", senderIds, () -> {
+            // Claim the rows first: a transfer cancelled in the meantime is no longer SCHEDULED and is skipped
+            int[] claimed = transactionBatchRepository.updateStatus(batch, TransactionStatus.SCHEDULED, TransactionStatus.PENDING, null);
+            Map<UUID, Account> senders = new HashMap<>();
+            accountRepository.findAllById(senderIds).forEach(a -> senders.put(a.getId(), a));
+
+            List<PendingSettlement> failed = new ArrayList<>();
+            int started = 0, unfunded = 0, overLimit = 0;
+            for (int i = 0; i < claimed.length; i++) {
+                if (claimed[i] == 0) {
+                    continue;
+                }
+                PendingSettlement transfer = batch.get(i);
+                Account sender = senders.get(transfer.getFromAccountId());
+                if (sender == null || sender.getAvailableBalance().compareTo(transfer.getAmount()) < 0) {
+                    failed.add(transfer);
+                    unfunded++;
+                    continue;
+                }
+                // Counted against the card limits on the day it runs, like any other send
+                try {
+                    spendLimitService.reserve(sender.getId(), transfer.getAmount());
+                } catch (SpendLimitExceededException e) {
+                    failed.add(transfer);
+                    overLimit++;
+                    continue;
+                }
+                sender.setAvailableBalance(sender.getAvailableBalance().subtract(transfer.getAmount()));
+                accountHoldIndex.place(sender.getId(), transfer.getTransactionId(), transfer.getAmount());
+                started++;
+            }
+            transactionBatchRepository.updateStatus(failed, TransactionStatus.PENDING, TransactionStatus.FAILED, OffsetDateTime.now());
+            return new int[] {started, unfunded, overLimit};
+        });
+        System.out.println("--> Scheduled transfers due: " + batch.size() + ", started: " + outcome[0] + ", not enough balance: " + outcome[1]
+            + ", over limit: " + outcome[2]);
+    }
+
+    // End of the next monthly partition: nothing later is kept in memory
+    private static OffsetDateTime horizonEnd() {
+        return OffsetDateTime.now(ZoneOffset.UTC).withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(2);
+    }
+
+    private record ScheduledEntry(UUID transactionId, OffsetDateTime createdAt, UUID fromAccountId, UUID toAccountId,
+                                  BigDecimal amount) implements PendingSettlement {
+        public UUID getTransactionId() { return transactionId; }
+        public OffsetDateTime getCreatedAt() { return createdAt; }
+        public UUID getFromAccountId() { return fromAccountId; }
+        public UUID getToAccountId() { return toAccountId; }
+        public BigDecimal getAmount() { return amount; }
+    }
+}
@@ -0,0 +1,118 @@
+package com.bank.demo.service;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.bank.demo.exceptions.SpendLimitExceededException;
+import com.bank.demo.repository.SpendLimitRepository;
+import com.bank.demo.repository.SpendLimitRepository.AccountLimits;
+import com.bank.demo.utils.SpendWindows;
+import com.bank.demo.utils.SpendWindows.Window;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Daily and monthly spending limits of the sender, checked in memory on every send. An account
+ * is held to the limits of its active cards (the strictest one when it has several); accounts
+ * without a card have no limit. Spend lives in sliding-window counters (SpendWindows) rebuilt
+ * from the last 30 days of transfers at startup; limits are a copy-on-write map reloaded every
+ * refresh-ms. A transfer counts from the moment it is sent; a declined, cancelled or expired one
+ * gives its amount back.
+ */
+@Service
+public class SpendLimitService {
+
+    private static final long MONTH_MS = 30L * 24 * 3_600_000;
+
+    private final SpendLimitRepository spendLimitRepository;
+    private final SpendWindows windows = new SpendWindows();
+    private volatile Map<UUID, AccountLimits> limits = Map.of();
+
+    public SpendLimitService(SpendLimitRepository spendLimitRepository) {
+        this.spendLimitRepository = spendLimitRepository;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        refreshLimits();
+        windows.clear();
+        OffsetDateTime since = OffsetDateTime.now(ZoneOffset.UTC).minusNanos(MONTH_MS * 1_000_000);
+        spendLimitRepository.forEachHourlySpend(since, spend ->
+            windows.add(spend.accountId(), toCents(spend.amount()), spend.hour().toInstant().toEpochMilli()));
+        System.out.println("--> Spend windows rebuilt: " + windows.size() + " accounts, " + limits.size() + " with limits");
+    }
+
+    @Scheduled(fixedDelayString = "${banking.limits.refresh-ms:60000}",
+               initialDelayString = "${banking.limits.refresh-ms:60000}")
+    public void refresh() {
+        refreshLimits();
+        windows.prune(System.currentTimeMillis());
+    }
+
+    private void refreshLimits() {
+        try {
+            limits = Map.copyOf(spendLimitRepository.loadAccountLimits());
+        } catch (RuntimeException e) {
+            System.err.println("--> Spend limits refresh failed, keeping the previous ones: " + e.getMessage());
+        }
+    }
+
+    // Counts the amount against the sender's windows, or throws when it would exceed a limit. Inside a DB transaction
+    // the amount is given back if that transaction rolls back, so only transfers that were written stay counted
+    public void reserve(UUID accountId, BigDecimal amount) {
+        AccountLimits accountLimits = limits.get(accountId);
+        long cents = toCents(amount);
+        long now = System.currentTimeMillis();
+        Window exceeded = windows.tryAdd(accountId, cents, now,
+            accountLimits == null ? -1 : toLimitCents(accountLimits.dailyLimit()),
+            accountLimits == null ? -1 : toLimitCents(accountLimits.monthlyLimit()));
+        if (exceeded == Window.DAILY) {
+            throw new SpendLimitExceededException("Daily limit of " + accountLimits.dailyLimit() + " exceeded");
+        }
+        if (exceeded == Window.MONTHLY) {
+            throw new SpendLimitExceededException("Monthly limit of " + accountLimits.monthlyLimit() + " exceeded");
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        windows.remove(accountId, cents, now);
+                    }
+                }
+            });
+        }
+    }
+
+    // A transfer sent at createdAt was declined or cancelled: its amount no longer counts once that is committed
+    public void release(UUID accountId, BigDecimal amount, OffsetDateTime createdAt) {
+        Runnable release = () -> windows.remove(accountId, toCents(amount), createdAt.toInstant().toEpochMilli());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release.run();
+                }
+            });
+        } else {
+            release.run();
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValue();
+    }
+
+    private static long toLimitCents(BigDecimal limit) {
+        return limit == null ? -1 : toCents(limit);
+    }
+}
@@ -0,0 +1,287 @@
+package com.bank.demo.service;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import com.bank.demo.Dtos.TransferRequestDto.StandingOrderRequest;
+import com.bank.demo.Dtos.TransferRequestDto.StandingOrderResponse;
+import com.bank.demo.Dtos.TransferRequestDto.TransferRequest;
+import com.bank.demo.Dtos.TransferRequestDto.TransferResponse;
+import com.bank.demo.exceptions.InsufficientFundsException;
+import com.bank.demo.exceptions.SpendLimitExceededException;
+import com.bank.demo.model.Account;
+import com.bank.demo.model.User;
+import com.bank.demo.model.enums.RecurrenceFrequency;
+import com.bank.demo.model.enums.TransactionType;
+import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.StandingOrderRepository;
+import com.bank.demo.repository.StandingOrderRepository.StandingOrderRow;
+import com.bank.demo.repository.Userepository;
+import com.bank.demo.service.TransferExecutionEngine.TransferWork;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Standing orders: a /send request template repeated on a recurrence rule. Every sweep pages
+ * through the due orders oldest occurrence first, batch-size at a time, and sends each one
+ * through bankTransactionService.sendMoney on a fixed pool of parallelism workers, as the owner
+ * of the order. An order contributes one occurrence per page and a sweep stops after
+ * max-per-run occurrences, so a backlog after downtime is caught up at a bounded rate instead
+ * of all at once. The cursor (next_run_at) is persisted after every occurrence, and each
+ * occurrence is sent under its own Idempotency-Key: an occurrence whose cursor update was lost
+ * in a crash is replayed, not sent twice. A rejected transfer (funds, limits) skips the
+ * occurrence; any other failure leaves the cursor for the next sweep to retry.
+ */
+@Service
+public class StandingOrderService {
+
+    private static final OffsetDateTime CURSOR_START = Instant.EPOCH.atOffset(ZoneOffset.UTC);
+    private static final UUID CURSOR_START_ID = new UUID(0, 0);
+
+    private final StandingOrderRepository standingOrderRepository;
+    private final AccountRepository accountRepository;
+    private final Userepository userRepository;
+    private final bankTransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxPerRun;
+    private final ExecutorService workers;
+    private final Counter sentCounter;
+    private final Counter skippedCounter;
+    private final Counter retriedCounter;
+
+    public StandingOrderService(StandingOrderRepository standingOrderRepository,
+                                AccountRepository accountRepository,
+                                Userepository userRepository,
+                                bankTransactionService transactionService,
+                                IdempotencyService idempotencyService,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${banking.standing-orders.parallelism:4}") int parallelism,
+                                @Value("${banking.standing-orders.batch-size:100}") int batchSize,
+                                @Value("${banking.standing-orders.max-per-run:5000}") int maxPerRun) {
+        this.standingOrderRepository = standingOrderRepository;
+        this.accountRepository = accountRepository;
+        this.userRepository = userRepository;
+        this.transactionService = transactionService;
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxPerRun = maxPerRun;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "standing-orders-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sentCounter = Counter.builder("banking.standing-orders.sent").register(meterRegistry);
+        this.skippedCounter = Counter.builder("banking.standing-orders.skipped").register(meterRegistry);
+        this.retriedCounter = Counter.builder("banking.standing-orders.retried").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+
+    public StandingOrderResponse create(StandingOrderRequest request) {
+        User user = connectedUser();
+        TransferRequest transfer = request.getTransfer();
+        if (transfer == null || request.getFrequency() == null || transfer.getTransactionType() == null) {
+            throw new IllegalArgumentException("Transfer, transaction type and frequency are required");
+        }
+        RecurrenceFrequency frequency;
+        try {
+            frequency = RecurrenceFrequency.valueOf(request.getFrequency().toUpperCase(Locale.ROOT));
+            TransactionType.valueOf(transfer.getTransactionType());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown frequency or transaction type");
+        }
+        if (request.getInterval() < 1 || (request.getMaxRuns() != null && request.getMaxRuns() < 1)) {
+            throw new IllegalArgumentException("Interval and max runs must be positive");
+        }
+        if (!(transfer.getAmount() > 0)) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        Account fromAccount = accountRepository.findByAccountNumber(transfer.getFromAccountNumber())
+            .filter(a -> a.getUser() != null && user.getId().equals(a.getUser().getId()))
+            .orElseThrow(() -> new IllegalArgumentException("FromAccount not found"));
+        OffsetDateTime now = OffsetDateTime.now();
+        OffsetDateTime startAt = (request.getStartAt() != null ? request.getStartAt() : now).truncatedTo(ChronoUnit.MICROS);
+        // A start in the past would be caught up right away
+        if (startAt.isBefore(now.minusMinutes(1))) {
+            throw new IllegalArgumentException("Start date cannot be in the past");
+        }
+        if (request.getEndAt() != null && request.getEndAt().isBefore(startAt)) {
+            throw new IllegalArgumentException("End date is before the start date");
+        }
+        // The engine decides when each occurrence is sent
+        transfer.setScheduledAt(null);
+
+        UUID id = standingOrderRepository.insert(user.getId(), fromAccount.getId(), toJson(transfer), frequency.name(),
+            request.getInterval(), startAt, request.getEndAt(), request.getMaxRuns());
+        System.out.println("--> Standing order " + id + " created: " + frequency + " x" + request.getInterval() + " from " + startAt);
+        StandingOrderResponse response = new StandingOrderResponse();
+        response.setStandingOrderId(id);
+        response.setTransfer(transfer);
+        response.setFrequency(frequency.name());
+        response.setInterval(request.getInterval());
+        response.setStatus("ACTIVE");
+        response.setNextRunAt(startAt);
+        return response;
+    }
+
+    public List<StandingOrderResponse> list() {
+        return standingOrderRepository.findByUser(connectedUser().getId()).stream().map(this::toResponse).toList();
+    }
+
+    // false when the order does not exist, is not the connected user's, or is already finished
+    public boolean cancel(UUID standingOrderId) {
+        return standingOrderRepository.cancel(standingOrderId, connectedUser().getId());
+    }
+
+    @Scheduled(fixedDelayString = "${banking.standing-orders.interval-ms:60000}",
+               initialDelayString = "${banking.standing-orders.interval-ms:60000}")
+    public void sweep() {
+        runDue(OffsetDateTime.now());
+    }
+
+    // Runs the occurrences due at now; returns the number of orders whose cursor moved
+    public int runDue(OffsetDateTime now) {
+        long start = System.nanoTime();
+        int processed = 0;
+        int advanced = 0;
+        OffsetDateTime afterNextRunAt = CURSOR_START;
+        UUID afterId = CURSOR_START_ID;
+        while (processed < maxPerRun) {
+            int limit = Math.min(batchSize, maxPerRun - processed);
+            List<StandingOrderRow> page = standingOrderRepository.findDue(now, afterNextRunAt, afterId, limit);
+            if (page.isEmpty()) {
+                break;
+            }
+            List<Callable<Boolean>> occurrences = page.stream().<Callable<Boolean>>map(order -> () -> runOccurrence(order)).toList();
+            try {
+                for (var result : workers.invokeAll(occurrences)) {
+                    if (Boolean.TRUE.equals(result.get())) {
+                        advanced++;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                // runOccurrence handles its own failures; anything else is a bug, the cursor of that order did not move
+                System.err.println("--> Standing order page failed: " + e.getMessage());
+            }
+            processed += page.size();
+            StandingOrderRow last = page.get(page.size() - 1);
+            afterNextRunAt = last.nextRunAt();
+            afterId = last.standingOrderId();
+            if (page.size() < limit) {
+                break;
+            }
+        }
+        if (processed > 0) {
+            double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+            System.out.printf("--> Standing orders: %d due, %d done in %.2f s%n", processed, advanced, seconds);
+        }
+        return advanced;
+    }
+
+    private boolean runOccurrence(StandingOrderRow order) {
+        OffsetDateTime occurrence = order.nextRunAt();
+        String reference = null;
+        String error = null;
+        try {
+            TransferRequest template = objectMapper.readValue(order.template(), TransferRequest.class);
+            // One key per occurrence: running it again after a lost cursor update replays the first transfer
+            TransferResponse response = idempotencyService.execute("standing-order:" + order.standingOrderId(),
+                occurrence.toInstant().toString(), template, TransferResponse.class,
+                () -> asUser(order.userEmail(), () -> transactionService.sendMoney(template)));
+            reference = response.getInteracReferenceId();
+            sentCounter.increment();
+        } catch (InsufficientFundsException | SpendLimitExceededException | IllegalArgumentException
+                 | SecurityException | JsonProcessingException e) {
+            // The bank's answer for this occurrence: it is skipped, the order moves on
+            error = e.getMessage();
+            skippedCounter.increment();
+        } catch (RuntimeException e) {
+            // Lock timeout, full queue...: the cursor stays, the next sweep tries this occurrence again
+            retriedCounter.increment();
+            System.err.println("--> Standing order " + order.standingOrderId() + " occurrence " + occurrence + " failed, retrying later: " + e.getMessage());
+            return false;
+        }
+
+        int runsDone = order.runsDone() + 1;
+        OffsetDateTime next = RecurrenceFrequency.valueOf(order.frequency()).occurrence(order.startsAt(), order.intervalCount(), runsDone);
+        boolean finished = (order.maxRuns() != null && runsDone >= order.maxRuns())
+            || (order.endsAt() != null && next.isAfter(order.endsAt()));
+        return standingOrderRepository.advance(order.standingOrderId(), occurrence, runsDone, finished ? null : next,
+            finished ? "COMPLETED" : "ACTIVE", OffsetDateTime.now(), reference, error);
+    }
+
+    // sendMoney reads the sender from the security context, like for a request of the owner
+    private static <T, E extends Exception> T asUser(String email, TransferWork<T, E> work) throws E {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(email, null, List.of()));
+        SecurityContextHolder.setContext(context);
+        try {
+            return work.run();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private StandingOrderResponse toResponse(StandingOrderRow row) {
+        StandingOrderResponse response = new StandingOrderResponse();
+        response.setStandingOrderId(row.standingOrderId());
+        try {
+            response.setTransfer(objectMapper.readValue(row.template(), TransferRequest.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored standing order template cannot be read", e);
+        }
+        response.setFrequency(row.frequency());
+        response.setInterval(row.intervalCount());
+        response.setStatus(row.status());
+        response.setRunsDone(row.runsDone());
+        response.setNextRunAt(row.nextRunAt());
+        response.setLastRunAt(row.lastRunAt());
+        response.setLastInteracReferenceId(row.lastReference());
+        response.setLastError(row.lastError());
+        return response;
+    }
+
+    private User connectedUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        return userRepository.findByEmail(email).orElseThrow(() -> new IllegalArgumentException("User not found"));
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Error converting value to JSON", e);
+        }
+    }
+}
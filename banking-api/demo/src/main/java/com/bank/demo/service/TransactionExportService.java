@@ -0,0 +1,241 @@
+package com.bank.demo.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bank.demo.dto.TransactionDto;
+import com.bank.demo.exceptions.ExportBusyException;
+import com.bank.demo.model.User;
+import com.bank.demo.repository.PartitionRepository;
+import com.bank.demo.repository.PartitionRepository.Partition;
+import com.bank.demo.repository.TransactionHistoryRepository;
+import com.bank.demo.repository.Userepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Exports a user's whole transaction history, or any date range of it, as CSV or NDJSON.
+ * Rows go from a database cursor to the client one at a time, so memory does not grow with the range.
+ * Exports run on their own small pool: a long export never holds a request thread, and only a bounded number of
+ * them (each with its DB connection) run at once.
+ */
+@Service
+public class TransactionExportService {
+
+    public enum ExportFormat {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static ExportFormat parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown export format: " + value);
+            }
+        }
+    }
+
+    private static final String CSV_HEADER = "transaction_id,created_at,transaction_type,transaction_status,direction,amount," +
+        "currency,fee_amount,exchange_rate,description,reference_number,processed_at,scheduled_at,account_number," +
+        "counterparty_account_number,counterparty_name";
+    private static final String CSV_DETAILS_HEADER = ",merchant_info,location_info";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TransactionHistoryRepository transactionHistoryRepository;
+    private final PartitionRepository partitionRepository;
+    private final Userepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter ndjsonWriter;
+    private final int fetchSize;
+    private final ThreadPoolExecutor exporter;
+    private final Counter rowsCounter;
+    private final Counter rejectedCounter;
+
+    public TransactionExportService(TransactionHistoryRepository transactionHistoryRepository,
+                                    PartitionRepository partitionRepository,
+                                    Userepository userRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${banking.export.threads:2}") int threads,
+                                    @Value("${banking.export.queue:8}") int queue,
+                                    @Value("${banking.export.fetch-size:1000}") int fetchSize) {
+        this.transactionHistoryRepository = transactionHistoryRepository;
+        this.partitionRepository = partitionRepository;
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.ndjsonWriter = objectMapper.writerFor(TransactionDto.class);
+        this.fetchSize = fetchSize;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.exporter = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queue), r -> {
+                Thread thread = new Thread(r, "transaction-export-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        this.rowsCounter = Counter.builder("banking.export.rows").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("banking.export.rejected").register(meterRegistry);
+        Gauge.builder("banking.export.active", exporter, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        exporter.shutdownNow();
+    }
+
+    // Checks the request and queues the export; the returned future completes with the number of rows once all of them
+    // are written and out is closed. No from or to means from the oldest or up to the newest partition.
+    // details adds the merchant and location JSON of every row; gzip compresses the output as it is written.
+    // The user is looked up by the export thread: the waiting request then holds no DB connection
+    public CompletableFuture<Long> export(String email, OffsetDateTime from, OffsetDateTime to, ExportFormat format,
+                                          boolean details, boolean gzip, OutputStream out) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        List<Partition> partitions = partitionRepository.rangePartitions("transactions");
+        OffsetDateTime now = OffsetDateTime.now();
+        OffsetDateTime lower = from != null ? from : partitions.isEmpty() ? now : partitions.get(0).from();
+        OffsetDateTime upper = to != null ? to : partitions.isEmpty() ? now : partitions.get(partitions.size() - 1).to();
+        try {
+            return CompletableFuture.supplyAsync(() -> write(email, lower, upper, format, details, gzip, out), exporter);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ExportBusyException("Too many exports running, retry later");
+        }
+    }
+
+    // The read-only transaction keeps the cursor open while the client reads; output is flushed every fetchSize rows so
+    // the client sees it arrive (a sync flush when compressed)
+    private long write(String email, OffsetDateTime from, OffsetDateTime to, ExportFormat format, boolean details,
+                       boolean gzip, OutputStream out) {
+        long start = System.nanoTime();
+        UUID userId = userRepository.findByEmail(email).map(User::getId)
+            .orElseThrow(() -> new IllegalArgumentException("User not found: " + email));
+        long[] rows = {0};
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                gzip ? new GZIPOutputStream(out, BUFFER_SIZE, true) : out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            if (format == ExportFormat.CSV) {
+                writer.write(details ? CSV_HEADER + CSV_DETAILS_HEADER : CSV_HEADER);
+                writer.write('\n');
+            }
+            readOnlyTransaction.executeWithoutResult(status ->
+                transactionHistoryRepository.streamByUserIdInRange(userId, from, to, details, fetchSize, row -> {
+                    try {
+                        writer.write(format == ExportFormat.CSV ? csvLine(row, details) : ndjsonWriter.writeValueAsString(row));
+                        writer.write('\n');
+                        if (++rows[0] % fetchSize == 0) {
+                            writer.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+        } catch (IOException e) {
+            throw stopped(userId, rows[0], new UncheckedIOException(e));
+        } catch (RuntimeException e) {
+            throw stopped(userId, rows[0], e);
+        } finally {
+            rowsCounter.increment(rows[0]);
+        }
+        System.out.printf("--> Exported %d transactions for user %s in %.2f s%n", rows[0], userId, (System.nanoTime() - start) / 1e9);
+        return rows[0];
+    }
+
+    // Usually the client going away mid-download
+    private static RuntimeException stopped(UUID userId, long rows, RuntimeException cause) {
+        System.err.println("--> Export for user " + userId + " stopped after " + rows + " rows: " + cause.getMessage());
+        return cause;
+    }
+
+    private static String csvLine(TransactionDto row, boolean details) {
+        StringBuilder line = new StringBuilder(256)
+            .append(row.getTransactionId()).append(',')
+            .append(value(row.getCreatedAt())).append(',')
+            .append(value(row.getTransactionType())).append(',')
+            .append(value(row.getTransactionStatus())).append(',')
+            .append(row.getDirection()).append(',')
+            .append(amount(row.getAmount())).append(',')
+            .append(text(row.getCurrency())).append(',')
+            .append(amount(row.getFeeAmount())).append(',')
+            .append(amount(row.getExchangeRate())).append(',')
+            .append(text(row.getDescription())).append(',')
+            .append(text(row.getReferenceNumber())).append(',')
+            .append(value(row.getProcessedAt())).append(',')
+            .append(value(row.getScheduledAt())).append(',')
+            .append(text(row.getAccountNumber())).append(',')
+            .append(text(row.getCounterpartyAccountNumber())).append(',')
+            .append(text(row.getCounterpartyName()));
+        if (details) {
+            line.append(',').append(text(row.getMerchantInfo())).append(',').append(text(row.getLocationInfo()));
+        }
+        return line.toString();
+    }
+
+    private static String value(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static String amount(BigDecimal value) {
+        return value == null ? "" : value.toPlainString();
+    }
+
+    // RFC 4180 quoting. Text a spreadsheet would read as a formula (=, +, -, @) is prefixed with a quote, since
+    // descriptions and names come from users
+    private static String text(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,29 +1,101 @@
 package com.bank.demo.service;
 
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.bank.demo.model.Transaction;
-import com.bank.demo.repository.transactionRepository;
+import com.bank.demo.dto.TransactionDto;
+import com.bank.demo.repository.PartitionRepository;
+import com.bank.demo.repository.PartitionRepository.Partition;
+import com.bank.demo.repository.TransactionHistoryRepository;
+import com.bank.demo.utils.HistoryCursor;
 
 @Service
 public class TransactionService {
 
+    // Keyset stand-in for "no cursor": with createdAt = to, the keyset condition adds nothing to the range
+    private static final UUID NO_ID = new UUID(0, 0);
+
+    @Autowired
+    private TransactionHistoryRepository transactionHistoryRepository;
+
     @Autowired
-    private transactionRepository transactionRepository;
+    private PartitionRepository partitionRepository;
+
+    // Lower bound of a history request that does not give one
+    @Value("${banking.history.default-days:90}")
+    private int defaultDays;
+
+    // One page of a newest-first history, and the cursor of the next one (null on the last page)
+    public record TransactionPage(List<TransactionDto> transactions, String nextCursor) {}
+
+    // One partition's slice of a history: rows in [from, to) after the keyset position, newest first
+    @FunctionalInterface
+    private interface RangeQuery {
+        List<TransactionDto> find(OffsetDateTime from, OffsetDateTime to, OffsetDateTime afterCreatedAt, UUID afterId, int limit);
+    }
+
+    // details adds the merchant and location JSON of every row
+    public TransactionPage getTransactionsByUserId(UUID userId, OffsetDateTime from, OffsetDateTime to, int limit, String cursor,
+                                                   boolean details) {
+        return history(from, to, limit, cursor, (lo, hi, createdAt, id, max) ->
+            transactionHistoryRepository.findByUserIdInRange(userId, lo, hi, createdAt, id, max, details));
+    }
+
+    public TransactionPage getTransactionsByAccountId(UUID accountId, OffsetDateTime from, OffsetDateTime to, int limit, String cursor,
+                                                      boolean details) {
+        return history(from, to, limit, cursor, (lo, hi, createdAt, id, max) ->
+            transactionHistoryRepository.findByAccountIdInRange(accountId, lo, hi, createdAt, id, max, details));
+    }
+
+    // from defaults to defaultDays ago; no to means up to the newest partition (scheduled transfers are dated in the future).
+    // Partitions are walked newest first, each queried on its own bounds, and the walk stops as soon as the page is full:
+    // "latest 10" reads the current partition only, however many years of partitions there are.
+    // Pages are sought by (createdAt, transactionId), never skipped with an OFFSET
+    private TransactionPage history(OffsetDateTime from, OffsetDateTime to, int limit, String cursor, RangeQuery query) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        OffsetDateTime lower = from != null ? from : OffsetDateTime.now().minusDays(defaultDays);
+        if (to != null && !lower.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        HistoryCursor after = HistoryCursor.decode(cursor);
+
+        List<Partition> partitions = partitionRepository.rangePartitions("transactions");
+        // One row more than asked tells whether there is a next page without a count query
+        List<TransactionDto> rows = new ArrayList<>();
+        for (int i = partitions.size() - 1; i >= 0 && rows.size() <= limit; i--) {
+            Partition partition = partitions.get(i);
+            if (!partition.to().isAfter(lower)) {
+                break;
+            }
+            OffsetDateTime lo = later(partition.from(), lower);
+            OffsetDateTime hi = to != null && to.isBefore(partition.to()) ? to : partition.to();
+            if (!lo.isBefore(hi) || (after != null && after.createdAt().isBefore(lo))) {
+                continue;
+            }
+            boolean cursorHere = after != null && after.createdAt().isBefore(hi);
+            rows.addAll(query.find(lo, hi, cursorHere ? after.createdAt() : hi, cursorHere ? after.transactionId() : NO_ID,
+                limit + 1 - rows.size()));
+        }
+        return page(rows, limit);
+    }
 
-    public List<Transaction> getTransactionsByUserId(UUID userId, int limit) {
-        PageRequest pageRequest = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "createdAt"));
-        return transactionRepository.findByUserIdOrderByCreatedAtDesc(userId, pageRequest);
+    private static OffsetDateTime later(OffsetDateTime a, OffsetDateTime b) {
+        return a.isAfter(b) ? a : b;
     }
 
-    public List<Transaction> getTransactionsByAccountId(UUID accountId, int limit) {
-        PageRequest pageRequest = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "createdAt"));
-        return transactionRepository.findByAccountIdOrderByCreatedAtDesc(accountId, pageRequest);
+    private static TransactionPage page(List<TransactionDto> rows, int limit) {
+        if (rows.size() <= limit) {
+            return new TransactionPage(rows, null);
+        }
+        TransactionDto last = rows.get(limit - 1);
+        return new TransactionPage(rows.subList(0, limit), HistoryCursor.after(last.getCreatedAt(), last.getTransactionId()).encode());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,73 @@
+package com.bank.demo.service;
+
+import java.util.Collection;
+import java.util.UUID;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bank.demo.utils.OptimisticRetryExecutor;
+import com.bank.demo.utils.StripedAccountLocks;
+
+/**
+ * Runs a unit of transfer work while holding the striped locks of every account it
+ * touches. The database transaction is opened and committed inside the locks, so the
+ * next transfer on the same account always reads the committed balance.
+ * Account rows carry a version column: when another writer (another instance, a JDBC
+ * bulk path) changed an account in between, the whole unit is retried with backoff,
+ * outside the locks so the waiting does not block other transfers on those stripes.
+ */
+@Service
+public class TransferExecutionEngine {
+
+    @FunctionalInterface
+    public interface TransferWork<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    private final StripedAccountLocks accountLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final OptimisticRetryExecutor retryExecutor;
+
+    public TransferExecutionEngine(StripedAccountLocks accountLocks, TransactionTemplate transactionTemplate,
+                                   OptimisticRetryExecutor retryExecutor) {
+        this.accountLocks = accountLocks;
+        this.transactionTemplate = transactionTemplate;
+        this.retryExecutor = retryExecutor;
+    }
+
+    // The work must re-read what it needs on every call: it runs again after a version conflict
+    public <T, E extends Exception> T execute(String operation, UUID firstAccountId, UUID secondAccountId, TransferWork<T, E> work) throws E {
+        return retryExecutor.execute(operation,
+            () -> accountLocks.withAccountLocks(firstAccountId, secondAccountId, () -> inTransaction(work)));
+    }
+
+    public <T, E extends Exception> T execute(String operation, Collection<UUID> accountIds, TransferWork<T, E> work) throws E {
+        return retryExecutor.execute(operation,
+            () -> accountLocks.withAccountLocks(accountIds, () -> inTransaction(work)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T, E extends Exception> T inTransaction(TransferWork<T, E> work) throws E {
+        try {
+            return transactionTemplate.execute(status -> {
+                try {
+                    return work.run();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    // Tunnel checked exceptions (e.g. InsufficientFundsException) through the callback so the transaction rolls back
+                    throw new CheckedRollback(e);
+                }
+            });
+        } catch (CheckedRollback e) {
+            throw (E) e.getCause();
+        }
+    }
+
+    private static final class CheckedRollback extends RuntimeException {
+        CheckedRollback(Exception cause) {
+            super(cause.getMessage(), cause, false, false);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.bank.demo.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.OffsetDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.bank.demo.exceptions.UnsupportedCurrencyException;
+import com.bank.demo.model.Transaction;
+import com.bank.demo.model.enums.AccountType;
+import com.bank.demo.model.enums.TransactionType;
+import com.bank.demo.repository.PricingRepository;
+import com.bank.demo.repository.PricingRepository.FeeRuleRow;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Prices transfers: the exchange rate of the transfer currency to the book currency and the fee,
+ * both computed here instead of taken from the client. For now only book currency transfers are
+ * accepted and no fee is charged (see quote and price): the rates and the fee schedule are loaded
+ * for when amounts and fees move end to end. Rates (fx_rates) and the fee schedule
+ * (fee_rules) are read into one immutable snapshot, the fee rules compiled into an EnumMap per
+ * transaction type and account type. A refresh builds a new snapshot and swaps the reference,
+ * so pricing a transfer is a couple of map lookups and never waits on the DB or on a refresh.
+ */
+@Service
+public class TransferPricingService {
+
+    private static final int RATE_SCALE = 6; // transactions.exchange_rate is DECIMAL(10,6)
+
+    // Fee of one (transaction type, account type): flat + percentBps of the amount, clamped to [minFee, maxFee]
+    public record FeeRule(BigDecimal flatFee, int percentBps, BigDecimal minFee, BigDecimal maxFee) {
+        public BigDecimal feeFor(BigDecimal bookAmount) {
+            BigDecimal fee = flatFee.add(bookAmount.multiply(BigDecimal.valueOf(percentBps)).movePointLeft(4));
+            if (fee.compareTo(minFee) < 0) {
+                fee = minFee;
+            }
+            if (maxFee != null && fee.compareTo(maxFee) > 0) {
+                fee = maxFee;
+            }
+            return fee.setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+
+    public record Quote(String currency, BigDecimal exchangeRate, BigDecimal feeAmount) {}
+
+    private record Snapshot(Map<String, BigDecimal> rates, Map<TransactionType, Map<AccountType, FeeRule>> fees,
+                            OffsetDateTime loadedAt) {}
+
+    private final PricingRepository pricingRepository;
+    private final String bookCurrency;
+    private volatile Snapshot snapshot;
+
+    public TransferPricingService(PricingRepository pricingRepository,
+                                  @Value("${banking.pricing.book-currency:CAD}") String bookCurrency) {
+        this.pricingRepository = pricingRepository;
+        this.bookCurrency = bookCurrency.toUpperCase();
+        this.snapshot = new Snapshot(Map.of(this.bookCurrency, BigDecimal.ONE), new EnumMap<>(TransactionType.class), null);
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${banking.pricing.refresh-ms:60000}",
+               initialDelayString = "${banking.pricing.refresh-ms:60000}")
+    public void refresh() {
+        try {
+            snapshot = load();
+            System.out.println("--> Pricing tables loaded: " + snapshot.rates().size() + " currencies, "
+                + snapshot.fees().values().stream().mapToInt(Map::size).sum() + " fee rules");
+        } catch (RuntimeException e) {
+            // Keep pricing with the previous tables rather than failing transfers
+            System.err.println("--> Pricing tables refresh failed, keeping the ones loaded at " + snapshot.loadedAt() + ": " + e.getMessage());
+        }
+    }
+
+    private Snapshot load() {
+        Map<String, BigDecimal> rates = pricingRepository.loadRates();
+        // The book currency always converts 1:1, whatever the table says
+        rates.put(bookCurrency, BigDecimal.ONE);
+
+        Map<TransactionType, Map<AccountType, FeeRule>> fees = new EnumMap<>(TransactionType.class);
+        for (FeeRuleRow row : pricingRepository.loadFeeRules()) {
+            fees.computeIfAbsent(row.transactionType(), type -> new EnumMap<>(AccountType.class))
+                .put(row.accountType(), new FeeRule(row.flatFee(), row.percentBps(), row.minFee(), row.maxFee()));
+        }
+        return new Snapshot(Map.copyOf(rates), fees, OffsetDateTime.now());
+    }
+
+    // No currency means the book currency. Any other currency throws UnsupportedCurrencyException (400): holds,
+    // settlement, spend limits and the ledger all move the transfer's amount as book currency, so until the amount is
+    // converted along that whole path, a 100 USD transfer would move 100 CAD. The fee is the one the schedule sets
+    public Quote quote(TransactionType type, AccountType senderAccountType, String currency, BigDecimal amount) {
+        Snapshot current = snapshot;
+        String code = currency == null ? bookCurrency : currency.trim().toUpperCase();
+        if (!code.equals(bookCurrency)) {
+            throw new UnsupportedCurrencyException(current.rates().containsKey(code)
+                ? "Transfers in " + code + " are not supported yet, accounts are kept in " + bookCurrency
+                : "Unsupported currency: " + currency);
+        }
+        BigDecimal fee = BigDecimal.ZERO.setScale(2);
+        Map<AccountType, FeeRule> rules = current.fees().get(type);
+        FeeRule rule = rules == null || senderAccountType == null ? null : rules.get(senderAccountType);
+        if (rule != null) {
+            fee = rule.feeFor(amount);
+        }
+        return new Quote(code, BigDecimal.ONE.setScale(RATE_SCALE), fee);
+    }
+
+    // Overwrites whatever currency, rate and fee the client put on the transfer. fee_amount stays 0: no hold,
+    // settlement or ledger posting moves a fee yet, and a row must not record one the bank never collected
+    public void price(Transaction transaction, AccountType senderAccountType) {
+        Quote quote = quote(transaction.getTransactionType(), senderAccountType, transaction.getCurrency(), transaction.getAmount());
+        transaction.setCurrency(quote.currency());
+        transaction.setExchangeRate(quote.exchangeRate());
+        transaction.setFeeAmount(BigDecimal.ZERO.setScale(2));
+    }
+}
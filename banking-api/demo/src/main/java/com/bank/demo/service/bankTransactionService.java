@@ -1,24 +1,41 @@
 package com.bank.demo.service;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.bank.demo.Dtos.TransferRequestDto;
 import com.bank.demo.Dtos.TransferRequestDto.TransferRequest;
 import com.bank.demo.Dtos.TransferRequestDto.TransferResponse;
+import com.bank.demo.Dtos.TransferRequestDto.TransferStatusResponse;
 import com.bank.demo.exceptions.InsufficientFundsException;
 import com.bank.demo.mapper.TransactionMapper;
 import com.bank.demo.model.Account;
 import com.bank.demo.model.Transaction;
+import com.bank.demo.model.enums.AccountType;
 import com.bank.demo.model.enums.TransactionStatus;
 import com.bank.demo.model.enums.TransactionType;
 import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.AccountRepository.ReservedAccount;
+import com.bank.demo.repository.LedgerRepository.Posting;
 import com.bank.demo.repository.transactionRepository;
+import com.bank.demo.repository.transactionRepository.PendingTransferKey;
+import com.bank.demo.utils.InteracReferenceGenerator;
+import com.bank.demo.utils.TimeOrderedUuid;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 @Service
 public class bankTransactionService {
 
@@ -38,6 +55,49 @@ public static final String ANSI_CYAN = "\u001B[36m";
     @Autowired
     private transactionRepository transactionRepository;
 
+    @Autowired
+    private TransferExecutionEngine transferExecutionEngine;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AccountHoldIndex accountHoldIndex;
+
+    @Autowired
+    private ScheduledTransferService scheduledTransferService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private InteracReferenceGenerator interacReferenceGenerator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final Duration REFERENCE_CLOCK_SLACK = Duration.ofMinutes(1);
+
+    // Conditional UPDATE ... RETURNING + one INSERT instead of loading both accounts through JPA
+    @Value("${banking.transfer.fast-path.enabled:true}")
+    private boolean fastPathEnabled;
+
+    // "sync": the caller's thread runs the transfer under the account locks; "actor": it goes through the sender's mailbox
+    @Value("${banking.transfer.execution-mode:sync}")
+    private String executionMode;
+
+    @Autowired
+    private ActorTransferService actorTransferService;
+
+    @Autowired
+    private TransferPricingService transferPricingService;
+
+    @Autowired
+    private SpendLimitService spendLimitService;
+
+    @Autowired
+    private InteracClaimService interacClaimService;
+
     public TransferResponse sendMoney(TransferRequest request) throws InsufficientFundsException {
     // Get the authenticated user's account (the sender)
     Authentication authentication  = SecurityContextHolder.getContext().getAuthentication();
@@ -48,90 +108,230 @@ public static final String ANSI_CYAN = "\u001B[36m";
     
 
     System.out.println(ANSI_YELLOW +"'" + request.getFromAccountNumber() + "' length=" + request.getFromAccountNumber().length()+ANSI_RESET);
+    // Issued once: the fast path, the JPA path and every retry store the same reference
+    String reference = interacReferenceGenerator.next();
+    // Sent to an email or phone number: held now, the recipient picks the account when claiming it
+    if (InteracClaimService.isClaimTransfer(request)) {
+        if (scheduledTransferService.isDeferred(request)) {
+            throw new IllegalArgumentException("Transfers to an email or phone number cannot be scheduled");
+        }
+        UUID transactionId = interacClaimService.send(request, reference);
+        return pendingTransferResponse(transactionId, reference);
+    }
+    // A future scheduledAt only records the transfer; the timing wheel starts it when it comes due
+    if (scheduledTransferService.isDeferred(request)) {
+        UUID scheduledId = scheduledTransferService.schedule(request, reference);
+        return transferResponse(scheduledId, reference, TransactionStatus.SCHEDULED.name(), "Transfer scheduled for " + request.getScheduledAt() + ".");
+    }
+
+    boolean actorMode = "actor".equalsIgnoreCase(executionMode);
+    if (fastPathEnabled && !actorMode) {
+        Optional<UUID> fastTransactionId = sendMoneyFastPath(request, reference);
+        if (fastTransactionId.isPresent()) {
+            return pendingTransferResponse(fastTransactionId.get(), reference);
+        }
+        // Unknown account, self transfer, not enough funds...: the JPA path below reports the exact error
+    }
+
     String fromNumber = request.getFromAccountNumber();
-    Account fromAccount = accountRepository.findByAccountNumber(fromNumber)
+    // Only resolve the ids here: the accounts themselves are read once the locks are held
+    UUID fromAccountId = accountRepository.findIdByAccountNumber(fromNumber)
         .orElseThrow(() -> new IllegalArgumentException("FromAccount not found"));
-    System.out.println(ANSI_GREEN +"--> From Account: " + fromAccount.getAccountNumber() + ", Balance: " + fromAccount.getBalance()+ANSI_RESET);
+    UUID toAccountId = accountRepository.findIdByAccountNumber(request.getToAccountNumber())
+        .orElseThrow(()-> new IllegalArgumentException("Recipient Account not found"));
+    //Prevent self-transfer 
+    if (fromAccountId.equals(toAccountId)){
+        throw new IllegalArgumentException("Cannot transfer to the same account");
+    }
 
     BigDecimal requestAmount = BigDecimal.valueOf(request.getAmount());
     System.out.println(ANSI_YELLOW +"--> Requested Amount: " + requestAmount +ANSI_RESET);
 
+    System.out.println(ANSI_CYAN +"--> Transaction Type: " + request.getTransactionType()+ANSI_RESET);
+    String typeString = request.getTransactionType();
+    TransactionType typeEnum = TransactionType.valueOf(typeString);
+
+    if (actorMode) {
+        if (requestAmount.signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        Optional<UUID> transactionId = actorTransferService.send(fromAccountId, toAccountId, request, typeEnum, reference);
+        // Not done yet is not failed: the reference is the only way to follow it, and an idempotent retry replays it
+        return transactionId.isPresent()
+            ? pendingTransferResponse(transactionId.get(), reference)
+            : transferResponse(null, reference, ActorTransferService.PROCESSING,
+                "Transfer is still being processed. Check /reference/" + reference + " for its outcome.");
+    }
+
+    // Available balance check, hold and insert run in one DB transaction while both account locks are held.
+    // balance itself only moves when the recipient accepts (see handlePendingTransfer)
+    Transaction transaction = transferExecutionEngine.execute("send", fromAccountId, toAccountId, () -> {
+        Account fromAccount = accountRepository.findById(fromAccountId)
+            .orElseThrow(() -> new IllegalArgumentException("FromAccount not found"));
+        Account toAccount = accountRepository.findById(toAccountId)
+            .orElseThrow(()-> new IllegalArgumentException("Recipient Account not found"));
+        System.out.println(ANSI_GREEN +"--> From Account: " + fromAccount.getAccountNumber() + ", Balance: " + fromAccount.getBalance()+ANSI_RESET);
+        System.out.println(ANSI_GREEN +"--> To Account: " + toAccount.getAccountNumber() + ", Balance: " + toAccount.getBalance()+ANSI_RESET);
+
+        if(fromAccount.getAvailableBalance().compareTo(requestAmount)<0){
+            throw new InsufficientFundsException("Not enough balance to complete transfer");
+        }
+        spendLimitService.reserve(fromAccountId, requestAmount);
+
+        fromAccount.setAvailableBalance(fromAccount.getAvailableBalance().subtract(requestAmount));
+        System.out.println(ANSI_RED +"--> New From Account Available Balance: " + fromAccount.getAvailableBalance()+ANSI_RESET);
+
+        // Use TransactionMapper to map DTO to entity
+        Transaction pending = TransactionMapper.toEntity(request, fromAccount, toAccount, typeEnum);
+        transferPricingService.price(pending, fromAccount.getAccountType());
+        pending.setTransactionId(TimeOrderedUuid.next());
+        pending.setReferenceNumber(reference);
+        pending.setCreatedAt(OffsetDateTime.now());
+        // A failed insert must roll the hold back, so it is not swallowed here
+        Transaction saved = transactionRepository.save(pending);
+        accountHoldIndex.place(fromAccountId, saved.getTransactionId(), requestAmount);
+        return saved;
+    });
 
-    if(fromAccount.getBalance().compareTo(requestAmount)<0){
-        throw new InsufficientFundsException("Not enough balance to complete transfer");
+    return pendingTransferResponse(transaction.getTransactionId(), reference);
+}
+
+    // Two statements in one DB transaction: the hold only applies if the available balance covers it, and the insert
+    // only applies if the recipient exists. Anything else rolls back and returns empty so the caller falls back
+    private Optional<UUID> sendMoneyFastPath(TransferRequest request, String reference) {
+        if (!(request.getAmount() > 0)) {
+            return Optional.empty();
+        }
+        TransactionType typeEnum = TransactionType.valueOf(request.getTransactionType());
+        Transaction pending = TransactionMapper.toEntity(request, null, null, typeEnum);
+        pending.setReferenceNumber(reference);
+        String merchantInfo = toJson(pending.getMerchantInfo());
+
+        return transactionTemplate.execute(status -> {
+            Optional<ReservedAccount> reserved = accountRepository.reserveIfAvailable(request.getFromAccountNumber(), pending.getAmount());
+            if (reserved.isEmpty()) {
+                return Optional.empty();
+            }
+            transferPricingService.price(pending, AccountType.valueOf(reserved.get().getAccountType()));
+            // Over the limit: the exception rolls the hold back
+            spendLimitService.reserve(reserved.get().getAccountId(), pending.getAmount());
+            UUID transactionId = TimeOrderedUuid.next();
+            int inserted = transactionRepository.insertPendingTransfer(transactionId, OffsetDateTime.now(),
+                reserved.get().getAccountId(), request.getToAccountNumber(), typeEnum.name(), pending.getAmount(),
+                pending.getCurrency(), pending.getDescription(), pending.getReferenceNumber(), pending.getScheduledAt(),
+                pending.getFeeAmount(), pending.getExchangeRate(), merchantInfo);
+            if (inserted == 0) {
+                status.setRollbackOnly();
+                return Optional.empty();
+            }
+            accountHoldIndex.place(reserved.get().getAccountId(), transactionId, pending.getAmount());
+            System.out.println(ANSI_RED +"--> New From Account Available Balance: " + reserved.get().getAvailableBalance()+ANSI_RESET);
+            return Optional.of(transactionId);
+        });
     }
 
-    fromAccount.setBalance(fromAccount.getBalance().subtract(requestAmount));
-    System.out.println(ANSI_RED +"--> New From Account Balance: " + fromAccount.getBalance()+ANSI_RESET);
+    private TransferResponse pendingTransferResponse(UUID transactionId, String reference) {
+        return transferResponse(transactionId, reference, "PENDING", "Transfer initiated. Recipient will be notified.");
+    }
 
-    System.out.println(ANSI_CYAN +"--> Transaction Type: " + request.getTransactionType()+ANSI_RESET);
-    String typeString = request.getTransactionType();
-    TransactionType typeEnum = TransactionType.valueOf(typeString);
+    private TransferResponse transferResponse(UUID transactionId, String reference, String status, String message) {
+        TransferRequestDto.TransferResponse response = new TransferRequestDto.TransferResponse();
+        response.setTransactionId(transactionId);
+        response.setInteracReferenceId(reference);
+        response.setStatus(status);
+        response.setMessage(message);
+        return response;
+    }
 
-    Account toAccount = accountRepository.findByAccountNumber(request.getToAccountNumber())
-        .orElseThrow(()-> new IllegalArgumentException("Recipient Account not found"));
-    System.out.println(ANSI_GREEN +"--> To Account: " + toAccount.getAccountNumber() + ", Balance: " + toAccount.getBalance()+ANSI_RESET);
-    //Prevent self-transfer 
-    if (fromAccount.getAccountNumber().equals(toAccount.getAccountNumber())){
-        throw new IllegalArgumentException("Cannot transfer to the same account");
+    private String toJson(Map<String, Object> value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Error converting map to JSON", e);
+        }
     }
-    // Use TransactionMapper to map DTO to entity
-    Transaction transaction = TransactionMapper.toEntity(request, fromAccount, toAccount, typeEnum);
-    transaction.setTransactionId(UUID.randomUUID());
-    transaction.setCreatedAt(OffsetDateTime.now());
-
-    try {
-        transactionRepository.save(transaction);   
-    } catch (Exception e) {
-        System.out.println(ANSI_RED +"--> Error saving transaction: " + e.getMessage()+ANSI_RESET);
+
+    // Only the sender or the recipient can look a transfer up; anyone else gets the same answer as for an unknown reference
+    public Optional<TransferStatusResponse> findByReference(String reference) {
+        Instant issuedAt;
+        try {
+            issuedAt = InteracReferenceGenerator.issuedAt(reference);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        // created_at is stamped right around issue time (or later, for scheduled transfers); the slack absorbs the gap
+        OffsetDateTime notBefore = issuedAt.minus(REFERENCE_CLOCK_SLACK).atOffset(ZoneOffset.UTC);
+        return transactionRepository.findFirstByReferenceNumberAndCreatedAtGreaterThanEqual(reference, notBefore)
+            .filter(t -> isOwnedBy(t.getFromAccount(), email) || isOwnedBy(t.getToAccount(), email))
+            .map(t -> {
+                TransferStatusResponse response = new TransferStatusResponse();
+                response.setTransactionId(t.getTransactionId());
+                response.setInteracReferenceId(t.getReferenceNumber());
+                response.setStatus(t.getTransactionStatus().name());
+                response.setAmount(t.getAmount().doubleValue());
+                response.setCurrency(t.getCurrency());
+                return response;
+            });
     }
 
-    TransferRequestDto.TransferResponse response = new TransferRequestDto.TransferResponse();
-    response.setTransactionId(transaction.getTransactionId());
-    response.setInteracReferenceId("INT-" + System.currentTimeMillis());
-    response.setStatus("PENDING");
-    response.setMessage("Transfer initiated. Recipient will be notified.");
-    return response;
-}
+    private static boolean isOwnedBy(Account account, String email) {
+        return account != null && account.getUser() != null && email.equals(account.getUser().getEmail());
+    }
 
     public TransferRequestDto.ReceiveMoneyResponse handlePendingTransfer(String recipientAccountId , boolean accept) {
-        // Fetch the receipient account (connected user)
-        Account recipient  = accountRepository.findById(UUID.fromString(recipientAccountId))
-            .orElseThrow(() -> new IllegalArgumentException("Recipient Account not found")); 
+        UUID recipientId = UUID.fromString(recipientAccountId);
+        if (!accountRepository.existsById(recipientId)) {
+            throw new IllegalArgumentException("Recipient Account not found");
+        }
         System.out.println(ANSI_PURPLE +"--> handlePendingTransfer() called in bankTransactionService for recipient: " + recipientAccountId  + " accept: " + accept+ANSI_RESET);
 
-        // Fetch the PENDING  transaction
-        Transaction transaction = transactionRepository.findPendingTransactionsByRecipient(UUID.fromString(recipientAccountId), TransactionStatus.PENDING)
+        // Fetch the PENDING transaction key (the entity is re-read under the locks)
+        PendingTransferKey pendingKey = transactionRepository.findPendingTransferKeysByRecipient(recipientId, TransactionStatus.PENDING)
             .stream().findFirst()
             .orElseThrow(() -> new IllegalArgumentException("No pending transaction found"));
-        // check the PENDING transaction
-        System.out.println(ANSI_GREEN +"--> Found pending transaction: " + transaction.getTransactionId() + " amount: " + transaction.getAmount()+ANSI_RESET + " transaction status: " + transaction.getTransactionStatus());
-        
-        System.out.println("Type of status: " + transaction.getTransactionStatus().getClass().getName());
-         // Ensure this transaction is for the recipient
-        if (!transaction.getToAccount().getAccountNumber().equals(recipient.getAccountNumber())) {
-            throw new SecurityException("This transaction does not belong to the connected user");
-        }
 
-        // Ensure it is still pending 
-        if (transaction.getTransactionStatus() != TransactionStatus.PENDING) {
-            throw new IllegalStateException("This transaction is not pending");
-        }
+        Transaction transaction = transferExecutionEngine.execute("settle", recipientId, pendingKey.getFromAccountId(), () -> {
+            Account recipient = accountRepository.findById(recipientId)
+                .orElseThrow(() -> new IllegalArgumentException("Recipient Account not found"));
+            Transaction pending = transactionRepository.findByTransactionIdAndCreatedAt(pendingKey.getTransactionId(), pendingKey.getCreatedAt())
+                .orElseThrow(() -> new IllegalArgumentException("No pending transaction found"));
+            // check the PENDING transaction
+            System.out.println(ANSI_GREEN +"--> Found pending transaction: " + pending.getTransactionId() + " amount: " + pending.getAmount()+ANSI_RESET + " transaction status: " + pending.getTransactionStatus());
 
-        if (accept){
-            // Accept: credit recipient account
-            recipient.setBalance(recipient.getBalance().add(transaction.getAmount()));
-            transaction.setTransactionStatus(TransactionStatus.COMPLETED);
-            transaction.setProcessedAt(OffsetDateTime.now());
-        }
-        else{
-             // Decline: refund sender
-            Account sender = transaction.getFromAccount();
-            sender.setBalance(sender.getBalance().add(transaction.getAmount()));
-            transaction.setTransactionStatus(TransactionStatus.CANCELLED);
-            transaction.setProcessedAt(OffsetDateTime.now());
-        }
-        transactionRepository.save(transaction);
+            // Ensure this transaction is for the recipient
+            if (!pending.getToAccount().getAccountNumber().equals(recipient.getAccountNumber())) {
+                throw new SecurityException("This transaction does not belong to the connected user");
+            }
+
+            // Ensure it is still pending (another request may have settled it while we waited for the locks)
+            if (pending.getTransactionStatus() != TransactionStatus.PENDING) {
+                throw new IllegalStateException("This transaction is not pending");
+            }
+
+            Account sender = pending.getFromAccount();
+            if (accept){
+                // Accept: the held amount leaves the sender's balance and is credited to both recipient columns
+                sender.setBalance(sender.getBalance().subtract(pending.getAmount()));
+                recipient.setBalance(recipient.getBalance().add(pending.getAmount()));
+                recipient.setAvailableBalance(recipient.getAvailableBalance().add(pending.getAmount()));
+                pending.setTransactionStatus(TransactionStatus.COMPLETED);
+                pending.setProcessedAt(OffsetDateTime.now());
+                ledgerService.post(List.of(new Posting(pending.getTransactionId(), sender.getId(), recipient.getId(), pending.getAmount())));
+            }
+            else{
+                 // Decline: release the sender's hold, balance never moved
+                sender.setAvailableBalance(sender.getAvailableBalance().add(pending.getAmount()));
+                spendLimitService.release(sender.getId(), pending.getAmount(), pending.getCreatedAt());
+                pending.setTransactionStatus(TransactionStatus.CANCELLED);
+                pending.setProcessedAt(OffsetDateTime.now());
+            }
+            accountHoldIndex.release(sender.getId(), pending.getTransactionId());
+            return transactionRepository.save(pending);
+        });
         // Build response 
         TransferRequestDto.ReceiveMoneyResponse response = new TransferRequestDto.ReceiveMoneyResponse();
         response.setTransactionId(transaction.getTransactionId());
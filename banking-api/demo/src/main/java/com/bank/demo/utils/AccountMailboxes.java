@@ -0,0 +1,109 @@
+package com.bank.demo.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * One mailbox per account, processed by at most one thread at a time: every message of an
+ * account is handled in order, by a single writer. Mailboxes are run by a shared dispatcher
+ * pool (Java 17 has no virtual threads): a mailbox with messages is queued on the pool, hands
+ * up to maxBatch messages to the handler in one call, and goes back to the end of the pool's
+ * queue if more arrived, so a hot account cannot starve the others. Empty mailboxes are
+ * dropped, memory only grows with the accounts that have work waiting.
+ */
+public class AccountMailboxes<M> {
+
+    private final ConcurrentHashMap<UUID, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ExecutorService dispatcher;
+    private final int capacity;
+    private final int maxBatch;
+    private final BiConsumer<UUID, List<M>> handler;
+
+    public AccountMailboxes(String name, int threads, int capacity, int maxBatch, BiConsumer<UUID, List<M>> handler) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.capacity = capacity;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.handler = handler;
+    }
+
+    // False when the account's mailbox is full
+    public boolean offer(UUID accountId, M message) {
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(accountId, Mailbox::new);
+            synchronized (mailbox) {
+                if (mailbox.closed) {
+                    // Dropped by its last run in the meantime: take the new one
+                    continue;
+                }
+                if (mailbox.messages.size() >= capacity) {
+                    return false;
+                }
+                mailbox.messages.add(message);
+                if (!mailbox.scheduled) {
+                    mailbox.scheduled = true;
+                    dispatcher.execute(mailbox);
+                }
+                return true;
+            }
+        }
+    }
+
+    public int mailboxCount() {
+        return mailboxes.size();
+    }
+
+    public void shutdown() throws InterruptedException {
+        dispatcher.shutdown();
+        dispatcher.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private final class Mailbox implements Runnable {
+
+        private final UUID accountId;
+        private final ArrayDeque<M> messages = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean closed;
+
+        Mailbox(UUID accountId) {
+            this.accountId = accountId;
+        }
+
+        @Override
+        public void run() {
+            List<M> batch = new ArrayList<>();
+            synchronized (this) {
+                while (batch.size() < maxBatch && !messages.isEmpty()) {
+                    batch.add(messages.poll());
+                }
+            }
+            try {
+                handler.accept(accountId, batch);
+            } catch (RuntimeException e) {
+                // The handler owns error reporting; the mailbox must keep running whatever happens
+                System.err.println("--> Mailbox of account " + accountId + " failed on " + batch.size() + " messages: " + e.getMessage());
+            }
+            synchronized (this) {
+                if (messages.isEmpty()) {
+                    scheduled = false;
+                    closed = true;
+                    mailboxes.remove(accountId, this);
+                } else {
+                    dispatcher.execute(this);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.bank.demo.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: level 0 has one bucket per tick, and every level above covers
+ * wheelSize times the span of the one below. Scheduling is O(1) whatever the deadline, and
+ * entries of a higher level cascade down when its bucket comes around, so a million timers
+ * cost a few lists instead of a million threads or a sorted structure.
+ * Deadlines are rounded up to the next tick: an entry never fires before its deadline.
+ * Not tied to a clock: the owner calls {@link #advance(long)} with the current time.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private record Entry<T>(T item, long deadlineTick) {}
+
+    private final long tickMs;
+    private final int wheelSize;
+    // levels.get(l)[slot] holds the entries whose deadlineTick / wheelSize^l maps to that slot
+    private final List<List<Entry<T>>[]> levels = new ArrayList<>();
+    private final List<T> expired = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize at least 2");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTick = startMs / tickMs;
+    }
+
+    public synchronized void schedule(T item, long deadlineMs) {
+        place(new Entry<>(item, Math.floorDiv(deadlineMs + tickMs - 1, tickMs)));
+        size++;
+    }
+
+    // Moves the wheel to nowMs and returns every entry whose deadline is now reached
+    public synchronized List<T> advance(long nowMs) {
+        long targetTick = nowMs / tickMs;
+        if (size == expired.size()) {
+            // Nothing is waiting in the buckets: jump instead of walking every tick
+            currentTick = Math.max(currentTick, targetTick);
+        }
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            List<Entry<T>> due = takeBucket(0, currentTick);
+            if (due != null) {
+                due.forEach(e -> expired.add(e.item()));
+            }
+        }
+        List<T> result = new ArrayList<>(expired);
+        expired.clear();
+        size -= result.size();
+        return result;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void place(Entry<T> entry) {
+        if (entry.deadlineTick() <= currentTick) {
+            expired.add(entry.item());
+            return;
+        }
+        long span = 1;
+        for (int level = 0; ; level++) {
+            if (entry.deadlineTick() / span - currentTick / span < wheelSize) {
+                bucket(level, entry.deadlineTick() / span).add(entry);
+                return;
+            }
+            span = Math.multiplyExact(span, wheelSize);
+        }
+    }
+
+    // When a tick starts a new turn of a higher level, that level's bucket is redistributed to the levels below
+    private void cascade() {
+        if (currentTick % wheelSize != 0) {
+            return;
+        }
+        // Top-down, so entries coming from a higher level can still cascade further in the same tick
+        for (int level = levels.size() - 1; level >= 1; level--) {
+            long levelSpan = pow(level);
+            if (currentTick % levelSpan == 0) {
+                List<Entry<T>> entries = takeBucket(level, currentTick);
+                if (entries != null) {
+                    entries.forEach(this::place);
+                }
+            }
+        }
+    }
+
+    private List<Entry<T>> takeBucket(int level, long tick) {
+        if (level >= levels.size()) {
+            return null;
+        }
+        List<Entry<T>>[] buckets = levels.get(level);
+        int slot = (int) Math.floorMod(tick / pow(level), (long) wheelSize);
+        List<Entry<T>> entries = buckets[slot];
+        buckets[slot] = null;
+        return entries;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<Entry<T>> bucket(int level, long levelTick) {
+        while (levels.size() <= level) {
+            levels.add(new List[wheelSize]);
+        }
+        List<Entry<T>>[] buckets = levels.get(level);
+        int slot = (int) Math.floorMod(levelTick, (long) wheelSize);
+        if (buckets[slot] == null) {
+            buckets[slot] = new ArrayList<>();
+        }
+        return buckets[slot];
+    }
+
+    private long pow(int level) {
+        long span = 1;
+        for (int i = 0; i < level; i++) {
+            span *= wheelSize;
+        }
+        return span;
+    }
+}
@@ -0,0 +1,40 @@
+package com.bank.demo.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a newest-first transaction history: the (created_at, transaction_id) of the last row
+ * a client has seen. The next page seeks past it through the index instead of skipping an OFFSET of
+ * rows, so page 1,000 costs the same as page 1. Clients get it as an opaque base64url token.
+ */
+public record HistoryCursor(OffsetDateTime createdAt, UUID transactionId) {
+
+    public static HistoryCursor after(OffsetDateTime createdAt, UUID transactionId) {
+        return new HistoryCursor(createdAt, transactionId);
+    }
+
+    public String encode() {
+        String raw = createdAt.toInstant() + "|" + transactionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // null for no cursor (first page); IllegalArgumentException when the token was not issued by encode()
+    public static HistoryCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new HistoryCursor(Instant.parse(raw.substring(0, separator)).atOffset(ZoneOffset.UTC),
+                UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.bank.demo.utils;
+
+import java.util.Locale;
+
+/**
+ * Canonical forms of the values an Interac recipient is matched on, so that "John.Doe@Example.com "
+ * and "john.doe@example.com", or "(514) 555-0100" and "+1 514 555 0100", find the same transfer.
+ * Security answers are normalized the same way before hashing: case and spacing never matter.
+ */
+public final class InteracContacts {
+
+    private InteracContacts() {
+    }
+
+    // Trimmed and lower case; null when blank
+    public static String email(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Digits only, with the North American country code when it was left out; null when there are no digits
+    public static String phone(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        String digits = phone.replaceAll("[^0-9]", "");
+        if (digits.isEmpty()) {
+            return null;
+        }
+        return digits.length() == 10 ? "1" + digits : digits;
+    }
+
+    // Lower case with runs of whitespace collapsed to one space; null when blank
+    public static String answer(String answer) {
+        if (answer == null || answer.isBlank()) {
+            return null;
+        }
+        return answer.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
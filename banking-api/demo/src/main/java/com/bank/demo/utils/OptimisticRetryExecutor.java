@@ -0,0 +1,80 @@
+package com.bank.demo.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+
+/**
+ * Re-runs a unit of work when it loses an optimistic version check. Every retry waits a
+ * random time below an exponentially growing, capped bound (full jitter), so writers that
+ * collided on the same account spread out instead of colliding again.
+ * Attempts, conflicts and exhausted retries are counted per operation in Micrometer.
+ */
+@Component
+public class OptimisticRetryExecutor {
+
+    @FunctionalInterface
+    public interface RetryableAction<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    public OptimisticRetryExecutor(MeterRegistry meterRegistry,
+                                   @Value("${banking.transfer.retry.max-attempts:5}") int maxAttempts,
+                                   @Value("${banking.transfer.retry.initial-backoff-ms:5}") long initialBackoffMs,
+                                   @Value("${banking.transfer.retry.max-backoff-ms:200}") long maxBackoffMs) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = Math.max(1, initialBackoffMs);
+        this.maxBackoffMs = Math.max(this.initialBackoffMs, maxBackoffMs);
+    }
+
+    public <T, E extends Exception> T execute(String operation, RetryableAction<T, E> action) throws E {
+        Counter attempts = counter("banking.transfer.optimistic.attempts", operation);
+        Counter conflicts = counter("banking.transfer.optimistic.conflicts", operation);
+        for (int attempt = 1; ; attempt++) {
+            attempts.increment();
+            try {
+                return action.run();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    counter("banking.transfer.optimistic.exhausted", operation).increment();
+                    System.err.println("--> " + operation + " gave up after " + attempt + " optimistic lock conflicts");
+                    throw e;
+                }
+                System.out.println("--> " + operation + " hit a concurrent account update, retry " + attempt + "/" + (maxAttempts - 1));
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    // Full jitter: uniform in [0, min(max, initial * 2^(attempt-1))]
+    public long backoffBound(int attempt) {
+        long bound = initialBackoffMs << Math.min(attempt - 1, 20);
+        return Math.min(bound, maxBackoffMs);
+    }
+
+    private void backOff(int attempt, RuntimeException conflict) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffBound(attempt) + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return Counter.builder(name).tag("operation", operation).register(meterRegistry);
+    }
+}
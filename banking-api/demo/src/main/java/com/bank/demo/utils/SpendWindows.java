@@ -0,0 +1,163 @@
+package com.bank.demo.utils;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sliding-window spend per key (account id), in cents: the last 24 hours in hourly buckets and
+ * the last 30 days in daily buckets. Buckets are rings tagged with the hour or day they hold, so
+ * old ones are recycled lazily and nothing runs on a timer. The map is a ConcurrentHashMap and
+ * each window has its own monitor: two accounts never contend, and a check-and-add on one
+ * account is a couple of array scans under an uncontended lock.
+ */
+public class SpendWindows {
+
+    public enum Window { DAILY, MONTHLY }
+
+    private static final long HOUR_MS = 3_600_000L;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    private static final int HOURS = 24;
+    private static final int DAYS = 30;
+
+    private final ConcurrentHashMap<UUID, SpendWindow> windows = new ConcurrentHashMap<>();
+
+    // Adds the amount unless it would take the key over one of the limits (negative: no limit); returns the window exceeded, or null
+    public Window tryAdd(UUID key, long cents, long atMillis, long dailyLimitCents, long monthlyLimitCents) {
+        while (true) {
+            SpendWindow window = windows.computeIfAbsent(key, k -> new SpendWindow());
+            synchronized (window) {
+                if (window.pruned) {
+                    continue;
+                }
+                long hour = atMillis / HOUR_MS;
+                long day = atMillis / DAY_MS;
+                if (dailyLimitCents >= 0 && window.hourly.sum(hour) + cents > dailyLimitCents) {
+                    return Window.DAILY;
+                }
+                if (monthlyLimitCents >= 0 && window.daily.sum(day) + cents > monthlyLimitCents) {
+                    return Window.MONTHLY;
+                }
+                window.hourly.add(hour, cents);
+                window.daily.add(day, cents);
+                return null;
+            }
+        }
+    }
+
+    // Unconditional add, to rebuild the windows from past transfers
+    public void add(UUID key, long cents, long atMillis) {
+        while (true) {
+            SpendWindow window = windows.computeIfAbsent(key, k -> new SpendWindow());
+            synchronized (window) {
+                if (window.pruned) {
+                    continue;
+                }
+                window.hourly.add(atMillis / HOUR_MS, cents);
+                window.daily.add(atMillis / DAY_MS, cents);
+                return;
+            }
+        }
+    }
+
+    // Takes back an amount added at atMillis (cancelled transfer); nothing to do once its buckets have been recycled
+    public void remove(UUID key, long cents, long atMillis) {
+        SpendWindow window = windows.get(key);
+        if (window == null) {
+            return;
+        }
+        synchronized (window) {
+            window.hourly.subtract(atMillis / HOUR_MS, cents);
+            window.daily.subtract(atMillis / DAY_MS, cents);
+        }
+    }
+
+    public long spentLastDay(UUID key, long nowMillis) {
+        SpendWindow window = windows.get(key);
+        if (window == null) {
+            return 0;
+        }
+        synchronized (window) {
+            return window.hourly.sum(nowMillis / HOUR_MS);
+        }
+    }
+
+    public long spentLastMonth(UUID key, long nowMillis) {
+        SpendWindow window = windows.get(key);
+        if (window == null) {
+            return 0;
+        }
+        synchronized (window) {
+            return window.daily.sum(nowMillis / DAY_MS);
+        }
+    }
+
+    // Drops the windows with nothing left in the last 30 days
+    public void prune(long nowMillis) {
+        long day = nowMillis / DAY_MS;
+        windows.forEach((key, window) -> {
+            synchronized (window) {
+                if (window.daily.sum(day) == 0) {
+                    // Writers that already hold a reference see the flag and take a fresh window
+                    window.pruned = true;
+                    windows.remove(key, window);
+                }
+            }
+        });
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    public void clear() {
+        windows.clear();
+    }
+
+    private static final class SpendWindow {
+        private final Ring hourly = new Ring(HOURS);
+        private final Ring daily = new Ring(DAYS);
+        private boolean pruned;
+    }
+
+    // amounts[i] belongs to period periods[i]; a slot holding an older period is stale
+    private static final class Ring {
+        private final long[] amounts;
+        private final long[] periods;
+
+        Ring(int size) {
+            amounts = new long[size];
+            periods = new long[size];
+            Arrays.fill(periods, Long.MIN_VALUE);
+        }
+
+        long sum(long current) {
+            long sum = 0;
+            for (int i = 0; i < amounts.length; i++) {
+                if (periods[i] > current - amounts.length && periods[i] <= current) {
+                    sum += amounts[i];
+                }
+            }
+            return sum;
+        }
+
+        void add(long period, long cents) {
+            int slot = (int) Math.floorMod(period, (long) amounts.length);
+            if (periods[slot] < period) {
+                periods[slot] = period;
+                amounts[slot] = 0;
+            } else if (periods[slot] > period) {
+                // Older than the window the slot already moved on to
+                return;
+            }
+            amounts[slot] += cents;
+        }
+
+        void subtract(long period, long cents) {
+            int slot = (int) Math.floorMod(period, (long) amounts.length);
+            if (periods[slot] == period) {
+                amounts[slot] = Math.max(0, amounts[slot] - cents);
+            }
+        }
+    }
+}
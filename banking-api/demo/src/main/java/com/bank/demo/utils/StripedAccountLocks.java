@@ -0,0 +1,98 @@
+package com.bank.demo.utils;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fixed pool of locks shared by all accounts. An account id always maps to the same
+ * stripe, so two transfers touching the same account are serialized while transfers
+ * on unrelated accounts run in parallel. Stripes are always taken in ascending index
+ * order, which rules out lock-ordering deadlocks between A->B and B->A transfers.
+ */
+@Component
+public class StripedAccountLocks {
+
+    @FunctionalInterface
+    public interface LockedAction<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public StripedAccountLocks(@Value("${banking.transfer.lock-stripes:1024}") int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("stripeCount must be positive");
+        }
+        // Round up to a power of two so the stripe index is a simple mask
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    public int stripeFor(UUID accountId) {
+        int h = accountId.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    // Locks the stripes of both accounts (once if they share a stripe) for the duration of the action
+    public <T, E extends Exception> T withAccountLocks(UUID first, UUID second, LockedAction<T, E> action) throws E {
+        int a = stripeFor(first);
+        int b = second == null ? a : stripeFor(second);
+        ReentrantLock low = stripes[Math.min(a, b)];
+        ReentrantLock high = stripes[Math.max(a, b)];
+        low.lock();
+        try {
+            if (high != low) {
+                high.lock();
+            }
+            try {
+                return action.run();
+            } finally {
+                if (high != low) {
+                    high.unlock();
+                }
+            }
+        } finally {
+            low.unlock();
+        }
+    }
+
+    // Same as above for an arbitrary set of accounts (batch and bulk paths)
+    public <T, E extends Exception> T withAccountLocks(Collection<UUID> accountIds, LockedAction<T, E> action) throws E {
+        TreeSet<Integer> ordered = new TreeSet<>();
+        for (UUID id : accountIds) {
+            if (id != null) {
+                ordered.add(stripeFor(id));
+            }
+        }
+        int locked = 0;
+        Integer[] indexes = ordered.toArray(new Integer[0]);
+        try {
+            for (Integer index : indexes) {
+                stripes[index].lock();
+                locked++;
+            }
+            return action.run();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.bank.demo.utils;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UUIDv7 ids (RFC 9562): 48 bits of unix milliseconds, then a 12-bit counter, then 62 random bits.
+ * Ids created later compare greater, both in Java and in PostgreSQL, so inserts land on the right
+ * edge of the primary key index instead of a random leaf page.
+ * Lock-free: the timestamp and counter live in one AtomicLong advanced with a CAS. A burst of more
+ * than 4096 ids in one millisecond borrows from the next millisecond, and a clock going backwards
+ * keeps the last timestamp, so ids never repeat or go back.
+ */
+public final class TimeOrderedUuid {
+
+    private static final int COUNTER_BITS = 12;
+    // unix millis << COUNTER_BITS | counter, of the last id handed out
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private TimeOrderedUuid() {
+    }
+
+    public static UUID next() {
+        long now = System.currentTimeMillis() << COUNTER_BITS;
+        long state = LAST.updateAndGet(last -> Math.max(last + 1, now));
+        long millis = state >>> COUNTER_BITS;
+        long counter = state & ((1L << COUNTER_BITS) - 1);
+        long mostSigBits = millis << 16 | 0x7000L | counter;
+        long leastSigBits = ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    // Creation time embedded in a UUIDv7, in unix milliseconds
+    public static long timestampMillis(UUID id) {
+        if (id.version() != 7) {
+            throw new IllegalArgumentException("Not a time ordered UUID: " + id);
+        }
+        return id.getMostSignificantBits() >>> 16;
+    }
+}
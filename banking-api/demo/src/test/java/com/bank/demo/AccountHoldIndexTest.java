@@ -0,0 +1,67 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.bank.demo.model.enums.TransactionStatus;
+import com.bank.demo.repository.transactionRepository;
+import com.bank.demo.repository.transactionRepository.OpenHold;
+import com.bank.demo.service.AccountHoldIndex;
+
+public class AccountHoldIndexTest {
+
+    private final transactionRepository transactionRepository = mock(transactionRepository.class);
+    private final AccountHoldIndex index = new AccountHoldIndex(transactionRepository);
+
+    @Test
+    void testPlaceAndReleaseHolds() {
+        UUID account = UUID.randomUUID();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        index.place(account, first, new BigDecimal("10.00"));
+        index.place(account, second, new BigDecimal("2.50"));
+        assertEquals(0, new BigDecimal("12.50").compareTo(index.heldAmount(account)));
+        assertEquals(2, index.openHolds(account));
+
+        index.release(account, first);
+        assertEquals(0, new BigDecimal("2.50").compareTo(index.heldAmount(account)));
+
+        // Releasing twice (e.g. a retried settlement) changes nothing
+        index.release(account, first);
+        index.release(account, second);
+        assertEquals(0, BigDecimal.ZERO.compareTo(index.heldAmount(account)));
+        assertEquals(0, index.openHolds(account));
+    }
+
+    @Test
+    void testRebuildFromPendingTransactions() {
+        UUID account = UUID.randomUUID();
+        when(transactionRepository.findOpenHolds(TransactionStatus.PENDING)).thenReturn(List.of(
+            hold(account, new BigDecimal("100.00")),
+            hold(account, new BigDecimal("0.01")),
+            hold(UUID.randomUUID(), new BigDecimal("5.00"))));
+        index.place(account, UUID.randomUUID(), new BigDecimal("999.00"));
+
+        index.rebuild();
+
+        assertEquals(0, new BigDecimal("100.01").compareTo(index.heldAmount(account)));
+        assertEquals(2, index.openHolds(account));
+    }
+
+    private static OpenHold hold(UUID accountId, BigDecimal amount) {
+        UUID transactionId = UUID.randomUUID();
+        return new OpenHold() {
+            public UUID getFromAccountId() { return accountId; }
+            public UUID getTransactionId() { return transactionId; }
+            public BigDecimal getAmount() { return amount; }
+        };
+    }
+}
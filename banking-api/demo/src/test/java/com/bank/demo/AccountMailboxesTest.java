@@ -0,0 +1,109 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.bank.demo.utils.AccountMailboxes;
+
+public class AccountMailboxesTest {
+
+    @Test
+    void testEachAccountHasOneWriterAndKeepsItsOrder() throws Exception {
+        int accounts = 20;
+        int producers = 8;
+        int perProducer = 2_000;
+        List<UUID> accountIds = new ArrayList<>();
+        for (int i = 0; i < accounts; i++) {
+            accountIds.add(UUID.randomUUID());
+        }
+        Map<UUID, AtomicInteger> running = new ConcurrentHashMap<>();
+        // Per account and producer, the last sequence number seen: deliberately not thread-safe
+        Map<UUID, int[]> lastSeen = new ConcurrentHashMap<>();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicInteger outOfOrder = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers * perProducer);
+
+        AccountMailboxes<int[]> mailboxes = new AccountMailboxes<>("test-mailbox", 8, Integer.MAX_VALUE, 16, (accountId, batch) -> {
+            if (running.computeIfAbsent(accountId, id -> new AtomicInteger()).incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            int[] last = lastSeen.computeIfAbsent(accountId, id -> new int[producers]);
+            for (int[] message : batch) {
+                if (message[1] <= last[message[0]]) {
+                    outOfOrder.incrementAndGet();
+                }
+                last[message[0]] = message[1];
+                done.countDown();
+            }
+            running.get(accountId).decrementAndGet();
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            pool.submit(() -> {
+                for (int i = 1; i <= perProducer; i++) {
+                    // Skewed: most messages go to the first account
+                    UUID accountId = accountIds.get(i % 5 == 0 ? i % accounts : 0);
+                    mailboxes.offer(accountId, new int[] {producer, i});
+                }
+            });
+        }
+        pool.shutdown();
+
+        assertTrue(done.await(30, TimeUnit.SECONDS), "Messages were lost");
+        assertEquals(0, overlaps.get(), "Two threads ran the same mailbox");
+        assertEquals(0, outOfOrder.get(), "Messages of one producer were reordered");
+        mailboxes.shutdown();
+    }
+
+    @Test
+    void testFullMailboxRejectsAndHandlerFailureDoesNotStopTheMailbox() throws Exception {
+        UUID accountId = UUID.randomUUID();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> handled = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        AccountMailboxes<Integer> mailboxes = new AccountMailboxes<>("test-mailbox", 1, 2, 1, (id, batch) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (handled) {
+                handled.addAll(batch);
+            }
+            batch.forEach(m -> done.countDown());
+            if (batch.contains(1)) {
+                throw new IllegalStateException("boom");
+            }
+        });
+
+        assertTrue(mailboxes.offer(accountId, 1));
+        // Message 1 is being handled: 2 and 3 fill the mailbox, 4 does not fit
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertTrue(mailboxes.offer(accountId, 2));
+        assertTrue(mailboxes.offer(accountId, 3));
+        assertFalse(mailboxes.offer(accountId, 4));
+        release.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2, 3), handled);
+        mailboxes.shutdown();
+    }
+}
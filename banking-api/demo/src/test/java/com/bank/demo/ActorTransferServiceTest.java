@@ -0,0 +1,77 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.bank.demo.Dtos.TransferRequestDto.TransferRequest;
+import com.bank.demo.model.Account;
+import com.bank.demo.model.enums.TransactionType;
+import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.TransactionBatchRepository;
+import com.bank.demo.service.AccountHoldIndex;
+import com.bank.demo.service.ActorTransferService;
+import com.bank.demo.service.SpendLimitService;
+import com.bank.demo.service.TransferExecutionEngine;
+import com.bank.demo.service.TransferExecutionEngine.TransferWork;
+import com.bank.demo.service.TransferPricingService;
+
+public class ActorTransferServiceTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final TransactionBatchRepository transactionBatchRepository = mock(TransactionBatchRepository.class);
+    private final TransferExecutionEngine transferExecutionEngine = mock(TransferExecutionEngine.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final Account sender = new Account();
+    private final ActorTransferService service;
+
+    public ActorTransferServiceTest() throws Exception {
+        sender.setId(UUID.randomUUID());
+        sender.setAvailableBalance(new BigDecimal("100.00"));
+        when(accountRepository.findById(sender.getId())).thenReturn(Optional.of(sender));
+        // A slow group: runs the work only once the test lets it
+        when(transferExecutionEngine.execute(anyString(), anyCollection(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return ((TransferWork<?, ?>) invocation.getArgument(2)).run();
+        });
+        service = new ActorTransferService(accountRepository, transactionBatchRepository, transferExecutionEngine,
+            mock(AccountHoldIndex.class), mock(TransferPricingService.class), mock(SpendLimitService.class), 1, 10, 8, 50);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        service.stop();
+    }
+
+    @Test
+    void testTimeoutAnswersProcessingAndTheTransferStillCommits() throws Exception {
+        TransferRequest request = new TransferRequest();
+        request.setAmount(25.0);
+        request.setTransactionType("TRANSFER");
+        request.setCurrency("CAD");
+
+        // Not an error: the caller answers PROCESSING with the reference, so a retry does not send it twice
+        Optional<UUID> transactionId = service.send(sender.getId(), UUID.randomUUID(), request, TransactionType.TRANSFER, "CA-REF");
+        assertTrue(transactionId.isEmpty());
+
+        release.countDown();
+        verify(transactionBatchRepository, timeout(5000)).insertAll(any());
+        assertEquals(new BigDecimal("75.00"), sender.getAvailableBalance());
+    }
+}
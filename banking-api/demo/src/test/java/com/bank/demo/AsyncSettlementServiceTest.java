@@ -0,0 +1,176 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.bank.demo.Dtos.TransferRequestDto.TransferStatusResponse;
+import com.bank.demo.exceptions.AccountNotFoundException;
+import com.bank.demo.model.Account;
+import com.bank.demo.model.Transaction;
+import com.bank.demo.model.enums.TransactionStatus;
+import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.transactionRepository;
+import com.bank.demo.repository.transactionRepository.PendingSettlement;
+import com.bank.demo.service.AsyncSettlementService;
+import com.bank.demo.service.BulkSettlementService;
+import com.bank.demo.service.BulkSettlementService.SettlementDecision;
+import com.bank.demo.utils.TimeOrderedUuid;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AsyncSettlementServiceTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final transactionRepository transactionRepository = mock(transactionRepository.class);
+    private final BulkSettlementService bulkSettlementService = mock(BulkSettlementService.class);
+    // Long linger so every decision of the test lands in the same micro-batch
+    private final AsyncSettlementService service = new AsyncSettlementService(accountRepository, transactionRepository,
+        bulkSettlementService, new SimpleMeterRegistry(), 100, 50, 300);
+
+    private final UUID recipient = UUID.randomUUID();
+
+    @BeforeEach
+    void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("jdoe@example.com", null));
+        when(accountRepository.isAnyOwnedBy(List.of(recipient), "jdoe@example.com")).thenReturn(true);
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        service.stop();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testQueuedDecisionsAreSettledInOneBatch() {
+        List<PendingSettlement> pending = List.of(transfer("10.00"), transfer("20.00"), transfer("30.00"));
+        when(transactionRepository.findPendingSettlementsByRecipient(recipient, TransactionStatus.PENDING)).thenReturn(pending);
+        when(accountRepository.isAnyOwnedBy(anyCollection(), eq("jdoe@example.com"))).thenReturn(true);
+        service.start();
+
+        List<TransferStatusResponse> responses = service.enqueue(recipient.toString(), true, null);
+
+        assertEquals(3, responses.size());
+        responses.forEach(r -> assertEquals(AsyncSettlementService.QUEUED, r.getStatus()));
+        assertEquals(AsyncSettlementService.QUEUED, service.status(pending.get(0).getTransactionId()).get().getStatus());
+
+        ArgumentCaptor<List<SettlementDecision>> batch = ArgumentCaptor.forClass(List.class);
+        verify(bulkSettlementService, timeout(5000)).settle(eq("settle-async"), batch.capture());
+        assertEquals(3, batch.getValue().size());
+        batch.getValue().forEach(d -> assertEquals(true, d.accept()));
+    }
+
+    @Test
+    void testFailedBatchIsRetriedOneByOne() {
+        List<PendingSettlement> pending = List.of(transfer("10.00"), transfer("20.00"));
+        when(transactionRepository.findPendingSettlementsByRecipient(recipient, TransactionStatus.PENDING)).thenReturn(pending);
+        when(bulkSettlementService.settle(eq("settle-async"), anyList()))
+            .thenThrow(new IllegalStateException("deadlock detected"))
+            .thenReturn(List.of());
+        service.start();
+
+        service.enqueue(recipient.toString(), false, null);
+
+        // One failed batch call, then one call per decision
+        verify(bulkSettlementService, timeout(5000).times(3)).settle(eq("settle-async"), anyList());
+    }
+
+    @Test
+    void testStatusIsOnlyShownToTheSenderOrRecipient() throws Exception {
+        PendingSettlement queued = transfer("10.00");
+        when(transactionRepository.findPendingSettlementsByRecipient(recipient, TransactionStatus.PENDING)).thenReturn(List.of(queued));
+        // Hold the worker in the settlement so the decision stays queued
+        CountDownLatch release = new CountDownLatch(1);
+        when(bulkSettlementService.settle(eq("settle-async"), anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        service.start();
+        service.enqueue(recipient.toString(), true, null);
+
+        // Still queued, but not one of the caller's accounts
+        assertTrue(service.status(queued.getTransactionId()).isEmpty());
+        verify(accountRepository).isAnyOwnedBy(List.of(queued.getFromAccountId(), recipient), "jdoe@example.com");
+
+        // Settled: read from its partitions only, from one minute before the time in its id
+        UUID settledId = TimeOrderedUuid.next();
+        OffsetDateTime notBefore = Instant.ofEpochMilli(TimeOrderedUuid.timestampMillis(settledId)).minusSeconds(60).atOffset(ZoneOffset.UTC);
+        Account sender = new Account();
+        sender.setId(UUID.randomUUID());
+        Transaction settled = new Transaction();
+        settled.setTransactionId(settledId);
+        settled.setFromAccount(sender);
+        settled.setTransactionStatus(TransactionStatus.COMPLETED);
+        settled.setAmount(new BigDecimal("25.00"));
+        when(transactionRepository.findFirstByTransactionIdAndCreatedAtGreaterThanEqual(settledId, notBefore)).thenReturn(Optional.of(settled));
+        when(accountRepository.isAnyOwnedBy(List.of(sender.getId()), "jdoe@example.com")).thenReturn(true);
+
+        assertEquals("COMPLETED", service.status(settledId).get().getStatus());
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("asmith@example.com", null));
+        assertTrue(service.status(settledId).isEmpty());
+        verify(transactionRepository, times(2)).findFirstByTransactionIdAndCreatedAtGreaterThanEqual(eq(settledId), any());
+
+        // Created before ids were time ordered: a random id, looked up without a bound
+        UUID legacyId = UUID.randomUUID();
+        Transaction legacy = new Transaction();
+        legacy.setTransactionId(legacyId);
+        legacy.setFromAccount(sender);
+        legacy.setTransactionStatus(TransactionStatus.PENDING);
+        legacy.setAmount(new BigDecimal("5.00"));
+        when(transactionRepository.findByTransactionId(legacyId)).thenReturn(List.of(legacy));
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("jdoe@example.com", null));
+        assertEquals("PENDING", service.status(legacyId).get().getStatus());
+        release.countDown();
+    }
+
+    @Test
+    void testOnlyTheRecipientsOwnerCanQueueDecisions() {
+        service.start();
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("asmith@example.com", null));
+
+        assertThrows(AccountNotFoundException.class, () -> service.enqueue(recipient.toString(), false, null));
+        verify(transactionRepository, never()).findPendingSettlementsByRecipient(any(), any());
+    }
+
+    private PendingSettlement transfer(String amount) {
+        UUID transactionId = UUID.randomUUID();
+        OffsetDateTime createdAt = OffsetDateTime.now();
+        UUID sender = UUID.randomUUID();
+        return new PendingSettlement() {
+            public UUID getTransactionId() { return transactionId; }
+            public OffsetDateTime getCreatedAt() { return createdAt; }
+            public UUID getFromAccountId() { return sender; }
+            public UUID getToAccountId() { return recipient; }
+            public BigDecimal getAmount() { return new BigDecimal(amount); }
+        };
+    }
+}
@@ -0,0 +1,156 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bank.demo.Dtos.TransferRequestDto.BatchTransferResponse;
+import com.bank.demo.Dtos.TransferRequestDto.BatchTransferResult;
+import com.bank.demo.Dtos.TransferRequestDto.TransferRequest;
+import com.bank.demo.model.Account;
+import com.bank.demo.model.Transaction;
+import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.AccountRepository.AccountNumberId;
+import com.bank.demo.repository.TransactionBatchRepository;
+import com.bank.demo.service.AccountHoldIndex;
+import com.bank.demo.service.BatchTransferService;
+import com.bank.demo.service.SpendLimitService;
+import com.bank.demo.service.TransferExecutionEngine;
+import com.bank.demo.service.TransferExecutionEngine.TransferWork;
+import com.bank.demo.service.TransferPricingService;
+import com.bank.demo.utils.InteracReferenceGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class BatchTransferServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Mock private AccountRepository accountRepository;
+    @Mock private TransferExecutionEngine transferExecutionEngine;
+    @Mock private AccountHoldIndex accountHoldIndex;
+    @Mock private TransferPricingService transferPricingService;
+    @Mock private SpendLimitService spendLimitService;
+    // The real JDBC writes, over a mocked JdbcTemplate
+    @Spy private TransactionBatchRepository transactionBatchRepository = new TransactionBatchRepository(jdbcTemplate, new ObjectMapper());
+    @Spy private InteracReferenceGenerator interacReferenceGenerator = new InteracReferenceGenerator(1);
+
+    @InjectMocks
+    private BatchTransferService service;
+
+    private final Account alice = account("10000001", "100.00");
+    private final Account bob = account("10000002", "20.00");
+
+    private record Resolved(UUID getId, String getAccountNumber) implements AccountNumberId {}
+
+    public BatchTransferServiceTest() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(service, "maxItems", 3);
+        // Run the work directly instead of taking the account locks
+        when(transferExecutionEngine.execute(anyString(), anyCollection(), any()))
+            .thenAnswer(invocation -> ((TransferWork<?, ?>) invocation.getArgument(2)).run());
+        when(accountRepository.findIdsByAccountNumberIn(any())).thenReturn(List.of(
+            new Resolved(alice.getId(), alice.getAccountNumber()), new Resolved(bob.getId(), bob.getAccountNumber())));
+        when(accountRepository.findAllById(any())).thenReturn(List.of(alice, bob));
+    }
+
+    @Test
+    void testEveryItemGetsItsOwnResult() {
+        BatchTransferResponse response = service.sendMoneyBatch(List.of(
+            transfer("10000001", "10000002", 60), transfer("10000001", "10000002", 50), transfer("10000002", "99999999", 5)));
+
+        List<BatchTransferResult> results = response.getResults();
+        assertEquals(3, response.getTotal());
+        assertEquals(1, response.getSucceeded());
+        assertEquals(2, response.getFailed());
+        assertEquals("PENDING", results.get(0).getStatus());
+        assertNotNull(results.get(0).getTransactionId());
+        assertNotNull(results.get(0).getInteracReferenceId());
+        // Only 40.00 is left once the first transfer is held
+        assertEquals("FAILED", results.get(1).getStatus());
+        assertEquals("Not enough balance to complete transfer", results.get(1).getMessage());
+        assertNull(results.get(1).getTransactionId());
+        assertEquals("Recipient Account not found", results.get(2).getMessage());
+        assertEquals(new BigDecimal("40.00"), alice.getAvailableBalance());
+        verify(accountHoldIndex).place(alice.getId(), results.get(0).getTransactionId(), new BigDecimal("60.0"));
+        verify(spendLimitService, never()).reserve(alice.getId(), new BigDecimal("50.0"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRowsAreWrittenAsOneJdbcBatch() throws Exception {
+        BatchTransferResponse response = service.sendMoneyBatch(List.of(
+            transfer("10000001", "10000002", 10), transfer("10000002", "10000001", 5)));
+
+        ArgumentCaptor<List<Transaction>> rows = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Transaction>> setter =
+            ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(eq(sql()), rows.capture(), eq(500), setter.capture());
+        assertEquals(2, rows.getValue().size());
+
+        Transaction first = rows.getValue().get(0);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, first);
+        verify(ps).setObject(1, response.getResults().get(0).getTransactionId());
+        verify(ps).setBigDecimal(6, new BigDecimal("10.0"));
+        verify(ps).setString(9, response.getResults().get(0).getInteracReferenceId());
+        verify(ps).setString(10, "PENDING");
+    }
+
+    @Test
+    void testOversizedBatchIsRejectedBeforeAnyLookup() {
+        List<TransferRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            requests.add(transfer("10000001", "10000002", 1));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> service.sendMoneyBatch(requests));
+        verify(accountRepository, never()).findIdsByAccountNumberIn(any());
+    }
+
+    private static String sql() {
+        return (String) ReflectionTestUtils.getField(TransactionBatchRepository.class, "INSERT_SQL");
+    }
+
+    private static TransferRequest transfer(String from, String to, double amount) {
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountNumber(from);
+        request.setToAccountNumber(to);
+        request.setAmount(amount);
+        request.setTransactionType("TRANSFER");
+        request.setCurrency("CAD");
+        return request;
+    }
+
+    private static Account account(String accountNumber, String availableBalance) {
+        Account account = new Account();
+        account.setId(UUID.randomUUID());
+        account.setAccountNumber(accountNumber);
+        account.setAvailableBalance(new BigDecimal(availableBalance));
+        return account;
+    }
+}
@@ -0,0 +1,162 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.bank.demo.Dtos.TransferRequestDto.BulkSettleResponse;
+import com.bank.demo.exceptions.AccountNotFoundException;
+import com.bank.demo.model.enums.TransactionStatus;
+import com.bank.demo.repository.AccountBatchRepository;
+import com.bank.demo.repository.AccountBatchRepository.BalanceDelta;
+import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.LedgerRepository.Posting;
+import com.bank.demo.repository.TransactionBatchRepository;
+import com.bank.demo.repository.transactionRepository;
+import com.bank.demo.repository.transactionRepository.PendingSettlement;
+import com.bank.demo.service.AccountHoldIndex;
+import com.bank.demo.service.BulkSettlementService;
+import com.bank.demo.service.InteracClaimIndex;
+import com.bank.demo.service.LedgerService;
+import com.bank.demo.service.SpendLimitService;
+import com.bank.demo.service.TransferExecutionEngine;
+import com.bank.demo.service.TransferExecutionEngine.TransferWork;
+
+public class BulkSettlementServiceTest {
+
+    @Mock private AccountRepository accountRepository;
+    @Mock private transactionRepository transactionRepository;
+    @Mock private TransactionBatchRepository transactionBatchRepository;
+    @Mock private AccountBatchRepository accountBatchRepository;
+    @Mock private TransferExecutionEngine transferExecutionEngine;
+    @Mock private AccountHoldIndex accountHoldIndex;
+    @Mock private LedgerService ledgerService;
+    @Mock private SpendLimitService spendLimitService;
+    @Mock private InteracClaimIndex interacClaimIndex;
+
+    @InjectMocks
+    private BulkSettlementService service;
+
+    private final UUID recipient = UUID.randomUUID();
+    private final UUID senderA = UUID.randomUUID();
+    private final UUID senderB = UUID.randomUUID();
+
+    public BulkSettlementServiceTest() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("jdoe@example.com", null));
+        when(accountRepository.isAnyOwnedBy(List.of(recipient), "jdoe@example.com")).thenReturn(true);
+        // Run the work directly instead of taking locks and opening a transaction
+        when(transferExecutionEngine.execute(anyString(), anyCollection(), any()))
+            .thenAnswer(invocation -> ((TransferWork<?, ?>) invocation.getArgument(2)).run());
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAcceptAggregatesOneBalanceUpdatePerAccount() {
+        List<PendingSettlement> pending = List.of(
+            transfer(senderA, "10.00"), transfer(senderA, "5.00"), transfer(senderB, "1.00"), transfer(senderB, "7.00"));
+        when(transactionRepository.findPendingSettlementsByRecipient(recipient, TransactionStatus.PENDING)).thenReturn(pending);
+        // The last transfer was settled concurrently: its row did not match anymore
+        when(transactionBatchRepository.settleAll(anyList(), eq(TransactionStatus.COMPLETED), any())).thenReturn(new int[] {1, 1, 1, 0});
+
+        BulkSettleResponse response = service.settleAll(recipient.toString(), true, null);
+
+        assertEquals("COMPLETED", response.getStatus());
+        assertEquals(4, response.getRequested());
+        assertEquals(3, response.getSettled());
+        assertEquals(0, new BigDecimal("16.00").compareTo(response.getTotalAmount()));
+
+        ArgumentCaptor<SortedMap<UUID, BalanceDelta>> deltas = ArgumentCaptor.forClass(SortedMap.class);
+        verify(accountBatchRepository).applyDeltas(deltas.capture());
+        assertEquals(3, deltas.getValue().size());
+        assertDelta(deltas.getValue().get(senderA), "-15.00", "0");
+        assertDelta(deltas.getValue().get(senderB), "-1.00", "0");
+        assertDelta(deltas.getValue().get(recipient), "16.00", "16.00");
+
+        // One posting per settled transfer, in the same transaction as the balance updates
+        ArgumentCaptor<List<Posting>> postings = ArgumentCaptor.forClass(List.class);
+        verify(ledgerService).post(postings.capture());
+        assertEquals(3, postings.getValue().size());
+        postings.getValue().forEach(p -> assertEquals(recipient, p.creditAccountId()));
+        assertEquals(pending.get(0).getTransactionId(), postings.getValue().get(0).transactionId());
+        assertEquals(0, new BigDecimal("16.00").compareTo(
+            postings.getValue().stream().map(Posting::amount).reduce(BigDecimal.ZERO, BigDecimal::add)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDeclineReleasesHoldsOnly() {
+        List<PendingSettlement> pending = List.of(transfer(senderA, "10.00"), transfer(senderA, "2.00"));
+        when(transactionRepository.findPendingSettlementsByRecipient(recipient, TransactionStatus.PENDING)).thenReturn(pending);
+        when(transactionBatchRepository.settleAll(anyList(), eq(TransactionStatus.CANCELLED), any())).thenReturn(new int[] {1, 1});
+
+        BulkSettleResponse response = service.settleAll(recipient.toString(), false, null);
+
+        assertEquals("CANCELLED", response.getStatus());
+        ArgumentCaptor<SortedMap<UUID, BalanceDelta>> deltas = ArgumentCaptor.forClass(SortedMap.class);
+        verify(accountBatchRepository).applyDeltas(deltas.capture());
+        assertEquals(1, deltas.getValue().size());
+        assertDelta(deltas.getValue().get(senderA), "0", "12.00");
+        verify(accountHoldIndex).release(senderA, pending.get(0).getTransactionId());
+        verify(accountHoldIndex).release(senderA, pending.get(1).getTransactionId());
+        // The declined amounts no longer count against the sender's spending limits
+        verify(spendLimitService).release(senderA, pending.get(0).getAmount(), pending.get(0).getCreatedAt());
+        verify(spendLimitService).release(senderA, pending.get(1).getAmount(), pending.get(1).getCreatedAt());
+        verify(interacClaimIndex).remove(pending.get(0).getTransactionId());
+        // No money moved, nothing to post
+        verify(ledgerService).post(List.of());
+    }
+
+    @Test
+    void testSomeoneElsesAccountIsNotFound() {
+        UUID other = UUID.randomUUID();
+
+        assertThrows(AccountNotFoundException.class, () -> service.settleAll(other.toString(), false, null));
+        // Refused before any pending transfer is read
+        verify(transactionRepository, never()).findPendingSettlementsByRecipient(any(), any());
+    }
+
+    private static void assertDelta(BalanceDelta delta, String balance, String available) {
+        assertEquals(0, new BigDecimal(balance).compareTo(delta.balance()), "balance delta " + delta);
+        assertEquals(0, new BigDecimal(available).compareTo(delta.availableBalance()), "available delta " + delta);
+    }
+
+    private PendingSettlement transfer(UUID from, String amount) {
+        UUID transactionId = UUID.randomUUID();
+        OffsetDateTime createdAt = OffsetDateTime.now();
+        return new PendingSettlement() {
+            public UUID getTransactionId() { return transactionId; }
+            public OffsetDateTime getCreatedAt() { return createdAt; }
+            public UUID getFromAccountId() { return from; }
+            public UUID getToAccountId() { return recipient; }
+            public BigDecimal getAmount() { return new BigDecimal(amount); }
+        };
+    }
+}
@@ -0,0 +1,181 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import com.bank.demo.Dtos.TransferRequestDto.DisbursementItem;
+import com.bank.demo.Dtos.TransferRequestDto.DisbursementRequest;
+import com.bank.demo.Dtos.TransferRequestDto.DisbursementResponse;
+import com.bank.demo.exceptions.InsufficientFundsException;
+import com.bank.demo.exceptions.SpendLimitExceededException;
+import com.bank.demo.model.Account;
+import com.bank.demo.model.Transaction;
+import com.bank.demo.model.enums.AccountType;
+import com.bank.demo.repository.AccountBatchRepository;
+import com.bank.demo.repository.AccountBatchRepository.BalanceDelta;
+import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.AccountRepository.AccountNumberId;
+import com.bank.demo.repository.AccountRepository.ReservedAccount;
+import com.bank.demo.repository.LedgerRepository.Posting;
+import com.bank.demo.repository.TransactionBatchRepository;
+import com.bank.demo.service.DisbursementService;
+import com.bank.demo.service.LedgerService;
+import com.bank.demo.service.SpendLimitService;
+import com.bank.demo.service.TransferExecutionEngine;
+import com.bank.demo.service.TransferExecutionEngine.TransferWork;
+import com.bank.demo.service.TransferPricingService;
+import com.bank.demo.utils.InteracReferenceGenerator;
+
+public class DisbursementServiceTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final AccountBatchRepository accountBatchRepository = mock(AccountBatchRepository.class);
+    private final TransactionBatchRepository transactionBatchRepository = mock(TransactionBatchRepository.class);
+    private final TransferExecutionEngine transferExecutionEngine = mock(TransferExecutionEngine.class);
+    private final LedgerService ledgerService = mock(LedgerService.class);
+    private final SpendLimitService spendLimitService = mock(SpendLimitService.class);
+    private final InteracReferenceGenerator interacReferenceGenerator = mock(InteracReferenceGenerator.class);
+
+    private final DisbursementService service = new DisbursementService(accountRepository, accountBatchRepository,
+        transactionBatchRepository, transferExecutionEngine, ledgerService, mock(TransferPricingService.class),
+        spendLimitService, interacReferenceGenerator, 10);
+
+    // Fixed ids so the payroll account sits between its recipients in account id order
+    private final UUID low = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private final UUID sender = UUID.fromString("00000000-0000-0000-0000-000000000005");
+    private final UUID high = UUID.fromString("00000000-0000-0000-0000-000000000009");
+
+    public DisbursementServiceTest() throws Exception {
+        // Run the work directly instead of taking locks and opening a transaction
+        when(transferExecutionEngine.execute(anyString(), anyCollection(), any()))
+            .thenAnswer(invocation -> ((TransferWork<?, ?>) invocation.getArgument(2)).run());
+        when(accountRepository.findIdByAccountNumber("10000005")).thenReturn(Optional.of(sender));
+        List<AccountNumberId> known = List.of(
+            accountNumberId("10000001", low), accountNumberId("10000005", sender), accountNumberId("10000009", high));
+        when(accountRepository.findIdsByAccountNumberIn(any())).thenReturn(known);
+        Account payroll = new Account();
+        payroll.setId(sender);
+        payroll.setAccountType(AccountType.CHECKING);
+        when(accountRepository.getReferenceById(sender)).thenReturn(payroll);
+        when(interacReferenceGenerator.next()).thenReturn("INT-1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testOneDebitAndCreditsInAccountIdOrder() throws Exception {
+        when(accountRepository.debitIfAvailable(eq(sender), any())).thenReturn(Optional.of(mock(ReservedAccount.class)));
+
+        DisbursementResponse response = service.disburse(request(
+            item("10000009", 100), item("10000001", 40), item("10000404", 5), item("10000005", 5), item("10000009", 0),
+            item("10000009", 60.5)));
+
+        assertEquals(6, response.getTotal());
+        assertEquals(3, response.getSucceeded());
+        assertEquals(3, response.getFailed());
+        assertEquals(0, new BigDecimal("200.5").compareTo(response.getTotalAmount()));
+        assertEquals("Recipient Account not found", response.getResults().get(2).getMessage());
+        assertEquals("Cannot transfer to the same account", response.getResults().get(3).getMessage());
+        assertEquals("FAILED", response.getResults().get(4).getStatus());
+        assertEquals("COMPLETED", response.getResults().get(5).getStatus());
+
+        // Recipients below the sender, the sender, then the ones above it: one update per account
+        ArgumentCaptor<SortedMap<UUID, BalanceDelta>> deltas = ArgumentCaptor.forClass(SortedMap.class);
+        InOrder order = inOrder(accountBatchRepository, accountRepository);
+        order.verify(accountBatchRepository).applyDeltas(deltas.capture());
+        order.verify(accountRepository).debitIfAvailable(eq(sender), eq(new BigDecimal("200.5")));
+        order.verify(accountBatchRepository).applyDeltas(deltas.capture());
+        assertEquals(List.of(low), List.copyOf(deltas.getAllValues().get(0).keySet()));
+        assertEquals(List.of(high), List.copyOf(deltas.getAllValues().get(1).keySet()));
+        assertEquals(0, new BigDecimal("160.5").compareTo(deltas.getAllValues().get(1).get(high).balance()));
+        // Each payment counts against the spending limits on its own
+        verify(spendLimitService).reserve(sender, new BigDecimal("100.0"));
+        verify(spendLimitService).reserve(sender, new BigDecimal("40.0"));
+        verify(spendLimitService).reserve(sender, new BigDecimal("60.5"));
+
+        // One completed row and one posting per payment, written as batches
+        ArgumentCaptor<List<Transaction>> rows = ArgumentCaptor.forClass(List.class);
+        verify(transactionBatchRepository).insertAll(rows.capture());
+        assertEquals(3, rows.getValue().size());
+        rows.getValue().forEach(t -> assertEquals("COMPLETED", t.getTransactionStatus().name()));
+        ArgumentCaptor<List<Posting>> postings = ArgumentCaptor.forClass(List.class);
+        verify(ledgerService).post(postings.capture());
+        assertEquals(List.of(high, low, high), postings.getValue().stream().map(Posting::creditAccountId).toList());
+    }
+
+    @Test
+    void testPaymentOverTheSpendingLimitFailsAlone() throws Exception {
+        when(accountRepository.debitIfAvailable(eq(sender), any())).thenReturn(Optional.of(mock(ReservedAccount.class)));
+        doThrow(new SpendLimitExceededException("Daily limit of 1000.00 exceeded"))
+            .when(spendLimitService).reserve(sender, new BigDecimal("2000.0"));
+
+        DisbursementResponse response = service.disburse(request(item("10000001", 40), item("10000009", 2000), item("10000009", 60)));
+
+        assertEquals(2, response.getSucceeded());
+        assertEquals("Daily limit of 1000.00 exceeded", response.getResults().get(1).getMessage());
+        verify(accountRepository).debitIfAvailable(sender, new BigDecimal("100.0"));
+    }
+
+    @Test
+    void testNotEnoughFundsForTheTotalWritesNothing() {
+        when(accountRepository.debitIfAvailable(eq(sender), any())).thenReturn(Optional.empty());
+
+        assertThrows(InsufficientFundsException.class, () -> service.disburse(request(item("10000001", 40), item("10000009", 100))));
+
+        verify(transactionBatchRepository, never()).insertAll(anyList());
+        verify(ledgerService, never()).post(anyList());
+    }
+
+    @Test
+    void testTooManyPaymentsAreRejectedUpFront() {
+        List<DisbursementItem> items = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            items.add(item("10000001", 1));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> service.disburse(request(items.toArray(DisbursementItem[]::new))));
+        verify(accountRepository, never()).findIdsByAccountNumberIn(any());
+    }
+
+    private static DisbursementRequest request(DisbursementItem... items) {
+        DisbursementRequest request = new DisbursementRequest();
+        request.setFromAccountNumber("10000005");
+        request.setPayments(List.of(items));
+        return request;
+    }
+
+    private static DisbursementItem item(String toAccountNumber, double amount) {
+        DisbursementItem item = new DisbursementItem();
+        item.setToAccountNumber(toAccountNumber);
+        item.setAmount(amount);
+        return item;
+    }
+
+    private static AccountNumberId accountNumberId(String accountNumber, UUID id) {
+        AccountNumberId row = mock(AccountNumberId.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getAccountNumber()).thenReturn(accountNumber);
+        return row;
+    }
+}
@@ -0,0 +1,63 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.bank.demo.utils.HierarchicalTimingWheel;
+
+public class HierarchicalTimingWheelTest {
+
+    @Test
+    void testEntriesFireOnTheirTickAndNeverEarly() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 8, 0);
+        wheel.schedule("a", 1500);
+        wheel.schedule("b", 2000);
+        wheel.schedule("c", 65_000);
+
+        assertEquals(List.of(), wheel.advance(1999));
+        assertEquals(List.of("a", "b"), wheel.advance(2000));
+        assertEquals(List.of(), wheel.advance(64_999));
+        assertEquals(List.of("c"), wheel.advance(65_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testPastDeadlinesAreDueOnNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 8, 10_000);
+        wheel.schedule("late", 3_000);
+        assertEquals(List.of("late"), wheel.advance(10_000));
+    }
+
+    @Test
+    void testManyDeadlinesAcrossLevelsAllFireAtTheRightTime() {
+        // 8 slots per level: 100k random deadlines over ~10 days exercise five to six levels of cascading
+        long tick = 1000;
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(tick, 8, 0);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            long deadline = 1 + (long) (random.nextDouble() * 10 * 24 * 3600 * 1000L);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+        assertEquals(deadlines.size(), wheel.size());
+
+        int fired = 0;
+        // Advance in uneven steps, as a late ticker would
+        for (long now = 0; fired < deadlines.size(); now += 1000 + random.nextInt(50_000)) {
+            for (long deadline : wheel.advance(now)) {
+                assertTrue(deadline <= now, "Fired early: " + deadline + " at " + now);
+                assertTrue(deadline > now - 52_000, "Fired late: " + deadline + " at " + now);
+                fired++;
+            }
+        }
+        assertEquals(deadlines.size(), fired);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,39 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.bank.demo.utils.HistoryCursor;
+
+public class HistoryCursorTest {
+
+    @Test
+    void testRoundTripKeepsMicroseconds() {
+        // Postgres keeps microseconds: losing them would skip or repeat rows that share a second
+        HistoryCursor cursor = HistoryCursor.after(OffsetDateTime.of(2025, 7, 1, 10, 0, 0, 348_309_000, ZoneOffset.ofHours(-4)),
+            UUID.randomUUID());
+
+        String token = cursor.encode();
+        HistoryCursor decoded = HistoryCursor.decode(token);
+
+        assertFalse(token.contains("="));
+        assertEquals(cursor.createdAt().toInstant(), decoded.createdAt().toInstant());
+        assertEquals(cursor.transactionId(), decoded.transactionId());
+    }
+
+    @Test
+    void testMissingAndForgedCursors() {
+        assertNull(HistoryCursor.decode(null));
+        assertNull(HistoryCursor.decode(" "));
+        assertThrows(IllegalArgumentException.class, () -> HistoryCursor.decode("garbage"));
+        assertThrows(IllegalArgumentException.class, () -> HistoryCursor.decode("bm90LWEtY3Vyc29y"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.bank.demo.utils.TimeOrderedUuid;
+
+// Compares batched insert throughput and primary key size with random (v4) and time ordered (v7) ids.
+// Each scheme fills its own scratch table shaped like transactions' key (transaction_id, created_at).
+// Runs against the real database on demand only: mvn test -Dbanking.benchmark=true
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfSystemProperty(named = "banking.benchmark", matches = "true")
+class IdInsertThroughputBenchmarkTest {
+
+    private static final int ROWS = 500_000;
+    private static final int BATCH_SIZE = 500;
+    private static final String[] TABLES = {"id_benchmark_v4", "id_benchmark_v7"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void dropTables() {
+        for (String table : TABLES) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+        }
+    }
+
+    @Test
+    void compareRandomAndTimeOrderedIds() {
+        long random = measure(TABLES[0], UUID::randomUUID);
+        long ordered = measure(TABLES[1], TimeOrderedUuid::next);
+
+        report("UUIDv4", TABLES[0], random);
+        report("UUIDv7", TABLES[1], ordered);
+        assertEquals(ROWS, jdbcTemplate.queryForObject("SELECT count(*) FROM " + TABLES[1], Long.class));
+    }
+
+    private long measure(String table, Supplier<UUID> ids) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+        jdbcTemplate.execute("CREATE TABLE " + table + " (transaction_id UUID, created_at TIMESTAMP WITH TIME ZONE, " +
+            "amount DECIMAL(15,2), PRIMARY KEY (transaction_id, created_at))");
+        Timestamp createdAt = Timestamp.from(Instant.now());
+        long start = System.nanoTime();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(new Object[] {ids.get(), createdAt, 1});
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("INSERT INTO " + table + " VALUES (?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void report(String label, String table, long nanos) {
+        Long indexBytes = jdbcTemplate.queryForObject("SELECT pg_relation_size('" + table + "_pkey')", Long.class);
+        System.out.printf(">>> %s %,d rows in %.0f ms (%,.0f rows/s), primary key %,d kB%n", label, ROWS,
+            nanos / 1e6, ROWS / (nanos / 1e9), indexBytes / 1024);
+    }
+}
@@ -0,0 +1,147 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.bank.demo.Dtos.TransferRequestDto.ReceiveMoneyResponse;
+import com.bank.demo.exceptions.IdempotencyConflictException;
+import com.bank.demo.exceptions.InvalidIdempotencyKeyException;
+import com.bank.demo.model.IdempotencyKey;
+import com.bank.demo.repository.IdempotencyKeyRepository;
+import com.bank.demo.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class IdempotencyServiceTest {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository = mock(IdempotencyKeyRepository.class);
+    private final IdempotencyService service = new IdempotencyService(idempotencyKeyRepository, new ObjectMapper(), 24, 100);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    public IdempotencyServiceTest() {
+        when(idempotencyKeyRepository.claim(anyString(), anyString(), any(), any())).thenReturn(1);
+    }
+
+    private ReceiveMoneyResponse received() {
+        ReceiveMoneyResponse response = new ReceiveMoneyResponse();
+        response.setTransactionId(UUID.randomUUID());
+        response.setStatus("COMPLETED");
+        response.setAmount(25.0);
+        runs.incrementAndGet();
+        return response;
+    }
+
+    @Test
+    void testRetryReplaysTheFirstResponse() {
+        Map<String, Object> request = Map.of("amount", 25.0, "toAccountNumber", "10000002");
+
+        ReceiveMoneyResponse first = service.execute("receive:jdoe@example.com", "key-1", request, ReceiveMoneyResponse.class, this::received);
+        ReceiveMoneyResponse retry = service.execute("receive:jdoe@example.com", " key-1 ", request, ReceiveMoneyResponse.class, this::received);
+
+        assertEquals(1, runs.get());
+        assertEquals(first.getTransactionId(), retry.getTransactionId());
+        // Claimed before the transfer ran, answered once it succeeded
+        verify(idempotencyKeyRepository).claim(eq("receive:jdoe@example.com:key-1"), anyString(), any(), any());
+        verify(idempotencyKeyRepository).complete(eq("receive:jdoe@example.com:key-1"), anyString());
+        // Another user, or another endpoint, with the same key is a different request
+        service.execute("receive:asmith@example.com", "key-1", request, ReceiveMoneyResponse.class, this::received);
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void testSameKeyWithAnotherRequestIsAConflict() {
+        service.execute("send:jdoe@example.com", "key-2", Map.of("amount", 25.0), ReceiveMoneyResponse.class, this::received);
+
+        assertThrows(IdempotencyConflictException.class,
+            () -> service.execute("send:jdoe@example.com", "key-2", Map.of("amount", 250.0), ReceiveMoneyResponse.class, this::received));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testDuplicateInFlightWaitsForTheFirstAndReplaysIt() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Map<String, Object> request = Map.of("amount", 25.0);
+
+        CompletableFuture<ReceiveMoneyResponse> first = CompletableFuture.supplyAsync(() ->
+            service.execute("send:jdoe@example.com", "key-3", request, ReceiveMoneyResponse.class, () -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return received();
+            }));
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<ReceiveMoneyResponse> duplicate = CompletableFuture.supplyAsync(() ->
+            service.execute("send:jdoe@example.com", "key-3", request, ReceiveMoneyResponse.class, this::received));
+        // The duplicate is parked on the first one, not running the transfer again
+        Thread.sleep(100);
+        assertFalse(duplicate.isDone());
+        release.countDown();
+
+        assertEquals(first.get(5, TimeUnit.SECONDS).getTransactionId(), duplicate.get(5, TimeUnit.SECONDS).getTransactionId());
+        assertEquals(1, runs.get());
+        verify(idempotencyKeyRepository, times(1)).claim(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void testOverlongKeyIsRejectedBeforeAnythingRuns() {
+        String key = "k".repeat(IdempotencyService.MAX_KEY_LENGTH + 1);
+
+        assertThrows(InvalidIdempotencyKeyException.class,
+            () -> service.execute("send:jdoe@example.com", key, Map.of("amount", 25.0), ReceiveMoneyResponse.class, this::received));
+        assertEquals(0, runs.get());
+        verify(idempotencyKeyRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void testKeyClaimedOnAnotherNodeIsNotRunAgain() {
+        IdempotencyKey claim = new IdempotencyKey();
+        claim.setId("send:jdoe@example.com:key-4");
+        claim.setRequestHash("another node's request");
+        claim.setExpiresAt(OffsetDateTime.now().plusHours(1));
+        when(idempotencyKeyRepository.findById(claim.getId())).thenReturn(Optional.of(claim));
+
+        assertThrows(IdempotencyConflictException.class,
+            () -> service.execute("send:jdoe@example.com", "key-4", Map.of("amount", 25.0), ReceiveMoneyResponse.class, this::received));
+        // Lost the race between the lookup and the claim: the claim is not taken, nothing runs
+        when(idempotencyKeyRepository.claim(eq("send:jdoe@example.com:key-5"), anyString(), any(), any())).thenReturn(0);
+        claim.setId("send:jdoe@example.com:key-5");
+        when(idempotencyKeyRepository.findById(claim.getId())).thenReturn(Optional.empty(), Optional.of(claim));
+        assertThrows(IdempotencyConflictException.class,
+            () -> service.execute("send:jdoe@example.com", "key-5", Map.of("amount", 25.0), ReceiveMoneyResponse.class, this::received));
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void testFailedRequestGivesItsClaimBack() {
+        assertThrows(IllegalStateException.class, () -> service.execute("send:jdoe@example.com", "key-6", Map.of("amount", 25.0),
+            ReceiveMoneyResponse.class, () -> { throw new IllegalStateException("Lock timeout"); }));
+
+        verify(idempotencyKeyRepository).release("send:jdoe@example.com:key-6");
+        verify(idempotencyKeyRepository, never()).complete(anyString(), anyString());
+        service.execute("send:jdoe@example.com", "key-6", Map.of("amount", 25.0), ReceiveMoneyResponse.class, this::received);
+        assertEquals(1, runs.get());
+    }
+}
@@ -0,0 +1,103 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import com.bank.demo.repository.InteracClaimRepository;
+import com.bank.demo.repository.InteracClaimRepository.OpenClaimRow;
+import com.bank.demo.service.InteracClaimIndex;
+import com.bank.demo.service.InteracClaimIndex.OpenClaim;
+import com.bank.demo.utils.InteracContacts;
+
+public class InteracClaimIndexTest {
+
+    private final InteracClaimRepository interacClaimRepository = mock(InteracClaimRepository.class);
+    private final InteracClaimIndex index = new InteracClaimIndex(interacClaimRepository);
+
+    @Test
+    void testContactsAndAnswersAreNormalized() {
+        assertEquals("john.doe@example.com", InteracContacts.email("  John.Doe@Example.COM "));
+        assertEquals("15145550100", InteracContacts.phone("(514) 555-0100"));
+        assertEquals("15145550100", InteracContacts.phone("+1 514 555 0100"));
+        assertEquals("my first dog", InteracContacts.answer("  My   First\tDog "));
+        assertNull(InteracContacts.email(" "));
+        assertNull(InteracContacts.phone("n/a"));
+        assertNull(InteracContacts.answer(null));
+    }
+
+    @Test
+    void testLookupByReferenceAndContact() {
+        OpenClaim toEmail = claim("INT-A", "jdoe@example.com", null, 0);
+        OpenClaim toPhone = claim("INT-B", null, "15145550100", 0);
+        OpenClaim toBoth = claim("INT-C", "jdoe@example.com", "15145550100", 0);
+        index.add(toEmail);
+        index.add(toPhone);
+        index.add(toBoth);
+
+        assertSame(toPhone, index.findByReference("INT-B"));
+        assertNull(index.findByReference("INT-Z"));
+        // Reachable through either contact, listed once, oldest first
+        assertEquals(List.of(toEmail, toPhone, toBoth), index.findByRecipient("jdoe@example.com", "15145550100"));
+        assertEquals(List.of(toEmail, toBoth), index.findByRecipient("jdoe@example.com", null));
+        assertTrue(toBoth.isFor(null, "15145550100"));
+        assertFalse(toEmail.isFor("asmith@example.com", "15145550100"));
+
+        index.remove(toBoth.getTransactionId());
+        index.remove(toBoth.getTransactionId());
+        assertNull(index.findByReference("INT-C"));
+        assertEquals(List.of(toPhone), index.findByRecipient(null, "15145550100"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testAttemptsAreBoundedIncludingTheOnesInFlight() {
+        OpenClaim claim = claim("INT-A", "jdoe@example.com", null, 1);
+        assertTrue(claim.tryBeginAttempt(3));
+        assertTrue(claim.tryBeginAttempt(3));
+        // Two answers being verified and one already wrong: a third caller is turned away before any hashing
+        assertFalse(claim.tryBeginAttempt(3));
+        claim.cancelAttempt();
+        assertTrue(claim.tryBeginAttempt(3));
+        assertEquals(3, claim.getAttempts());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRebuildFromOpenClaims() {
+        UUID transactionId = UUID.randomUUID();
+        doAnswer(invocation -> {
+            ((Consumer<OpenClaimRow>) invocation.getArgument(0)).accept(new OpenClaimRow(transactionId, OffsetDateTime.now(),
+                "INT-A", UUID.randomUUID(), new BigDecimal("20.00"), "CAD", "jdoe@example.com", null, "Pet?", "hash", 2));
+            return null;
+        }).when(interacClaimRepository).forEachOpenClaim(any());
+        index.add(claim("INT-STALE", "jdoe@example.com", null, 0));
+
+        index.rebuild();
+
+        assertEquals(1, index.size());
+        assertNull(index.findByReference("INT-STALE"));
+        assertEquals(transactionId, index.findByRecipient("jdoe@example.com", null).get(0).getTransactionId());
+        assertEquals(2, index.findByReference("INT-A").getAttempts());
+    }
+
+    private static int sequence;
+
+    private static OpenClaim claim(String reference, String email, String phone, int failedAttempts) {
+        return new OpenClaim(UUID.randomUUID(), OffsetDateTime.now().plusSeconds(sequence++), reference, UUID.randomUUID(),
+            new BigDecimal("10.00"), "CAD", email, phone, "Pet?", "hash", failedAttempts);
+    }
+}
@@ -0,0 +1,137 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.bank.demo.Dtos.TransferRequestDto.ClaimRequest;
+import com.bank.demo.Dtos.TransferRequestDto.ReceiveMoneyResponse;
+import com.bank.demo.model.Account;
+import com.bank.demo.model.Transaction;
+import com.bank.demo.model.User;
+import com.bank.demo.model.enums.TransactionStatus;
+import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.InteracClaimRepository;
+import com.bank.demo.repository.Userepository;
+import com.bank.demo.repository.transactionRepository;
+import com.bank.demo.service.AccountHoldIndex;
+import com.bank.demo.service.InteracClaimIndex;
+import com.bank.demo.service.InteracClaimIndex.OpenClaim;
+import com.bank.demo.service.InteracClaimService;
+import com.bank.demo.service.LedgerService;
+import com.bank.demo.service.SpendLimitService;
+import com.bank.demo.service.TransferExecutionEngine;
+import com.bank.demo.service.TransferExecutionEngine.TransferWork;
+import com.bank.demo.service.TransferPricingService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class InteracClaimServiceTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final transactionRepository transactionRepository = mock(transactionRepository.class);
+    private final Userepository userRepository = mock(Userepository.class);
+    private final InteracClaimRepository interacClaimRepository = mock(InteracClaimRepository.class);
+    private final InteracClaimIndex interacClaimIndex = mock(InteracClaimIndex.class);
+    private final TransferExecutionEngine transferExecutionEngine = mock(TransferExecutionEngine.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+
+    private final User user = new User();
+    private final Account sender = account("100.00", "70.00");
+    private final Account recipient = account("5.00", "5.00");
+    private final OpenClaim claim = new OpenClaim(UUID.randomUUID(), OffsetDateTime.now(), "CA1234", sender.getId(),
+        new BigDecimal("30.00"), "CAD", "jdoe@example.com", null, "Pet?", "hash", 0);
+    private final InteracClaimService service;
+
+    public InteracClaimServiceTest() throws Exception {
+        user.setId(UUID.randomUUID());
+        user.setEmail("jdoe@example.com");
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(user.getEmail(), null));
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(interacClaimIndex.findByReference("CA1234")).thenReturn(claim);
+        when(passwordEncoder.matches("rex", "hash")).thenReturn(true);
+        // Run the work directly instead of taking the account locks
+        when(transferExecutionEngine.execute(anyString(), any(UUID.class), any(UUID.class), any()))
+            .thenAnswer(invocation -> ((TransferWork<?, ?>) invocation.getArgument(3)).run());
+
+        Transaction pending = new Transaction();
+        pending.setTransactionId(claim.getTransactionId());
+        pending.setFromAccount(sender);
+        pending.setAmount(claim.getAmount());
+        pending.setTransactionStatus(TransactionStatus.PENDING);
+        when(transactionRepository.findByTransactionIdAndCreatedAt(claim.getTransactionId(), claim.getCreatedAt()))
+            .thenReturn(Optional.of(pending));
+        when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(interacClaimRepository.markClaimed(any(), any())).thenReturn(true);
+        when(accountRepository.findById(recipient.getId())).thenReturn(Optional.of(recipient));
+
+        service = new InteracClaimService(accountRepository, transactionRepository, userRepository, interacClaimRepository,
+            interacClaimIndex, transferExecutionEngine, mock(AccountHoldIndex.class), mock(LedgerService.class),
+            mock(TransferPricingService.class), mock(SpendLimitService.class), passwordEncoder, new SimpleMeterRegistry(),
+            1, 4, 5000, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testRecipientAccountIsOnlyReadUnderTheLocks() {
+        when(accountRepository.findIdByAccountNumberAndUserId("10000001", user.getId())).thenReturn(Optional.of(recipient.getId()));
+
+        ReceiveMoneyResponse response = service.claim(request("10000001"));
+
+        assertEquals(TransactionStatus.COMPLETED.name(), response.getStatus());
+        InOrder order = inOrder(transferExecutionEngine, accountRepository);
+        order.verify(transferExecutionEngine).execute(anyString(), any(UUID.class), any(UUID.class), any());
+        order.verify(accountRepository).findById(recipient.getId());
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+        assertEquals(new BigDecimal("70.00"), sender.getBalance());
+        assertEquals(new BigDecimal("35.00"), recipient.getBalance());
+        assertEquals(new BigDecimal("35.00"), recipient.getAvailableBalance());
+    }
+
+    @Test
+    void testSomeoneElsesAccountIsRejectedBeforeTheAnswerIsChecked() {
+        when(accountRepository.findIdByAccountNumberAndUserId("10000002", user.getId())).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> service.claim(request("10000002")));
+        verify(passwordEncoder, never()).matches(any(), any());
+    }
+
+    private static ClaimRequest request(String toAccountNumber) {
+        ClaimRequest request = new ClaimRequest();
+        request.setInteracReferenceId("CA1234");
+        request.setSecurityAnswer(" Rex ");
+        request.setToAccountNumber(toAccountNumber);
+        return request;
+    }
+
+    private static Account account(String balance, String availableBalance) {
+        Account account = new Account();
+        account.setId(UUID.randomUUID());
+        account.setBalance(new BigDecimal(balance));
+        account.setAvailableBalance(new BigDecimal(availableBalance));
+        return account;
+    }
+}
@@ -0,0 +1,80 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.bank.demo.utils.InteracReferenceGenerator;
+
+public class InteracReferenceGeneratorTest {
+
+    @Test
+    void testReferencesAreFixedWidthSortableAndCarryTheIssueTime() {
+        InteracReferenceGenerator generator = new InteracReferenceGenerator(7);
+        long before = System.currentTimeMillis();
+        String previous = generator.next();
+        long after = System.currentTimeMillis();
+
+        assertTrue(previous.matches("INT-[0-9A-Z]{13}"), previous);
+        long issuedAt = InteracReferenceGenerator.issuedAt(previous).toEpochMilli();
+        assertTrue(issuedAt >= before && issuedAt <= after + 1, "Unexpected issue time " + Instant.ofEpochMilli(issuedAt));
+        for (int i = 0; i < 100_000; i++) {
+            String next = generator.next();
+            assertTrue(next.compareTo(previous) > 0, next + " is not after " + previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void testConcurrentCallersNeverGetTheSameReference() throws Exception {
+        InteracReferenceGenerator generator = new InteracReferenceGenerator(1);
+        int threads = 8;
+        int perThread = 100_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                List<String> references = new ArrayList<>(perThread);
+                for (int i = 0; i < perThread; i++) {
+                    references.add(generator.next());
+                }
+                return references;
+            }));
+        }
+        Set<String> all = new HashSet<>();
+        for (Future<List<String>> result : results) {
+            all.addAll(result.get());
+        }
+        pool.shutdown();
+        assertEquals(threads * perThread, all.size());
+    }
+
+    @Test
+    void testNodesIssueDistinctReferences() {
+        String first = new InteracReferenceGenerator(1).next();
+        String second = new InteracReferenceGenerator(2).next();
+        assertNotEquals(first, second);
+        assertThrows(IllegalArgumentException.class, () -> new InteracReferenceGenerator(1024));
+        // No silent fallback when the node id is missing
+        assertThrows(IllegalArgumentException.class, () -> new InteracReferenceGenerator(-1));
+    }
+
+    @Test
+    void testMalformedReferencesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> InteracReferenceGenerator.issuedAt("INT-1792192"));
+        assertThrows(IllegalArgumentException.class, () -> InteracReferenceGenerator.issuedAt("INT-0000000000I00"));
+        assertThrows(IllegalArgumentException.class, () -> InteracReferenceGenerator.issuedAt(null));
+    }
+}
@@ -0,0 +1,80 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.bank.demo.model.Account;
+import com.bank.demo.utils.OptimisticRetryExecutor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class OptimisticRetryExecutorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final OptimisticRetryExecutor executor = new OptimisticRetryExecutor(registry, 4, 1, 4);
+
+    @Test
+    void testRetriesUntilTheVersionCheckPasses() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute("send", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException(Account.class, "id");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, calls.get());
+        assertEquals(3.0, count("banking.transfer.optimistic.attempts"));
+        assertEquals(2.0, count("banking.transfer.optimistic.conflicts"));
+        assertEquals(0.0, count("banking.transfer.optimistic.exhausted"));
+    }
+
+    @Test
+    void testGivesUpAfterMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> executor.execute("send", () -> {
+            calls.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(Account.class, "id");
+        }));
+
+        assertEquals(4, calls.get());
+        assertEquals(1.0, count("banking.transfer.optimistic.exhausted"));
+    }
+
+    @Test
+    void testOtherFailuresAreNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(IllegalArgumentException.class, () -> executor.execute("send", () -> {
+            calls.incrementAndGet();
+            throw new IllegalArgumentException("FromAccount not found");
+        }));
+
+        assertEquals(1, calls.get());
+        assertEquals(0.0, count("banking.transfer.optimistic.conflicts"));
+    }
+
+    @Test
+    void testBackoffGrowsExponentiallyUpToTheCap() {
+        OptimisticRetryExecutor backoff = new OptimisticRetryExecutor(registry, 10, 5, 200);
+        assertEquals(5, backoff.backoffBound(1));
+        assertEquals(10, backoff.backoffBound(2));
+        assertEquals(40, backoff.backoffBound(4));
+        assertEquals(200, backoff.backoffBound(7));
+        assertTrue(backoff.backoffBound(60) <= 200);
+    }
+
+    private double count(String name) {
+        var counter = registry.find(name).tag("operation", "send").counter();
+        return counter == null ? 0.0 : counter.count();
+    }
+}
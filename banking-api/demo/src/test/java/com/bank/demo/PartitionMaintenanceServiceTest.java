@@ -0,0 +1,94 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bank.demo.repository.PartitionRepository;
+import com.bank.demo.repository.PartitionRepository.Partition;
+import com.bank.demo.repository.PartitionRepository.PartitionStats;
+import com.bank.demo.service.PartitionMaintenanceService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PartitionMaintenanceServiceTest {
+
+    private final PartitionRepository partitionRepository = mock(PartitionRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final OffsetDateTime july = month(7);
+    private final OffsetDateTime august = month(8);
+    private final OffsetDateTime september = month(9);
+
+    public PartitionMaintenanceServiceTest() {
+        // Run the callback directly instead of opening a DB transaction
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        for (String table : List.of("transactions", "ledger_entries")) {
+            when(partitionRepository.rangePartitions(table)).thenReturn(List.of(
+                new Partition(table + "_2025_07", july, august), new Partition(table + "_2025_08", august, september)));
+        }
+    }
+
+    private PartitionMaintenanceService service(int monthsAhead, int retentionMonths) {
+        return new PartitionMaintenanceService(partitionRepository, transactionTemplate, meterRegistry, monthsAhead, retentionMonths);
+    }
+
+    @Test
+    void testCreatesTheMissingMonthsAheadOnly() {
+        service(2, 0).maintain(OffsetDateTime.of(2025, 8, 31, 23, 0, 0, 0, ZoneOffset.ofHours(-4)));
+
+        // Still August in local time, already September in UTC: September to November
+        verify(partitionRepository).createPartition("transactions", "transactions_2025_09", september, month(10));
+        verify(partitionRepository).createPartition("transactions", "transactions_2025_10", month(10), month(11));
+        verify(partitionRepository).createPartition("transactions", "transactions_2025_11", month(11), month(12));
+        verify(partitionRepository).createPartition("ledger_entries", "ledger_entries_2025_11", month(11), month(12));
+        verify(partitionRepository, never()).createPartition(anyString(), eq("transactions_2025_08"), any(), any());
+        verify(partitionRepository, never()).detachPartition(anyString(), anyString());
+        assertEquals(6.0, meterRegistry.counter("banking.partitions.created").count());
+    }
+
+    @Test
+    void testDetachesOnlyPartitionsPastRetention() {
+        service(0, 2).maintain(OffsetDateTime.of(2025, 10, 15, 12, 0, 0, 0, ZoneOffset.UTC));
+
+        // Cutoff on August 1st: July is entirely older, August is not
+        verify(partitionRepository).detachPartition("transactions", "transactions_2025_07");
+        verify(partitionRepository).detachPartition("ledger_entries", "ledger_entries_2025_07");
+        verify(partitionRepository, never()).detachPartition(anyString(), eq("transactions_2025_08"));
+        verify(partitionRepository).finalizePendingDetaches("transactions");
+        assertEquals(2.0, meterRegistry.counter("banking.partitions.detached").count());
+    }
+
+    @Test
+    void testFailedTableDoesNotStopTheOtherOneAndStatsArePublished() {
+        when(partitionRepository.rangePartitions("transactions")).thenThrow(new DataAccessResourceFailureException("down"));
+        when(partitionRepository.partitionStats("ledger_entries")).thenReturn(List.of(
+            new PartitionStats("ledger_entries_2025_08", 1200, 65536)));
+
+        service(1, 0).maintain(OffsetDateTime.of(2025, 8, 15, 12, 0, 0, 0, ZoneOffset.UTC));
+
+        verify(partitionRepository).createPartition("ledger_entries", "ledger_entries_2025_09", september, month(10));
+        assertEquals(1.0, meterRegistry.counter("banking.partitions.failures").count());
+        assertEquals(1200.0, meterRegistry.get("banking.partitions.rows").tag("partition", "ledger_entries_2025_08").gauge().value());
+        assertEquals(65536.0, meterRegistry.get("banking.partitions.bytes").tag("table", "ledger_entries").gauge().value());
+    }
+
+    private static OffsetDateTime month(int month) {
+        return OffsetDateTime.of(2025, month, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,107 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.bank.demo.repository.PartitionRepository;
+import com.bank.demo.repository.PartitionRepository.Partition;
+import com.bank.demo.repository.TransactionBatchRepository;
+import com.bank.demo.repository.transactionRepository.PendingSettlement;
+import com.bank.demo.service.BulkSettlementService;
+import com.bank.demo.service.BulkSettlementService.SettlementDecision;
+import com.bank.demo.service.PendingExpiryService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PendingExpiryServiceTest {
+
+    private final PartitionRepository partitionRepository = mock(PartitionRepository.class);
+    private final TransactionBatchRepository transactionBatchRepository = mock(TransactionBatchRepository.class);
+    private final BulkSettlementService bulkSettlementService = mock(BulkSettlementService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final OffsetDateTime july = OffsetDateTime.of(2025, 7, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private final OffsetDateTime august = july.plusMonths(1);
+    private final OffsetDateTime september = july.plusMonths(2);
+    private final OffsetDateTime october = july.plusMonths(3);
+    private final OffsetDateTime cutoff = august.plusDays(10);
+
+    private final List<List<SettlementDecision>> settledChunks = new ArrayList<>();
+
+    public PendingExpiryServiceTest() {
+        when(partitionRepository.rangePartitions("transactions")).thenReturn(List.of(
+            new Partition("transactions_2025_07", july, august),
+            new Partition("transactions_2025_08", august, september),
+            new Partition("transactions_2025_09", september, october)));
+        // Declines everything it is given
+        when(bulkSettlementService.settle(eq("expire-pending"), anyList())).thenAnswer(invocation -> {
+            List<SettlementDecision> decisions = invocation.getArgument(1);
+            settledChunks.add(decisions);
+            return decisions;
+        });
+    }
+
+    private PendingExpiryService service(int chunkSize, int maxPerRun) {
+        return new PendingExpiryService(partitionRepository, transactionBatchRepository, bulkSettlementService,
+            meterRegistry, 72, chunkSize, maxPerRun);
+    }
+
+    @Test
+    void sweepsPartitionsOldestFirstInChunksUpToTheCutoff() {
+        when(transactionBatchRepository.findPendingCreatedBetween(july, august, 2))
+            .thenReturn(pending(2), pending(1));
+        when(transactionBatchRepository.findPendingCreatedBetween(august, cutoff, 2))
+            .thenReturn(pending(1));
+
+        assertEquals(4, service(2, 1000).expireOlderThan(cutoff));
+
+        assertEquals(List.of(2, 1, 1), settledChunks.stream().map(List::size).toList());
+        assertTrue(settledChunks.stream().flatMap(List::stream).noneMatch(SettlementDecision::accept));
+        // The partition entirely after the cutoff is never read
+        verify(transactionBatchRepository, never()).findPendingCreatedBetween(eq(september), any(), anyInt());
+        assertEquals(4.0, meterRegistry.counter("banking.pending-expiry.expired").count());
+    }
+
+    @Test
+    void stopsAtMaxPerRunAndSkipsToTheNextPartitionWhenAChunkFails() {
+        when(transactionBatchRepository.findPendingCreatedBetween(july, august, 2)).thenReturn(pending(2));
+        when(transactionBatchRepository.findPendingCreatedBetween(july, august, 1)).thenReturn(pending(1));
+        assertEquals(3, service(2, 3).expireOlderThan(cutoff));
+        verify(transactionBatchRepository, never()).findPendingCreatedBetween(eq(august), any(), anyInt());
+
+        when(bulkSettlementService.settle(eq("expire-pending"), anyList())).thenThrow(new IllegalStateException("lock timeout"));
+        when(transactionBatchRepository.findPendingCreatedBetween(august, cutoff, 2)).thenReturn(pending(1));
+        // July fails, August is still tried
+        assertEquals(0, service(2, 1000).expireOlderThan(cutoff));
+        verify(transactionBatchRepository).findPendingCreatedBetween(august, cutoff, 2);
+        assertEquals(2.0, meterRegistry.counter("banking.pending-expiry.failed-chunks").count());
+    }
+
+    private record Row(UUID getTransactionId, OffsetDateTime getCreatedAt, UUID getFromAccountId, UUID getToAccountId,
+                       BigDecimal getAmount) implements PendingSettlement {}
+
+    private static List<PendingSettlement> pending(int count) {
+        List<PendingSettlement> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Row(UUID.randomUUID(), OffsetDateTime.now(), UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,142 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bank.demo.Dtos.TransferRequestDto.TransferRequest;
+
+import com.bank.demo.exceptions.SpendLimitExceededException;
+import com.bank.demo.model.Account;
+import com.bank.demo.model.enums.TransactionStatus;
+import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.PartitionRepository;
+import com.bank.demo.repository.PartitionRepository.Partition;
+import com.bank.demo.repository.TransactionBatchRepository;
+import com.bank.demo.repository.transactionRepository;
+import com.bank.demo.repository.transactionRepository.PendingSettlement;
+import com.bank.demo.service.AccountHoldIndex;
+import com.bank.demo.service.ScheduledTransferService;
+import com.bank.demo.service.SpendLimitService;
+import com.bank.demo.service.TransferExecutionEngine;
+import com.bank.demo.service.TransferExecutionEngine.TransferWork;
+import com.bank.demo.service.TransferPricingService;
+
+public class ScheduledTransferServiceTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final transactionRepository transactionRepository = mock(transactionRepository.class);
+    private final TransactionBatchRepository transactionBatchRepository = mock(TransactionBatchRepository.class);
+    private final TransferExecutionEngine transferExecutionEngine = mock(TransferExecutionEngine.class);
+    private final AccountHoldIndex accountHoldIndex = mock(AccountHoldIndex.class);
+    private final SpendLimitService spendLimitService = mock(SpendLimitService.class);
+    private final PartitionRepository partitionRepository = mock(PartitionRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    private final UUID senderId = UUID.randomUUID();
+    private final UUID recipientId = UUID.randomUUID();
+    private final Account sender = new Account();
+
+    private record Due(UUID getTransactionId, OffsetDateTime getCreatedAt, UUID getFromAccountId, UUID getToAccountId,
+                       BigDecimal getAmount) implements PendingSettlement {}
+
+    public ScheduledTransferServiceTest() throws Exception {
+        // Run the work directly instead of taking the account locks
+        when(transferExecutionEngine.execute(anyString(), anyCollection(), any()))
+            .thenAnswer(invocation -> ((TransferWork<?, ?>) invocation.getArgument(2)).run());
+        sender.setId(senderId);
+        sender.setAvailableBalance(new BigDecimal("100.00"));
+        when(accountRepository.findAllById(any())).thenReturn(List.of(sender));
+        // From three months ago to the end of next month
+        OffsetDateTime month = OffsetDateTime.now(ZoneOffset.UTC).withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS);
+        when(partitionRepository.rangePartitions("transactions")).thenReturn(List.of(
+            new Partition("transactions_old", month.minusMonths(3), month.minusMonths(2)),
+            new Partition("transactions_next", month.plusMonths(1), month.plusMonths(2))));
+    }
+
+    private ScheduledTransferService service() {
+        return new ScheduledTransferService(accountRepository, transactionRepository, transactionBatchRepository,
+            transferExecutionEngine, transactionTemplate, accountHoldIndex, partitionRepository, mock(TransferPricingService.class),
+            spendLimitService, 1000, 64, 500);
+    }
+
+    private Due due(String amount) {
+        return new Due(UUID.randomUUID(), OffsetDateTime.now().minusMinutes(1), senderId, recipientId, new BigDecimal(amount));
+    }
+
+    @Test
+    void testDueTransfersGoThroughTheSpendLimits() {
+        Due funded = due("50.00");
+        Due overLimit = due("30.00");
+        Due unfunded = due("200.00");
+        List<PendingSettlement> batch = List.of(funded, overLimit, unfunded);
+        when(transactionRepository.findTransfersByStatusCreatedBetween(eq(TransactionStatus.SCHEDULED), any(), any())).thenReturn(batch);
+        when(transactionBatchRepository.updateStatus(batch, TransactionStatus.SCHEDULED, TransactionStatus.PENDING, null))
+            .thenReturn(new int[] {1, 1, 1});
+        doThrow(new SpendLimitExceededException("Daily limit of 60.00 exceeded"))
+            .when(spendLimitService).reserve(senderId, overLimit.getAmount());
+
+        ScheduledTransferService service = service();
+        service.reload();
+        service.runDue(System.currentTimeMillis() + 5_000);
+
+        verify(spendLimitService).reserve(senderId, funded.getAmount());
+        // Not funded: refused before it counts against the limits
+        verify(spendLimitService, never()).reserve(senderId, unfunded.getAmount());
+        verify(accountHoldIndex).place(senderId, funded.getTransactionId(), funded.getAmount());
+        verify(accountHoldIndex, never()).place(any(), eq(overLimit.getTransactionId()), any());
+        verify(transactionBatchRepository).updateStatus(eq(List.of(overLimit, unfunded)), eq(TransactionStatus.PENDING),
+            eq(TransactionStatus.FAILED), any());
+        assertEquals(new BigDecimal("50.00"), sender.getAvailableBalance());
+    }
+
+    @Test
+    void testReloadPicksUpTransfersOverdueSinceTheOldestPartition() {
+        Due overdue = new Due(UUID.randomUUID(), OffsetDateTime.now().minusMonths(2), senderId, recipientId, new BigDecimal("10.00"));
+        OffsetDateTime oldest = partitionRepository.rangePartitions("transactions").get(0).from();
+        when(transactionRepository.findTransfersByStatusCreatedBetween(eq(TransactionStatus.SCHEDULED), eq(oldest), any()))
+            .thenReturn(List.of(overdue));
+        when(transactionBatchRepository.updateStatus(List.of(overdue), TransactionStatus.SCHEDULED, TransactionStatus.PENDING, null))
+            .thenReturn(new int[] {1});
+
+        ScheduledTransferService service = service();
+        service.reload();
+        service.runDue(System.currentTimeMillis());
+
+        verify(accountHoldIndex).place(senderId, overdue.getTransactionId(), overdue.getAmount());
+    }
+
+    @Test
+    void testSchedulingPastTheLastPartitionIsRejected() {
+        when(accountRepository.findIdByAccountNumber("10000001")).thenReturn(Optional.of(senderId));
+        when(accountRepository.findIdByAccountNumber("10000002")).thenReturn(Optional.of(recipientId));
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountNumber("10000001");
+        request.setToAccountNumber("10000002");
+        request.setAmount(10);
+        request.setTransactionType("TRANSFER");
+        request.setScheduledAt(partitionRepository.rangePartitions("transactions").get(1).to());
+
+        assertThrows(IllegalArgumentException.class, () -> service().schedule(request, "REF"));
+        verify(transactionTemplate, never()).execute(any());
+    }
+}
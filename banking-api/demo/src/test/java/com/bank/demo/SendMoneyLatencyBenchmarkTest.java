@@ -0,0 +1,89 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bank.demo.Dtos.TransferRequestDto.TransferRequest;
+import com.bank.demo.service.bankTransactionService;
+
+// Compares /send latency of the UPDATE ... RETURNING fast path and the JPA path against the real database.
+// It moves money between the seed accounts, so it only runs on demand: mvn test -Dbanking.benchmark=true
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfSystemProperty(named = "banking.benchmark", matches = "true")
+class SendMoneyLatencyBenchmarkTest {
+
+    private static final int WARMUP = 100;
+    private static final int ITERATIONS = 1000;
+
+    @Autowired
+    private bankTransactionService transactionService;
+
+    @BeforeEach
+    void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("jdoe@example.com", null));
+    }
+
+    @AfterEach
+    void clear() {
+        ReflectionTestUtils.setField(transactionService, "fastPathEnabled", true);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void compareFastPathAndJpaPathLatency() throws Exception {
+        long[] jpa = measure(false);
+        long[] fast = measure(true);
+
+        report("JPA path ", jpa);
+        report("fast path", fast);
+        assertEquals(ITERATIONS, fast.length);
+    }
+
+    private long[] measure(boolean fastPath) throws Exception {
+        ReflectionTestUtils.setField(transactionService, "fastPathEnabled", fastPath);
+        for (int i = 0; i < WARMUP; i++) {
+            transactionService.sendMoney(request());
+        }
+        long[] latencies = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            transactionService.sendMoney(request());
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void report(String label, long[] sorted) {
+        System.out.printf(">>> %s p50=%.3f ms p99=%.3f ms max=%.3f ms%n", label,
+            percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.ceil(p * sorted.length) - 1];
+    }
+
+    private static TransferRequest request() {
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountNumber("10000001");
+        request.setToAccountNumber("10000002");
+        request.setAmount(0.01);
+        request.setTransactionType("TRANSFER");
+        request.setCurrency("CAD");
+        request.setDescription("latency benchmark");
+        return request;
+    }
+}
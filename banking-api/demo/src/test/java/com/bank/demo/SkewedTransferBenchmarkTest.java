@@ -0,0 +1,138 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bank.demo.Dtos.TransferRequestDto.TransferRequest;
+import com.bank.demo.service.bankTransactionService;
+
+// Skewed /send workload against the real database: 80% of the transfers are sent by 1% of the accounts.
+// Compares throughput and tail latency of the sync and actor execution modes.
+// Creates its own BENCH accounts and removes them afterwards; on demand only: mvn test -Dbanking.benchmark=true
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfSystemProperty(named = "banking.benchmark", matches = "true")
+class SkewedTransferBenchmarkTest {
+
+    private static final int ACCOUNTS = 200;
+    private static final int HOT_ACCOUNTS = ACCOUNTS / 100;
+    private static final int CLIENTS = 64;
+    private static final int WARMUP = 1_000;
+    private static final int TRANSFERS = 20_000;
+
+    @Autowired
+    private bankTransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createAccounts() {
+        jdbcTemplate.update("INSERT INTO accounts (account_number, user_id, bank_id, account_type, balance, available_balance) " +
+            "SELECT 'BENCH' || lpad(g::text, 4, '0'), user_id, bank_id, account_type, 1000000000, 1000000000 " +
+            "FROM accounts, generate_series(0, ?) g WHERE account_number = '10000001'", ACCOUNTS - 1);
+    }
+
+    @AfterEach
+    void dropAccounts() {
+        ReflectionTestUtils.setField(transactionService, "executionMode", "sync");
+        String benchAccounts = "SELECT account_id FROM accounts WHERE account_number LIKE 'BENCH%'";
+        jdbcTemplate.update("DELETE FROM transactions WHERE from_account_id IN (" + benchAccounts + ")");
+        jdbcTemplate.update("DELETE FROM ledger_snapshots WHERE account_id IN (" + benchAccounts + ")");
+        jdbcTemplate.update("DELETE FROM accounts WHERE account_number LIKE 'BENCH%'");
+    }
+
+    @Test
+    void compareSyncAndActorModesOnSkewedWorkload() throws Exception {
+        report("sync ", run("sync"));
+        report("actor", run("actor"));
+        assertEquals((long) 2 * (WARMUP + TRANSFERS),
+            jdbcTemplate.queryForObject("SELECT count(*) FROM transactions t JOIN accounts a ON a.account_id = t.from_account_id " +
+                "WHERE a.account_number LIKE 'BENCH%'", Long.class));
+    }
+
+    // Returns the sorted latencies, with the wall clock time of the whole run appended
+    private long[] run(String mode) throws Exception {
+        ReflectionTestUtils.setField(transactionService, "executionMode", mode);
+        execute(WARMUP);
+        long start = System.nanoTime();
+        long[] latencies = execute(TRANSFERS);
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        long[] result = Arrays.copyOf(latencies, latencies.length + 1);
+        result[latencies.length] = elapsed;
+        return result;
+    }
+
+    private long[] execute(int transfers) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            int count = transfers / CLIENTS + (c < transfers % CLIENTS ? 1 : 0);
+            results.add(clients.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("jdoe@example.com", null));
+                long[] latencies = new long[count];
+                for (int i = 0; i < count; i++) {
+                    long begin = System.nanoTime();
+                    transactionService.sendMoney(request());
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                return latencies;
+            }));
+        }
+        long[] all = new long[0];
+        for (Future<long[]> result : results) {
+            long[] latencies = result.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+        }
+        clients.shutdown();
+        return all;
+    }
+
+    private static void report(String label, long[] result) {
+        int n = result.length - 1;
+        long[] sorted = Arrays.copyOf(result, n);
+        double seconds = result[n] / 1e9;
+        System.out.printf(">>> %s %,.0f transfers/s p50=%.2f ms p99=%.2f ms p99.9=%.2f ms max=%.2f ms%n", label, n / seconds,
+            percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, percentile(sorted, 0.999) / 1e6, sorted[n - 1] / 1e6);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.ceil(p * sorted.length) - 1];
+    }
+
+    private static TransferRequest request() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextDouble() < 0.8 ? random.nextInt(HOT_ACCOUNTS) : HOT_ACCOUNTS + random.nextInt(ACCOUNTS - HOT_ACCOUNTS);
+        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountNumber(String.format("BENCH%04d", from));
+        request.setToAccountNumber(String.format("BENCH%04d", to));
+        request.setAmount(0.01);
+        request.setTransactionType("TRANSFER");
+        request.setCurrency("CAD");
+        request.setDescription("skewed benchmark");
+        return request;
+    }
+}
@@ -0,0 +1,50 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.bank.demo.utils.SpendWindows;
+import com.bank.demo.utils.SpendWindows.Window;
+
+public class SpendWindowsTest {
+
+    private static final long HOUR = 3_600_000L;
+    private static final long DAY = 24 * HOUR;
+
+    private final SpendWindows windows = new SpendWindows();
+    private final UUID account = UUID.randomUUID();
+    private final long start = 1_000 * DAY;
+
+    @Test
+    void dailyLimitSlidesHourByHour() {
+        assertNull(windows.tryAdd(account, 60_00, start, 100_00, -1));
+        assertNull(windows.tryAdd(account, 40_00, start + 5 * HOUR, 100_00, -1));
+        // 100.00 already spent in the last 24 hours
+        assertEquals(Window.DAILY, windows.tryAdd(account, 1, start + 23 * HOUR, 100_00, -1));
+        // The first 60.00 leaves the window 24 hours later, the second one is still in it
+        assertNull(windows.tryAdd(account, 60_00, start + 24 * HOUR, 100_00, -1));
+        assertEquals(100_00, windows.spentLastDay(account, start + 24 * HOUR));
+        assertEquals(160_00, windows.spentLastMonth(account, start + 24 * HOUR));
+    }
+
+    @Test
+    void monthlyLimitAndReleases() {
+        for (int day = 0; day < 30; day++) {
+            assertNull(windows.tryAdd(account, 100_00, start + day * DAY, -1, 3000_00));
+        }
+        assertEquals(Window.MONTHLY, windows.tryAdd(account, 1, start + 29 * DAY, -1, 3000_00));
+        // A cancelled transfer gives its amount back
+        windows.remove(account, 100_00, start + 29 * DAY);
+        assertNull(windows.tryAdd(account, 100_00, start + 29 * DAY, -1, 3000_00));
+        // Thirty days later only the newest days are left
+        assertNull(windows.tryAdd(account, 100_00, start + 30 * DAY, -1, 3000_00));
+        assertEquals(3000_00, windows.spentLastMonth(account, start + 30 * DAY));
+
+        windows.prune(start + 60 * DAY);
+        assertEquals(0, windows.size());
+    }
+}
@@ -0,0 +1,124 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.bank.demo.Dtos.TransferRequestDto.TransferRequest;
+import com.bank.demo.Dtos.TransferRequestDto.TransferResponse;
+import com.bank.demo.config.JacksonConfig;
+import com.bank.demo.exceptions.InsufficientFundsException;
+import com.bank.demo.model.enums.RecurrenceFrequency;
+import com.bank.demo.repository.AccountRepository;
+import com.bank.demo.repository.StandingOrderRepository;
+import com.bank.demo.repository.StandingOrderRepository.StandingOrderRow;
+import com.bank.demo.repository.Userepository;
+import com.bank.demo.service.IdempotencyService;
+import com.bank.demo.service.StandingOrderService;
+import com.bank.demo.service.TransferExecutionEngine.TransferWork;
+import com.bank.demo.service.bankTransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class StandingOrderServiceTest {
+
+    private final StandingOrderRepository standingOrderRepository = mock(StandingOrderRepository.class);
+    private final bankTransactionService transactionService = mock(bankTransactionService.class);
+    private final IdempotencyService idempotencyService = mock(IdempotencyService.class);
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final OffsetDateTime now = OffsetDateTime.of(2025, 3, 31, 12, 0, 0, 0, ZoneOffset.UTC);
+    private final OffsetDateTime jan31 = OffsetDateTime.of(2025, 1, 31, 9, 0, 0, 0, ZoneOffset.UTC);
+
+    public StandingOrderServiceTest() throws Exception {
+        // Send directly instead of going through the idempotency store
+        when(idempotencyService.execute(anyString(), anyString(), any(), eq(TransferResponse.class), any()))
+            .thenAnswer(invocation -> ((TransferWork<?, ?>) invocation.getArgument(4)).run());
+        when(standingOrderRepository.advance(any(), any(), anyInt(), any(), anyString(), any(), any(), any())).thenReturn(true);
+    }
+
+    private StandingOrderService service(int batchSize, int maxPerRun) {
+        return new StandingOrderService(standingOrderRepository, mock(AccountRepository.class), mock(Userepository.class),
+            transactionService, idempotencyService, objectMapper, meterRegistry, 2, batchSize, maxPerRun);
+    }
+
+    @Test
+    void testMonthlyOccurrencesStayAnchoredOnTheStartDay() {
+        assertEquals(jan31, RecurrenceFrequency.MONTHLY.occurrence(jan31, 1, 0));
+        assertEquals(28, RecurrenceFrequency.MONTHLY.occurrence(jan31, 1, 1).getDayOfMonth());
+        assertEquals(31, RecurrenceFrequency.MONTHLY.occurrence(jan31, 1, 2).getDayOfMonth());
+        assertEquals(jan31.plusWeeks(4), RecurrenceFrequency.WEEKLY.occurrence(jan31, 2, 2));
+    }
+
+    @Test
+    void testCatchUpAdvancesTheCursorOneOccurrenceAtATime() throws Exception {
+        StandingOrderRow rent = order(jan31, 0, null);
+        StandingOrderRow bill = order(jan31, 2, 3);
+        when(standingOrderRepository.findDue(eq(now), any(), any(), eq(2))).thenReturn(List.of(rent, bill), List.of());
+        when(transactionService.sendMoney(any(TransferRequest.class))).thenReturn(response("INT-1"));
+
+        assertEquals(2, service(2, 100).runDue(now));
+
+        // Missed January run: the cursor moves to February 28th, the next sweep or page sends it
+        verify(standingOrderRepository).advance(eq(rent.standingOrderId()), eq(jan31), eq(1),
+            eq(OffsetDateTime.of(2025, 2, 28, 9, 0, 0, 0, ZoneOffset.UTC)), eq("ACTIVE"), any(), eq("INT-1"), isNull());
+        // Third and last run
+        verify(standingOrderRepository).advance(eq(bill.standingOrderId()), eq(jan31), eq(3), isNull(), eq("COMPLETED"),
+            any(), eq("INT-1"), isNull());
+        // The second page starts after the last order of the first one
+        verify(standingOrderRepository).findDue(now, jan31, bill.standingOrderId(), 2);
+        assertEquals(2.0, meterRegistry.counter("banking.standing-orders.sent").count());
+    }
+
+    @Test
+    void testRejectedOccurrenceIsSkippedAndFailedOneIsRetried() throws Exception {
+        StandingOrderRow broke = order(jan31, 0, null);
+        StandingOrderRow locked = order(jan31, 0, null);
+        when(standingOrderRepository.findDue(eq(now), any(), any(), eq(1))).thenReturn(List.of(broke), List.of(locked), List.of());
+        when(transactionService.sendMoney(any(TransferRequest.class)))
+            .thenThrow(new InsufficientFundsException("Not enough balance to complete transfer"))
+            .thenThrow(new IllegalStateException("lock timeout"));
+
+        // max-per-run of 2: the third page is never read
+        assertEquals(1, service(1, 2).runDue(now));
+
+        verify(standingOrderRepository).advance(eq(broke.standingOrderId()), eq(jan31), eq(1), any(), eq("ACTIVE"), any(),
+            isNull(), eq("Not enough balance to complete transfer"));
+        verify(standingOrderRepository, never()).advance(eq(locked.standingOrderId()), any(), anyInt(), any(), any(), any(), any(), any());
+        assertEquals(1.0, meterRegistry.counter("banking.standing-orders.skipped").count());
+        assertEquals(1.0, meterRegistry.counter("banking.standing-orders.retried").count());
+    }
+
+    private StandingOrderRow order(OffsetDateTime nextRunAt, int runsDone, Integer maxRuns) throws Exception {
+        TransferRequest template = new TransferRequest();
+        template.setFromAccountNumber("10000001");
+        template.setToAccountNumber("10000002");
+        template.setTransactionType("TRANSFER");
+        template.setAmount(1200);
+        return new StandingOrderRow(UUID.randomUUID(), UUID.randomUUID(), "jdoe@example.com", UUID.randomUUID(),
+            objectMapper.writeValueAsString(template), "MONTHLY", 1, jan31, null, maxRuns, runsDone, nextRunAt,
+            "ACTIVE", null, null, null);
+    }
+
+    private static TransferResponse response(String reference) {
+        TransferResponse response = new TransferResponse();
+        response.setInteracReferenceId(reference);
+        return response;
+    }
+}
@@ -0,0 +1,101 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.bank.demo.utils.StripedAccountLocks;
+
+public class StripedAccountLocksTest {
+
+    private static final int ACCOUNTS = 6;
+    private static final int THREADS = 16;
+    private static final int ROUNDS_PER_THREAD = 500;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000.00");
+
+    @Test
+    void testConcurrentTwoWayTransfersConserveMoney() throws Exception {
+        runStressTest(new StripedAccountLocks(64));
+    }
+
+    @Test
+    void testSingleStripeDoesNotDeadlock() throws Exception {
+        // Every account shares the same stripe: the lock must only be taken once per transfer
+        runStressTest(new StripedAccountLocks(1));
+    }
+
+    @Test
+    void testStripeMappingIsStable() {
+        StripedAccountLocks locks = new StripedAccountLocks(100);
+        assertEquals(128, locks.stripeCount(), "Stripe count should be rounded up to a power of two");
+        UUID accountId = UUID.randomUUID();
+        assertEquals(locks.stripeFor(accountId), locks.stripeFor(UUID.fromString(accountId.toString())));
+    }
+
+    private void runStressTest(StripedAccountLocks locks) throws Exception {
+        // 1. Arrange: a small set of hot accounts, deliberately stored in a non thread-safe structure
+        List<UUID> accountIds = new ArrayList<>();
+        BigDecimal[] balances = new BigDecimal[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds.add(UUID.randomUUID());
+            balances[i] = OPENING_BALANCE;
+        }
+        BigDecimal expectedTotal = OPENING_BALANCE.multiply(BigDecimal.valueOf(ACCOUNTS));
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // 2. Act: every round sends money A->B and then B->A, the classic deadlock pattern
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int round = 0; round < ROUNDS_PER_THREAD; round++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 300));
+                    transfer(locks, accountIds, balances, from, to, amount, completed, rejected);
+                    transfer(locks, accountIds, balances, to, from, amount, completed, rejected);
+                }
+            });
+        }
+        pool.shutdown();
+
+        // 3. Assert: no deadlock, no lost update, no overdraft
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS), "Transfers did not finish, possible deadlock");
+        assertEquals(THREADS * ROUNDS_PER_THREAD * 2, completed.get() + rejected.get());
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal balance : balances) {
+            assertTrue(balance.signum() >= 0, "Balance went negative: " + balance);
+            total = total.add(balance);
+        }
+        assertEquals(0, expectedTotal.compareTo(total), "Money was created or destroyed: " + total);
+    }
+
+    private void transfer(StripedAccountLocks locks, List<UUID> accountIds, BigDecimal[] balances,
+                          int from, int to, BigDecimal amount, AtomicInteger completed, AtomicInteger rejected) {
+        locks.withAccountLocks(accountIds.get(from), accountIds.get(to), () -> {
+            // Same read / check / write sequence as bankTransactionService, with a yield to widen the race window
+            BigDecimal fromBalance = balances[from];
+            if (fromBalance.compareTo(amount) < 0) {
+                rejected.incrementAndGet();
+                return null;
+            }
+            Thread.yield();
+            balances[from] = fromBalance.subtract(amount);
+            balances[to] = balances[to].add(amount);
+            completed.incrementAndGet();
+            return null;
+        });
+    }
+}
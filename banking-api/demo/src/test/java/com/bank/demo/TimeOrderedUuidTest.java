@@ -0,0 +1,73 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.bank.demo.utils.TimeOrderedUuid;
+
+public class TimeOrderedUuidTest {
+
+    @Test
+    void testIdsAreVersion7WithTheCurrentTime() {
+        long before = System.currentTimeMillis();
+        UUID id = TimeOrderedUuid.next();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        long timestamp = TimeOrderedUuid.timestampMillis(id);
+        assertTrue(timestamp >= before && timestamp <= after + 1, "Unexpected timestamp " + timestamp);
+        assertThrows(IllegalArgumentException.class, () -> TimeOrderedUuid.timestampMillis(UUID.randomUUID()));
+    }
+
+    @Test
+    void testIdsIncreaseEvenWithinTheSameMillisecond() {
+        UUID previous = TimeOrderedUuid.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = TimeOrderedUuid.next();
+            assertTrue(next.compareTo(previous) > 0, next + " is not after " + previous);
+            // Same order as PostgreSQL, which compares the bytes as unsigned
+            assertTrue(next.toString().compareTo(previous.toString()) > 0);
+            previous = next;
+        }
+    }
+
+    @Test
+    void testConcurrentCallersNeverGetTheSameIdAndEachSeesThemIncrease() throws Exception {
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<List<UUID>>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                List<UUID> ids = new ArrayList<>(perThread);
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(TimeOrderedUuid.next());
+                }
+                return ids;
+            }));
+        }
+        Set<UUID> all = new HashSet<>();
+        for (Future<List<UUID>> result : results) {
+            List<UUID> ids = result.get();
+            for (int i = 1; i < ids.size(); i++) {
+                assertTrue(ids.get(i).compareTo(ids.get(i - 1)) > 0);
+            }
+            all.addAll(ids);
+        }
+        pool.shutdown();
+        assertEquals(threads * perThread, all.size());
+    }
+}
@@ -0,0 +1,160 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.bank.demo.dto.TransactionDto;
+import com.bank.demo.exceptions.ExportBusyException;
+import com.bank.demo.model.User;
+import com.bank.demo.model.enums.TransactionStatus;
+import com.bank.demo.model.enums.TransactionType;
+import com.bank.demo.repository.PartitionRepository;
+import com.bank.demo.repository.PartitionRepository.Partition;
+import com.bank.demo.repository.TransactionHistoryRepository;
+import com.bank.demo.repository.Userepository;
+import com.bank.demo.service.TransactionExportService;
+import com.bank.demo.service.TransactionExportService.ExportFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class TransactionExportServiceTest {
+
+    private final TransactionHistoryRepository transactionHistoryRepository = mock(TransactionHistoryRepository.class);
+    private final PartitionRepository partitionRepository = mock(PartitionRepository.class);
+    private final Userepository userRepository = mock(Userepository.class);
+    // TransactionTemplate runs the callback between getTransaction and commit, both no-ops on the mock
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final UUID userId = UUID.randomUUID();
+    private final String email = "jdoe@example.com";
+    private final OffsetDateTime july = month(7);
+    private final OffsetDateTime august = month(8);
+    private final OffsetDateTime september = month(9);
+
+    public TransactionExportServiceTest() {
+        when(partitionRepository.rangePartitions("transactions")).thenReturn(List.of(
+            new Partition("transactions_2025_07", july, august), new Partition("transactions_2025_08", august, september)));
+        User user = new User();
+        user.setId(userId);
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+    }
+
+    private TransactionExportService service(int threads, int queue) {
+        return new TransactionExportService(transactionHistoryRepository, partitionRepository, userRepository, transactionManager,
+            objectMapper, meterRegistry, threads, queue, 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void rows(TransactionDto... rows) {
+        doAnswer(invocation -> {
+            Consumer<TransactionDto> consumer = invocation.getArgument(5);
+            for (TransactionDto row : rows) {
+                consumer.accept(row);
+            }
+            return null;
+        }).when(transactionHistoryRepository).streamByUserIdInRange(any(), any(), any(), anyBoolean(), anyInt(), any(Consumer.class));
+    }
+
+    @Test
+    void testCsvCoversEveryPartitionByDefaultAndEscapesText() throws Exception {
+        rows(transaction("Rent, \"June\"", null), transaction("=HYPERLINK(\"http://x\")", null), transaction("Coffee", null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = service(1, 1).export(email, null, null, ExportFormat.CSV, false, false, out).get(5, TimeUnit.SECONDS);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, exported);
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].startsWith("transaction_id,created_at,") && lines[0].endsWith(",counterparty_name"));
+        assertTrue(lines[1].contains(",\"Rent, \"\"June\"\"\","));
+        // A description starting with = is not a formula once opened in a spreadsheet
+        assertTrue(lines[2].contains(",\"'=HYPERLINK(\"\"http://x\"\")\","));
+        assertTrue(lines[3].endsWith(",DEBIT,12.50,CAD,0.00,1.000000,Coffee,,2025-07-03T10:00Z,,10000001,10000002,Alice Smith"));
+        verify(transactionHistoryRepository).streamByUserIdInRange(eq(userId), eq(july), eq(september), eq(false), eq(2), any());
+        assertEquals(3.0, meterRegistry.counter("banking.export.rows").count());
+    }
+
+    @Test
+    void testGzipNdjsonWithDetails() throws Exception {
+        rows(transaction("Groceries", "{\"name\": \"Metro\"}"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service(1, 1).export(email, july, august, ExportFormat.NDJSON, true, true, out).get(5, TimeUnit.SECONDS);
+
+        String body;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] lines = body.split("\n");
+        assertEquals(1, lines.length);
+        JsonNode row = objectMapper.readTree(lines[0]);
+        assertEquals("Groceries", row.get("description").asText());
+        assertEquals("Metro", row.get("merchantInfo").get("name").asText());
+        verify(transactionHistoryRepository).streamByUserIdInRange(eq(userId), eq(july), eq(august), eq(true), eq(2), any());
+    }
+
+    @Test
+    void testBusyPoolRejectsAndInvalidRequestsFailFast() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS))
+            .when(transactionHistoryRepository).streamByUserIdInRange(any(), any(), any(), anyBoolean(), anyInt(), any());
+        TransactionExportService service = service(1, 1);
+
+        CompletableFuture<Long> running = service.export(email, null, null, ExportFormat.CSV, false, false, new ByteArrayOutputStream());
+        CompletableFuture<Long> queued = service.export(email, null, null, ExportFormat.CSV, false, false, new ByteArrayOutputStream());
+        assertThrows(ExportBusyException.class,
+            () -> service.export(email, null, null, ExportFormat.CSV, false, false, new ByteArrayOutputStream()));
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+
+        assertEquals(1.0, meterRegistry.counter("banking.export.rejected").count());
+        assertThrows(IllegalArgumentException.class,
+            () -> service.export(email, august, july, ExportFormat.CSV, false, false, new ByteArrayOutputStream()));
+        assertThrows(IllegalArgumentException.class, () -> ExportFormat.parse("xml"));
+        assertEquals(ExportFormat.NDJSON, ExportFormat.parse("ndjson"));
+    }
+
+    private static TransactionDto transaction(String description, String merchantInfo) {
+        OffsetDateTime createdAt = OffsetDateTime.of(2025, 7, 3, 10, 0, 0, 0, ZoneOffset.UTC);
+        return new TransactionDto(UUID.randomUUID(), createdAt, TransactionType.TRANSFER, TransactionStatus.COMPLETED, "DEBIT",
+            new BigDecimal("12.50"), "CAD", new BigDecimal("0.00"), new BigDecimal("1.000000"), description, null, createdAt,
+            null, "10000001", "10000002", "Alice Smith", merchantInfo, null);
+    }
+
+    private static OffsetDateTime month(int month) {
+        return OffsetDateTime.of(2025, month, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    }
+}
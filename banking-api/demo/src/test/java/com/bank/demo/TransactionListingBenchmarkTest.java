@@ -0,0 +1,126 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bank.demo.model.Transaction;
+import com.bank.demo.service.TransactionService;
+import com.bank.demo.utils.TimeOrderedUuid;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+
+// Compares how many history rows per second are read and serialized to JSON as Transaction entities (with their
+// accounts, owners and banks) and as TransactionDto projections. Both read the newest page of the same account.
+// It adds rows to the seed account's history, so it only runs on demand: mvn test -Dbanking.benchmark=true
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfSystemProperty(named = "banking.benchmark", matches = "true")
+class TransactionListingBenchmarkTest {
+
+    private static final int ROWS = 5_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 500;
+    private static final String MARKER = "listing-benchmark";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private UUID accountId;
+
+    @BeforeEach
+    void insertHistory() {
+        accountId = jdbcTemplate.queryForObject("SELECT account_id FROM accounts WHERE account_number = '10000001'", UUID.class);
+        UUID counterpartyId = jdbcTemplate.queryForObject("SELECT account_id FROM accounts WHERE account_number = '10000002'", UUID.class);
+        Instant now = Instant.now();
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            // Alternate sides so both arms of the history query are read
+            boolean debit = i % 2 == 0;
+            rows.add(new Object[] {TimeOrderedUuid.next(), Timestamp.from(now.minusMillis(i * 100L)),
+                debit ? accountId : counterpartyId, debit ? counterpartyId : accountId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO transactions (transaction_id, created_at, from_account_id, to_account_id, " +
+            "transaction_type, transaction_status, amount, currency, description, processed_at) " +
+            "VALUES (?, ?, ?, ?, 'TRANSFER', 'COMPLETED', 12.50, 'CAD', '" + MARKER + "', now())", rows);
+    }
+
+    @AfterEach
+    void deleteHistory() {
+        jdbcTemplate.update("DELETE FROM transactions WHERE description = ?", MARKER);
+    }
+
+    @Test
+    void compareEntityAndProjectionListing() throws Exception {
+        Result entities = measure(() -> transactionTemplate.execute(status -> serialize(entityManager.createQuery(
+            "SELECT t FROM Transaction t WHERE t.fromAccount.id = :account OR t.toAccount.id = :account " +
+            "ORDER BY t.createdAt DESC, t.transactionId DESC", Transaction.class)
+            .setParameter("account", accountId)
+            .setMaxResults(PAGE_SIZE)
+            .getResultList())));
+        Result projections = measure(() -> serialize(
+            transactionService.getTransactionsByAccountId(accountId, null, null, PAGE_SIZE, null, false).transactions()));
+
+        report("entities   ", entities);
+        report("projections", projections);
+        assertEquals(PAGE_SIZE, transactionService.getTransactionsByAccountId(accountId, null, null, PAGE_SIZE, null, false)
+            .transactions().size());
+    }
+
+    private record Result(long nanos, long bytes) {}
+
+    private Result measure(Supplier<byte[]> page) {
+        for (int i = 0; i < WARMUP; i++) {
+            page.get();
+        }
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            bytes += page.get().length;
+        }
+        return new Result(System.nanoTime() - start, bytes);
+    }
+
+    private byte[] serialize(List<?> page) {
+        try {
+            return objectMapper.writeValueAsBytes(page);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void report(String label, Result result) {
+        long rows = (long) ITERATIONS * PAGE_SIZE;
+        System.out.printf(">>> %s %,d rows in %.0f ms (%,.0f rows/s serialized), %,d bytes/row%n", label, rows,
+            result.nanos() / 1e6, rows / (result.nanos() / 1e9), result.bytes() / rows);
+    }
+}
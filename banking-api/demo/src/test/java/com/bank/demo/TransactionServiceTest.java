@@ -0,0 +1,108 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.bank.demo.dto.TransactionDto;
+import com.bank.demo.model.enums.TransactionStatus;
+import com.bank.demo.model.enums.TransactionType;
+import com.bank.demo.repository.PartitionRepository;
+import com.bank.demo.repository.PartitionRepository.Partition;
+import com.bank.demo.repository.TransactionHistoryRepository;
+import com.bank.demo.service.TransactionService;
+import com.bank.demo.service.TransactionService.TransactionPage;
+import com.bank.demo.utils.HistoryCursor;
+
+public class TransactionServiceTest {
+
+    @Mock private TransactionHistoryRepository transactionHistoryRepository;
+    @Mock private PartitionRepository partitionRepository;
+
+    @InjectMocks
+    private TransactionService service;
+
+    private final UUID accountId = UUID.randomUUID();
+    private final OffsetDateTime june = month(6);
+    private final OffsetDateTime july = month(7);
+    private final OffsetDateTime august = month(8);
+    private final OffsetDateTime september = month(9);
+    private final OffsetDateTime october = month(10);
+
+    public TransactionServiceTest() {
+        MockitoAnnotations.openMocks(this);
+        when(partitionRepository.rangePartitions("transactions")).thenReturn(List.of(
+            new Partition("transactions_2025_06", june, july), new Partition("transactions_2025_07", july, august),
+            new Partition("transactions_2025_08", august, september), new Partition("transactions_2025_09", september, october)));
+    }
+
+    @Test
+    void testNewestPartitionsFirstAndStopsOnceThePageIsFull() {
+        TransactionDto newest = transaction(september.plusDays(3));
+        TransactionDto second = transaction(august.plusDays(20));
+        TransactionDto third = transaction(august.plusDays(2));
+        when(transactionHistoryRepository.findByAccountIdInRange(eq(accountId), eq(september), eq(october), eq(october), any(), eq(3), eq(false)))
+            .thenReturn(List.of(newest));
+        when(transactionHistoryRepository.findByAccountIdInRange(eq(accountId), eq(august), eq(september), eq(september), any(), eq(2), eq(false)))
+            .thenReturn(List.of(second, third));
+
+        TransactionPage page = service.getTransactionsByAccountId(accountId, june.plusDays(10), null, 2, null, false);
+
+        assertEquals(List.of(newest, second), page.transactions());
+        assertEquals(HistoryCursor.after(second.getCreatedAt(), second.getTransactionId()).encode(), page.nextCursor());
+        // The page was full after August: July and June are never read
+        verify(transactionHistoryRepository, never()).findByAccountIdInRange(any(), eq(july), any(), any(), any(), anyInt(), anyBoolean());
+        verify(transactionHistoryRepository, never()).findByAccountIdInRange(any(), eq(june.plusDays(10)), any(), any(), any(), anyInt(), anyBoolean());
+    }
+
+    @Test
+    void testBoundsAndCursorNarrowThePartitionsRead() {
+        OffsetDateTime seen = august.plusDays(5);
+        UUID seenId = UUID.randomUUID();
+        String cursor = HistoryCursor.after(seen, seenId).encode();
+        when(transactionHistoryRepository.findByAccountIdInRange(any(), any(), any(), any(), any(), anyInt(), anyBoolean())).thenReturn(List.of());
+
+        TransactionPage page = service.getTransactionsByAccountId(accountId, july.plusDays(15), september.plusDays(1), 10, cursor, false);
+
+        assertNull(page.nextCursor());
+        // September holds only rows newer than the cursor: skipped. August seeks past the cursor, July is cut at from
+        verify(transactionHistoryRepository, never()).findByAccountIdInRange(any(), eq(september), any(), any(), any(), anyInt(), anyBoolean());
+        verify(transactionHistoryRepository).findByAccountIdInRange(eq(accountId), eq(august), eq(september), eq(seen), eq(seenId), anyInt(), anyBoolean());
+        verify(transactionHistoryRepository).findByAccountIdInRange(eq(accountId), eq(july.plusDays(15)), eq(august), eq(august), any(), anyInt(), anyBoolean());
+        verify(transactionHistoryRepository, never()).findByAccountIdInRange(any(), eq(june), any(), any(), any(), anyInt(), anyBoolean());
+    }
+
+    @Test
+    void testInvalidBoundsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.getTransactionsByAccountId(accountId, august, july, 10, null, false));
+        assertThrows(IllegalArgumentException.class, () -> service.getTransactionsByAccountId(accountId, july, august, 0, null, false));
+    }
+
+    private static TransactionDto transaction(OffsetDateTime createdAt) {
+        return new TransactionDto(UUID.randomUUID(), createdAt, TransactionType.TRANSFER, TransactionStatus.COMPLETED, "DEBIT",
+            BigDecimal.TEN, "CAD", BigDecimal.ZERO, BigDecimal.ONE, null, null, createdAt, null, "10000001", "10000002",
+            "Alice Smith", null, null);
+    }
+
+    private static OffsetDateTime month(int month) {
+        return OffsetDateTime.of(2025, month, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    }
+}
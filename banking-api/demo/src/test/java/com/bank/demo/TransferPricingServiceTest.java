@@ -0,0 +1,82 @@
+package com.bank.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.bank.demo.exceptions.UnsupportedCurrencyException;
+import com.bank.demo.model.Transaction;
+import com.bank.demo.model.enums.AccountType;
+import com.bank.demo.model.enums.TransactionType;
+import com.bank.demo.repository.PricingRepository;
+import com.bank.demo.repository.PricingRepository.FeeRuleRow;
+import com.bank.demo.service.TransferPricingService;
+import com.bank.demo.service.TransferPricingService.Quote;
+
+public class TransferPricingServiceTest {
+
+    private final PricingRepository pricingRepository = mock(PricingRepository.class);
+    private final TransferPricingService service = new TransferPricingService(pricingRepository, "CAD");
+
+    public TransferPricingServiceTest() {
+        when(pricingRepository.loadRates()).thenReturn(new HashMap<>(Map.of("USD", new BigDecimal("1.37"))));
+        when(pricingRepository.loadFeeRules()).thenReturn(List.of(
+            new FeeRuleRow(TransactionType.PAYMENT, AccountType.CHECKING, BigDecimal.ZERO, 25, new BigDecimal("0.50"), new BigDecimal("10.00")),
+            new FeeRuleRow(TransactionType.TRANSFER, AccountType.SAVINGS, new BigDecimal("1.00"), 0, BigDecimal.ZERO, null)));
+        service.refresh();
+    }
+
+    @Test
+    void feesAreComputedOnTheAmountAndClamped() {
+        // 25 bps of 100 is 0.25, raised to the 0.50 minimum
+        assertEquals(new BigDecimal("0.50"), service.quote(TransactionType.PAYMENT, AccountType.CHECKING, "cad", new BigDecimal("100")).feeAmount());
+        assertEquals(new BigDecimal("2.50"), service.quote(TransactionType.PAYMENT, AccountType.CHECKING, "CAD", new BigDecimal("1000")).feeAmount());
+        assertEquals(new BigDecimal("10.00"), service.quote(TransactionType.PAYMENT, AccountType.CHECKING, "CAD", new BigDecimal("100000")).feeAmount());
+        assertEquals(new BigDecimal("1.00"), service.quote(TransactionType.TRANSFER, AccountType.SAVINGS, null, new BigDecimal("5")).feeAmount());
+        // No rule, no fee
+        assertEquals(new BigDecimal("0.00"), service.quote(TransactionType.TRANSFER, AccountType.CHECKING, "CAD", new BigDecimal("5")).feeAmount());
+    }
+
+    @Test
+    void priceOverwritesClientValuesAndRejectsOtherCurrencies() {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setAmount(new BigDecimal("10.00"));
+        transaction.setCurrency("cad");
+        transaction.setExchangeRate(new BigDecimal("99"));
+        transaction.setFeeAmount(new BigDecimal("-5"));
+        service.price(transaction, AccountType.SAVINGS);
+        assertEquals("CAD", transaction.getCurrency());
+        assertEquals(new BigDecimal("1.000000"), transaction.getExchangeRate());
+        // The schedule says 1.00, but no fee is moved yet: the row does not record one
+        assertEquals(new BigDecimal("0.00"), transaction.getFeeAmount());
+
+        // Amounts are moved as book currency everywhere: a USD amount would be moved as CAD
+        UnsupportedCurrencyException foreign = assertThrows(UnsupportedCurrencyException.class,
+            () -> service.quote(TransactionType.TRANSFER, AccountType.CHECKING, "usd", BigDecimal.ONE));
+        assertEquals("Transfers in USD are not supported yet, accounts are kept in CAD", foreign.getMessage());
+        assertThrows(UnsupportedCurrencyException.class,
+            () -> service.quote(TransactionType.TRANSFER, AccountType.CHECKING, "JPY", BigDecimal.ONE));
+    }
+
+    @Test
+    void failedRefreshKeepsThePreviousTables() {
+        when(pricingRepository.loadRates()).thenThrow(new IllegalStateException("database down"));
+        service.refresh();
+        Quote quote = service.quote(TransactionType.TRANSFER, AccountType.SAVINGS, "CAD", BigDecimal.TEN);
+        assertEquals(new BigDecimal("1.00"), quote.feeAmount());
+        // The rates are still the ones loaded before
+        IllegalArgumentException foreign = assertThrows(IllegalArgumentException.class,
+            () -> service.quote(TransactionType.TRANSFER, AccountType.SAVINGS, "USD", BigDecimal.TEN));
+        assertTrue(foreign.getMessage().startsWith("Transfers in USD"));
+    }
+}
@@ -34,7 +34,7 @@ public class banTransactionControllerTest {
         TransferRequestDto.TransferResponse mockResponse =  new TransferRequestDto.TransferResponse();
         mockResponse.setStatus("PENDING");
         when(transactionService.sendMoney(request)).thenReturn(mockResponse);
-       ResponseEntity responseEntity = controller.sendMoney(request, "Bearer testtoken");
+       ResponseEntity responseEntity = controller.sendMoney(request, "Bearer testtoken", null);
        TransferResponse response = (TransferResponse) responseEntity.getBody();
       assertEquals("PENDING", response.getStatus());
     }      
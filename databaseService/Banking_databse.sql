@@ -5,12 +5,20 @@
 -- Enable UUID extension
 CREATE EXTENSION IF NOT EXISTS "uuid-ossp";
 
+-- Time ordered UUIDv7 for append-only keys, so rows inserted outside the API also go to the right edge of the index
+CREATE OR REPLACE FUNCTION uuid_generate_v7() RETURNS UUID AS $$
+    SELECT encode(set_bit(set_bit(overlay(uuid_send(gen_random_uuid())
+        PLACING substring(int8send(floor(extract(epoch FROM clock_timestamp()) * 1000)::BIGINT) FROM 3)
+        FROM 1 FOR 6), 52, 1), 53, 1), 'hex')::UUID;
+$$ LANGUAGE SQL VOLATILE;
+
 -- Create ENUM types
 CREATE TYPE account_type AS ENUM ('CHECKING', 'SAVINGS', 'CREDIT', 'LOAN');
 CREATE TYPE account_status AS ENUM ('ACTIVE', 'INACTIVE', 'SUSPENDED', 'CLOSED');
 CREATE TYPE transaction_type AS ENUM ('DEPOSIT', 'WITHDRAWAL', 'TRANSFER', 'PAYMENT', 'FEE');
-CREATE TYPE transaction_status AS ENUM ('PENDING', 'COMPLETED', 'FAILED', 'CANCELLED');
+CREATE TYPE transaction_status AS ENUM ('PENDING', 'COMPLETED', 'FAILED', 'CANCELLED', 'SCHEDULED'); -- SCHEDULED rows use scheduled_at as created_at
 CREATE TYPE user_role AS ENUM ('CUSTOMER', 'EMPLOYEE', 'MANAGER', 'ADMIN');
+CREATE TYPE ledger_direction AS ENUM ('DEBIT', 'CREDIT');
 
 -- Users table (customers and employees)
 CREATE TABLE users (
@@ -46,7 +54,7 @@ CREATE TABLE banks (
 
 -- Accounts table
 CREATE TABLE accounts (
-    account_id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    account_id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
     account_number VARCHAR(20) UNIQUE NOT NULL,
     user_id UUID NOT NULL REFERENCES users(user_id),
     bank_id UUID NOT NULL REFERENCES banks(bank_id),
@@ -62,27 +70,42 @@ CREATE TABLE accounts (
     opened_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
     closed_at TIMESTAMP WITH TIME ZONE,
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0 -- optimistic lock, bumped by every balance update
 );
 
 -- blacklisted tokens table for session management
 CREATE TABLE blacklisted_tokens (
-    id UUID DEFAULT gen_random_uuid() PRIMARY KEY,
+    id UUID DEFAULT uuid_generate_v7() PRIMARY KEY,
     token TEXT NOT NULL UNIQUE,
     expiry TIMESTAMP WITH TIME ZONE NOT NULL,
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
 );
+-- Idempotency keys for money movement APIs: the stored response is replayed when a client retries
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY, -- endpoint:user:client key
+    request_hash VARCHAR(64) NOT NULL,
+    response_body JSONB, -- NULL while the request holding the key is in progress
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+-- One-off data upgrades applied to this database (databaseService/upgrade_*.sql); a new database needs none of them
+CREATE TABLE schema_upgrades (
+    name VARCHAR(100) PRIMARY KEY,
+    applied_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+INSERT INTO schema_upgrades (name) VALUES ('pending_holds');
 -- Transactions table (partitioned by date for performance)
 CREATE TABLE transactions (
-    transaction_id UUID  DEFAULT uuid_generate_v4(),
+    transaction_id UUID  DEFAULT uuid_generate_v7(),
     from_account_id UUID REFERENCES accounts(account_id),
     to_account_id UUID REFERENCES accounts(account_id),
     transaction_type transaction_type NOT NULL,
     amount DECIMAL(15,2) NOT NULL,
     currency VARCHAR(3) DEFAULT 'USD',
     description TEXT,
-    reference_number VARCHAR(50),
-    UNIQUE (reference_number, created_at),
+    reference_number VARCHAR(50), -- Interac reference issued by the API: INT- + time ordered snowflake id
+    UNIQUE (reference_number, created_at), -- also the index behind lookups by reference
     transaction_status transaction_status DEFAULT 'PENDING',
     processed_at TIMESTAMP WITH TIME ZONE,
     scheduled_at TIMESTAMP WITH TIME ZONE,
@@ -90,7 +113,7 @@ CREATE TABLE transactions (
     exchange_rate DECIMAL(10,6) DEFAULT 1.000000,
     merchant_info JSONB, -- For payment transactions
     location_info JSONB, -- GPS, IP address, etc.
-    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP UNIQUE ,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP, -- not unique on its own: batch inserts share one timestamp
     updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
     PRIMARY KEY (transaction_id,created_at),
     
@@ -107,7 +130,102 @@ CREATE TABLE transactions_2025_07 PARTITION OF transactions
     FOR VALUES FROM ('2025-07-01') TO ('2025-08-01');
 CREATE TABLE transactions_2025_08 PARTITION OF transactions
     FOR VALUES FROM ('2025-08-01') TO ('2025-09-01');
--- Continue creating partitions as needed...
+-- The API creates the current and next months at startup and ahead of time (PartitionMaintenanceService)
+
+-- Double-entry ledger: every money movement writes one DEBIT and one CREDIT of the same amount.
+-- Append-only and partitioned like transactions; accounts.balance is the running total of an account's entries
+CREATE TABLE ledger_entries (
+    entry_id UUID DEFAULT uuid_generate_v7(),
+    transaction_id UUID NOT NULL, -- the transfer that moved the money
+    account_id UUID NOT NULL REFERENCES accounts(account_id),
+    direction ledger_direction NOT NULL, -- DEBIT lowers the account balance, CREDIT raises it
+    amount DECIMAL(15,2) NOT NULL CHECK (amount > 0), -- in the account's currency
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (entry_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE ledger_entries_2025_07 PARTITION OF ledger_entries
+    FOR VALUES FROM ('2025-07-01') TO ('2025-08-01');
+CREATE TABLE ledger_entries_2025_08 PARTITION OF ledger_entries
+    FOR VALUES FROM ('2025-08-01') TO ('2025-09-01');
+
+CREATE OR REPLACE FUNCTION reject_ledger_change() RETURNS TRIGGER AS $$
+BEGIN
+    RAISE EXCEPTION 'ledger_entries is append-only: post a reversing entry instead';
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER ledger_entries_append_only BEFORE UPDATE OR DELETE ON ledger_entries
+    FOR EACH ROW EXECUTE FUNCTION reject_ledger_change();
+
+-- Periodic per-account balance snapshots: balance at as_of = snapshot + entries created since as_of
+CREATE TABLE ledger_snapshots (
+    account_id UUID NOT NULL REFERENCES accounts(account_id),
+    as_of TIMESTAMP WITH TIME ZONE NOT NULL, -- covers every entry created before this instant
+    balance DECIMAL(15,2) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (account_id, as_of)
+);
+
+-- FX rates used to price cross-currency transfers: units of the book currency per unit of currency.
+-- Read into an in-memory snapshot by the API and refreshed periodically, never queried per transfer
+CREATE TABLE fx_rates (
+    currency VARCHAR(3) PRIMARY KEY,
+    rate_to_book DECIMAL(18,8) NOT NULL CHECK (rate_to_book > 0),
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Fee schedule per transaction type and sender account type: flat + basis points of the amount, clamped to [min, max].
+-- No row means no fee. Compiled into an in-memory table by the API like fx_rates
+CREATE TABLE fee_rules (
+    transaction_type transaction_type NOT NULL,
+    account_type account_type NOT NULL,
+    flat_fee DECIMAL(10,2) NOT NULL DEFAULT 0.00,
+    percent_bps INTEGER NOT NULL DEFAULT 0 CHECK (percent_bps >= 0),
+    min_fee DECIMAL(10,2) NOT NULL DEFAULT 0.00,
+    max_fee DECIMAL(10,2), -- NULL: no cap
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (transaction_type, account_type)
+);
+
+-- Interac e-transfers sent to an email address or phone number rather than an account. The transfer stays PENDING
+-- with no to_account_id until the recipient answers the security question; contacts are stored normalized
+-- (email trimmed and lower case, phone as digits with the country code) and the answer only as a BCrypt hash
+CREATE TABLE interac_claims (
+    transaction_id UUID PRIMARY KEY, -- the PENDING transfer (transactions is partitioned: no foreign key)
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL, -- created_at of the transfer, to read it from its partition
+    recipient_email VARCHAR(100),
+    recipient_phone VARCHAR(20),
+    security_question VARCHAR(255) NOT NULL,
+    security_answer_hash VARCHAR(255) NOT NULL,
+    failed_attempts INTEGER NOT NULL DEFAULT 0,
+    claimed_at TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT check_recipient_specified CHECK (recipient_email IS NOT NULL OR recipient_phone IS NOT NULL)
+);
+
+-- Standing orders: a /send request template repeated on a schedule (every interval_count days, weeks or months
+-- from starts_at). next_run_at is the cursor of the engine: the oldest occurrence not executed yet, NULL once the
+-- order is finished. Occurrences are computed from starts_at and runs_done, so a monthly order started on the
+-- 31st runs on the last day of shorter months and on the 31st again afterwards
+CREATE TABLE standing_orders (
+    standing_order_id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
+    user_id UUID NOT NULL REFERENCES users(user_id),
+    from_account_id UUID NOT NULL REFERENCES accounts(account_id),
+    template JSONB NOT NULL, -- the TransferRequest sent on every run
+    frequency VARCHAR(10) NOT NULL CHECK (frequency IN ('DAILY', 'WEEKLY', 'MONTHLY')),
+    interval_count INTEGER NOT NULL DEFAULT 1 CHECK (interval_count > 0),
+    starts_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    ends_at TIMESTAMP WITH TIME ZONE, -- NULL: no end date
+    max_runs INTEGER CHECK (max_runs > 0), -- NULL: no limit
+    runs_done INTEGER NOT NULL DEFAULT 0,
+    next_run_at TIMESTAMP WITH TIME ZONE,
+    status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE', -- ACTIVE, COMPLETED, CANCELLED
+    last_run_at TIMESTAMP WITH TIME ZONE,
+    last_reference VARCHAR(50), -- Interac reference of the last transfer sent
+    last_error TEXT, -- why the last occurrence was skipped, NULL when it was sent
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
 
 -- Account holders (for joint accounts)
 CREATE TABLE account_holders (
@@ -121,7 +239,7 @@ CREATE TABLE account_holders (
 
 -- Cards table (debit/credit cards)
 CREATE TABLE cards (
-    card_id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    card_id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
     account_id UUID NOT NULL REFERENCES accounts(account_id),
     card_number_hash VARCHAR(255) NOT NULL, -- Hashed card number
     card_type VARCHAR(20) NOT NULL, -- DEBIT, CREDIT
@@ -169,12 +287,23 @@ CREATE INDEX idx_users_email ON users(email);
 CREATE INDEX idx_users_username ON users(username);
 CREATE INDEX idx_accounts_user_id ON accounts(user_id);
 CREATE INDEX idx_accounts_number ON accounts(account_number);
-CREATE INDEX idx_transactions_from_account ON transactions(from_account_id);
-CREATE INDEX idx_transactions_to_account ON transactions(to_account_id);
+-- One per side of a transfer, in history order: an account's history is two ordered top-N range scans merged by
+-- the planner (UNION ALL), which the OR of the two columns could not get from either index. They also serve the FKs
+CREATE INDEX idx_transactions_from_account ON transactions(from_account_id, created_at DESC, transaction_id DESC);
+CREATE INDEX idx_transactions_to_account ON transactions(to_account_id, created_at DESC, transaction_id DESC);
 CREATE INDEX idx_transactions_created_at ON transactions(created_at);
 CREATE INDEX idx_transactions_status ON transactions(transaction_status);
+-- Only the open transfers: the pending expiry sweeper walks it oldest first, it shrinks as transfers settle
+CREATE INDEX idx_transactions_pending_created ON transactions(created_at) WHERE transaction_status = 'PENDING';
+-- Only the unclaimed transfers: the API loads them into its recipient index at startup
+CREATE INDEX idx_interac_claims_open ON interac_claims(created_at) WHERE claimed_at IS NULL;
+-- Only the live orders, in cursor order: what the standing order engine pages through
+CREATE INDEX idx_standing_orders_next_run ON standing_orders(next_run_at, standing_order_id) WHERE status = 'ACTIVE';
+CREATE INDEX idx_standing_orders_user_id ON standing_orders(user_id);
 CREATE INDEX idx_cards_account_id ON cards(account_id);
 CREATE INDEX idx_beneficiaries_user_id ON beneficiaries(user_id);
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys(expires_at);
+CREATE INDEX idx_ledger_entries_account_created ON ledger_entries(account_id, created_at);
 
 -- Row Level Security (RLS)
 ALTER TABLE accounts ENABLE ROW LEVEL SECURITY;
@@ -211,6 +340,8 @@ CREATE TRIGGER update_accounts_updated_at BEFORE UPDATE ON accounts
     FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 CREATE TRIGGER update_transactions_updated_at BEFORE UPDATE ON transactions
     FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+CREATE TRIGGER update_standing_orders_updated_at BEFORE UPDATE ON standing_orders
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 
 -- Views for common queries
 CREATE VIEW account_summary AS
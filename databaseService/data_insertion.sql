@@ -92,3 +92,17 @@ VALUES
 ( (SELECT account_id FROM account1), (SELECT account_id FROM account2), 'DEPOSIT',     500.00, 'USD' ,'Transfer to savings', 'TXN1001', 'COMPLETED', '2025-07-03 10:00:00+00', '2025-07-03 10:00:00+00'),
 ((SELECT account_id FROM account1), (SELECT account_id FROM account2),'WITHDRAWAL',  200.00,  'USD','Transfer to savings', 'TXN1001', 'COMPLETED', '2025-07-02 10:00:00+00', '2025-07-03 10:00:00+00'),
 ((SELECT account_id FROM account2), (SELECT account_id FROM account1) ,'TRANSFER',    500.00, 'USD' ,'Transfer to savings', 'TXN1001', 'COMPLETED', '2025-07-01 10:00:00+00', '2025-07-03 10:00:00+00');
+
+-- Step 5: Pricing reference data (rates to the CAD book currency, fee schedule)
+INSERT INTO fx_rates (currency, rate_to_book) VALUES
+('CAD', 1.00000000),
+('USD', 1.37000000),
+('EUR', 1.48000000),
+('GBP', 1.74000000);
+
+INSERT INTO fee_rules (transaction_type, account_type, flat_fee, percent_bps, min_fee, max_fee) VALUES
+('TRANSFER',   'SAVINGS',  1.00,  0, 0.00,  NULL),
+('PAYMENT',    'CHECKING', 0.00, 25, 0.50, 10.00),
+('PAYMENT',    'SAVINGS',  0.00, 25, 0.50, 10.00),
+('PAYMENT',    'CREDIT',   0.00, 250, 1.00, NULL),
+('WITHDRAWAL', 'CREDIT',   3.50, 100, 0.00, NULL);
@@ -0,0 +1,45 @@
+-- One-off upgrade for databases created before pending transfers became holds on available_balance.
+-- Run it once with the application stopped, before starting the version that places holds.
+--
+-- Before: sending a transfer lowered the sender's balance right away and left available_balance alone.
+-- After: a PENDING transfer only lowers available_balance; balance moves when it is accepted, and a decline or
+-- expiry gives available_balance back. Left as is, accepting an old PENDING transfer would debit the sender's
+-- balance a second time and declining one would add back an available_balance that was never lowered.
+-- This moves every open PENDING transfer to the new model: balance += amount, available_balance -= amount.
+-- It records itself in schema_upgrades and does nothing when run again (or on a database created with holds).
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS schema_upgrades (
+    name VARCHAR(100) PRIMARY KEY,
+    applied_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+DO $$
+DECLARE
+    converted INTEGER;
+BEGIN
+    IF EXISTS (SELECT 1 FROM schema_upgrades WHERE name = 'pending_holds') THEN
+        RAISE NOTICE 'pending_holds already applied';
+        RETURN;
+    END IF;
+
+    UPDATE accounts a
+    SET balance = a.balance + p.amount,
+        available_balance = a.available_balance - p.amount,
+        version = a.version + 1,
+        updated_at = CURRENT_TIMESTAMP
+    FROM (
+        SELECT from_account_id, SUM(amount) AS amount
+        FROM transactions
+        WHERE transaction_status = 'PENDING' AND from_account_id IS NOT NULL
+        GROUP BY from_account_id
+    ) p
+    WHERE a.account_id = p.from_account_id;
+    GET DIAGNOSTICS converted = ROW_COUNT;
+
+    INSERT INTO schema_upgrades (name) VALUES ('pending_holds');
+    RAISE NOTICE 'pending_holds: % accounts converted', converted;
+END $$;
+
+COMMIT;
@@ -1,5 +1,4 @@
 import React, { useState, useEffect } from "react";
-import { useAuth } from '../../contexts/AuthContext';
 import bankingService from '../../services/bankingService';
 
 const getStatusClass = (status) => {
@@ -18,7 +17,6 @@ const getStatusClass = (status) => {
 };
 
 const MyWalletTable = () => {
-  const { user } = useAuth();
   const [transactions, setTransactions] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
@@ -70,16 +68,15 @@ const MyWalletTable = () => {
     });
   };
 
-  const formatAmount = (amount, transactionType, fromAccount, toAccount) => {
+  const formatAmount = (amount, direction) => {
     const formattedAmount = new Intl.NumberFormat('en-CA', {
       style: 'currency',
       currency: 'CAD'
     }).format(Math.abs(amount));
 
-    // Determine if this is incoming or outgoing for the current user
-    const currentUserEmail = user?.email;
-    const isIncoming = toAccount?.user?.email === currentUserEmail;
-    const isOutgoing = fromAccount?.user?.email === currentUserEmail;
+    // The API tells whether the money came in (CREDIT) or left (DEBIT) the current user's accounts
+    const isIncoming = direction === 'CREDIT';
+    const isOutgoing = direction === 'DEBIT';
 
     if (isIncoming && !isOutgoing) {
       return `+ ${formattedAmount}`;
@@ -179,7 +176,7 @@ const MyWalletTable = () => {
                   <td className="px-4 py-2">{formatTime(tx.createdAt)}</td>
                   <td className="px-4 py-2">{getTransactionDescription(tx)}</td>
                   <td className="px-4 py-2">{getPaymentType(tx.transactionType)}</td>
-                  <td className="px-4 py-2">{formatAmount(tx.amount, tx.transactionType, tx.fromAccount, tx.toAccount)}</td>
+                  <td className="px-4 py-2">{formatAmount(tx.amount, tx.direction)}</td>
                   <td className="px-4 py-2">{calculateBalanceAtTransaction(index)}</td>
                   <td className="px-4 py-2">
                     <span className={`px-2 py-1 rounded-md text-xs font-medium ${getStatusClass(tx.transactionStatus)}`}>
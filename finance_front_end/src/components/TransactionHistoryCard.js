@@ -1,9 +1,7 @@
 import React, { useState, useEffect } from 'react';
-import { useAuth } from '../contexts/AuthContext';
 import bankingService from '../services/bankingService';
 
 const TransactionHistoryCard = () => {
-  const { user } = useAuth();
   const [transactions, setTransactions] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
@@ -37,16 +35,15 @@ const TransactionHistoryCard = () => {
     });
   };
 
-  const formatAmount = (amount, transactionType, fromAccount, toAccount) => {
+  const formatAmount = (amount, direction) => {
     const formattedAmount = new Intl.NumberFormat('en-CA', {
       style: 'currency',
       currency: 'CAD'
     }).format(Math.abs(amount));
 
-    // Determine if this is incoming or outgoing for the current user
-    const currentUserEmail = user?.email;
-    const isIncoming = toAccount?.user?.email === currentUserEmail;
-    const isOutgoing = fromAccount?.user?.email === currentUserEmail;
+    // The API tells whether the money came in (CREDIT) or left (DEBIT) the current user's accounts
+    const isIncoming = direction === 'CREDIT';
+    const isOutgoing = direction === 'DEBIT';
 
     if (isIncoming && !isOutgoing) {
       return { amount: `+${formattedAmount}`, type: 'credit' };
@@ -112,7 +109,7 @@ const TransactionHistoryCard = () => {
       ) : (
         <ul className="divide-y divide-gray-200">
           {transactions.map((tx) => {
-            const { amount, type } = formatAmount(tx.amount, tx.transactionType, tx.fromAccount, tx.toAccount);
+            const { amount, type } = formatAmount(tx.amount, tx.direction);
             return (
               <li key={`${tx.transactionId}-${tx.createdAt}`} className="py-3 flex justify-between items-center">
                 <div>